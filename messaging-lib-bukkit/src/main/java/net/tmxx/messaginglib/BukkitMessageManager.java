@@ -18,30 +18,51 @@
 package net.tmxx.messaginglib;
 
 import com.google.common.reflect.ClassPath;
+import lombok.Getter;
+import lombok.Setter;
 import net.tmxx.messaginglib.core.MessageManager;
+import net.tmxx.messaginglib.core.dispatch.StripedExecutor;
+import net.tmxx.messaginglib.core.dispatch.TickQueue;
+import net.tmxx.messaginglib.core.listener.DispatchTable;
+import net.tmxx.messaginglib.core.listener.ListenerTable;
 import net.tmxx.messaginglib.core.listener.MessageHandler;
+import net.tmxx.messaginglib.core.listener.ThreadMode;
 import net.tmxx.messaginglib.core.message.BungeeCordMessage;
+import net.tmxx.messaginglib.core.message.LazyPluginMessage;
+import net.tmxx.messaginglib.core.message.MessageBacklog;
+import net.tmxx.messaginglib.core.message.MessageFactory;
+import net.tmxx.messaginglib.core.message.MessageRegistry;
+import net.tmxx.messaginglib.core.message.TypeIdTable;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdRequest;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdResponse;
 import net.tmxx.messaginglib.core.message.PluginMessage;
 import net.tmxx.messaginglib.core.listener.MessageListener;
+import net.tmxx.messaginglib.core.util.CarrierSet;
 import net.tmxx.messaginglib.core.util.MethodContainer;
 import net.tmxx.messaginglib.core.exception.InvalidListenerException;
 import net.tmxx.messaginglib.core.exception.PluginMessageEventException;
+import net.tmxx.messaginglib.core.frame.FrameAssembler;
+import net.tmxx.messaginglib.core.frame.FrameBatcher;
+import net.tmxx.messaginglib.core.frame.FrameCodec;
+import net.tmxx.messaginglib.core.frame.FrameHeader;
+import net.tmxx.messaginglib.core.frame.SharedFrames;
+import net.tmxx.messaginglib.core.io.MessageBuffer;
+import net.tmxx.messaginglib.core.io.MessageReader;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by tmxx on 14.01.2016
@@ -51,19 +72,101 @@ import java.util.Map;
  */
 public class BukkitMessageManager implements MessageManager<Plugin, Player> {
     /**
-     * Contains all bungeecord message listeners.
+     * The default time in milliseconds the queued calls of sync listeners may take per tick.
      */
-    private Map<String, List<MethodContainer<Plugin>>> bukkitMessageListeners = new HashMap<>();
+    public static final long DEFAULT_MAIN_THREAD_BUDGET = 10;
 
     /**
-     * Contains all plugin message listeners.
+     * The default amount of messages sent from the back log per tick.
      */
-    private Map<Integer, List<MethodContainer<Plugin>>> pluginMessageListeners = new HashMap<>();
+    public static final int DEFAULT_BACK_LOG_RATE = 50;
+
+    /**
+     * The current snapshot of all registered listeners. It is replaced as a
+     * whole on every registration, so dispatching reads it without locking.
+     */
+    private volatile ListenerTable<Plugin> listenerTable = ListenerTable.empty();
+
+    /**
+     * Frames and compresses all messages sent on the messaging lib channel.
+     */
+    @Getter private final FrameCodec frameCodec = new FrameCodec();
+
+    /**
+     * Puts received fragments of large frames back together.
+     */
+    @Getter private final FrameAssembler frameAssembler = new FrameAssembler();
+
+    /**
+     * Packs the frames sent through a player during a tick into a single
+     * plugin message, which is sent at the start of the next tick.
+     */
+    @Getter private final FrameBatcher<Player> frameBatcher = new FrameBatcher<>( this.frameCodec, ( player, frame ) -> {
+        if ( player.isOnline() ) {
+            player.sendPluginMessage( MessagingLib.getMessagingLib(), MessagingLib.MESSAGING_LIB_CHANNEL, frame );
+        }
+    } );
+
+    /**
+     * The executor dispatching received messages or null to dispatch them on
+     * the thread they were received on. Messages are ordered by player.
+     * The executor is shut down when the plugin is disabled.
+     */
+    @Getter @Setter private volatile StripedExecutor dispatchExecutor;
+
+    /**
+     * Contains the calls of {@link ThreadMode#SYNC} listeners for messages
+     * dispatched off the main thread, which are run once per tick.
+     */
+    private final TickQueue mainThreadQueue = new TickQueue();
+
+    /**
+     * The time in milliseconds the queued calls of sync listeners may take per tick.
+     * Calls exceeding it are left for the next tick.
+     */
+    @Getter @Setter private volatile long mainThreadBudget = DEFAULT_MAIN_THREAD_BUDGET;
+
+    /**
+     * Contains the online players messages without a recipient are sent through.
+     */
+    @Getter private final CarrierSet<Player> carriers = new CarrierSet<>();
 
     /**
      * Contains all plugin messages which could not be sent due to no online players.
      */
-    private List<PluginMessage> backLog = new ArrayList<>();
+    @Getter private final MessageBacklog backLog = new MessageBacklog();
+
+    /**
+     * The amount of messages sent from the back log per tick, so a joining
+     * player does not get all of them at once.
+     */
+    @Getter @Setter private volatile int backLogRate = DEFAULT_BACK_LOG_RATE;
+
+    /**
+     * The epoch of the type ids the proxy of every player confirmed by the unique id
+     * of the player. Players may be connected through different proxies, so negotiated
+     * type ids are only used for players whose proxy sent them.
+     */
+    private final Map<UUID, Integer> confirmedEpochs = new ConcurrentHashMap<>();
+
+    /**
+     * The epoch offered to the proxy of every player whose proxy did not answer
+     * yet by the unique id of the player. Guarded by {@link #reservedEpochs}.
+     */
+    private final Map<UUID, Integer> pendingEpochs = new HashMap<>();
+
+    /**
+     * Whether or not every epoch was offered to a proxy and may still be used by it.
+     * Epochs are only released while no proxy is asked for type ids, as any answer
+     * may name an epoch offered before. This also guards the epoch bookkeeping.
+     */
+    private final boolean[] reservedEpochs = new boolean[ TypeIdTable.MAX_EPOCH + 1 ];
+
+    /**
+     * The epoch offered next if it is not reserved. Epochs are offered in turns,
+     * so a released epoch is not offered again right away.
+     */
+    private int nextEpoch = 1;
 
     /**
      * Registers the listener to the specified origin.
@@ -71,33 +174,24 @@ public class BukkitMessageManager implements MessageManager<Plugin, Player> {
      * @param origin The origin of the listener
      */
     @Override
-    public void registerListener( MessageListener messageListener, Plugin origin ) {
+    public synchronized void registerListener( MessageListener messageListener, Plugin origin ) {
+        ListenerTable<Plugin> listenerTable = this.listenerTable;
         for ( Method method : messageListener.getClass().getDeclaredMethods() ) {
             if ( method.isAnnotationPresent( MessageHandler.class ) ) {
                 if ( method.getParameterTypes().length == 2 ) {
-                    if ( PluginMessage.class.isAssignableFrom( method.getParameterTypes()[0] ) && Player.class.isAssignableFrom( method.getParameterTypes()[1] ) ) {
-                        if ( BungeeCordMessage.class.isAssignableFrom( method.getParameterTypes()[0] ) ) {
+                    Class<?> messageType = LazyPluginMessage.getMessageType( method );
+                    if ( messageType != null && Player.class.isAssignableFrom( method.getParameterTypes()[1] ) ) {
+                        if ( BungeeCordMessage.class.isAssignableFrom( messageType ) ) {
                             try {
-                                String id = ( ( BungeeCordMessage ) method.getParameterTypes()[0].getDeclaredConstructor().newInstance() ).getSubChannel();
-                                List<MethodContainer<Plugin>> methodContainers = this.bukkitMessageListeners.get( id );
-                                if ( methodContainers == null ) {
-                                    methodContainers = new ArrayList<>();
-                                }
-                                method.setAccessible( true );
-                                methodContainers.add( new MethodContainer<>( messageListener, method, origin ) );
-                                this.bukkitMessageListeners.put( id, methodContainers );
+                                String id = ( ( BungeeCordMessage ) messageType.getDeclaredConstructor().newInstance() ).getSubChannel();
+                                listenerTable = listenerTable.withBungeeCordMessageListener( id, new MethodContainer<>( messageListener, method, origin ) );
                             } catch ( InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e ) {
                                 e.printStackTrace();
                             }
                         } else {
-                            int id = method.getParameterTypes()[0].getName().hashCode();
-                            List<MethodContainer<Plugin>> methodContainers = this.pluginMessageListeners.get( id );
-                            if ( methodContainers == null ) {
-                                methodContainers = new ArrayList<>();
-                            }
-                            method.setAccessible( true );
-                            methodContainers.add( new MethodContainer<>( messageListener, method, origin ) );
-                            this.pluginMessageListeners.put( id, methodContainers );
+                            boolean lazy = LazyPluginMessage.class.equals( method.getParameterTypes()[0] );
+                            boolean retaining = method.getAnnotation( MessageHandler.class ).retainsMessage();
+                            listenerTable = listenerTable.withPluginMessageListener( new MethodContainer<>( messageListener, method, origin, lazy, retaining ) );
                         }
                     }
                 } else {
@@ -105,6 +199,8 @@ public class BukkitMessageManager implements MessageManager<Plugin, Player> {
                 }
             }
         }
+
+        this.listenerTable = listenerTable;
     }
 
     /**
@@ -134,30 +230,8 @@ public class BukkitMessageManager implements MessageManager<Plugin, Player> {
      * @param messageListener The message listener to unregister
      */
     @Override
-    public void unregisterListener( MessageListener messageListener ) {
-        // Unregister BungeeCord message listeners
-        for ( String key : this.bukkitMessageListeners.keySet() ) {
-            Iterator<MethodContainer<Plugin>> iterator = this.bukkitMessageListeners.get( key ).iterator();
-
-            while ( iterator.hasNext() ) {
-                MethodContainer methodContainer = iterator.next();
-                if ( methodContainer.getMessageListener().equals( messageListener ) ) {
-                    iterator.remove();
-                }
-            }
-        }
-
-        // Unregister plugin message listeners
-        for ( int key : this.pluginMessageListeners.keySet() ) {
-            Iterator<MethodContainer<Plugin>> iterator = this.pluginMessageListeners.get( key ).iterator();
-
-            while ( iterator.hasNext() ) {
-                MethodContainer methodContainer = iterator.next();
-                if ( methodContainer.getMessageListener().equals( messageListener ) ) {
-                    iterator.remove();
-                }
-            }
-        }
+    public synchronized void unregisterListener( MessageListener messageListener ) {
+        this.listenerTable = this.listenerTable.withoutListener( messageListener );
     }
 
     /**
@@ -165,30 +239,8 @@ public class BukkitMessageManager implements MessageManager<Plugin, Player> {
      * @param origin The origin to unregister all to it registered listeners
      */
     @Override
-    public void unregisterListeners( Plugin origin ) {
-        // Unregister BungeeCord message listeners
-        for ( String key : this.bukkitMessageListeners.keySet() ) {
-            Iterator<MethodContainer<Plugin>> iterator = this.bukkitMessageListeners.get( key ).iterator();
-
-            while ( iterator.hasNext() ) {
-                MethodContainer methodContainer = iterator.next();
-                if ( methodContainer.getOrigin().equals( origin ) ) {
-                    iterator.remove();
-                }
-            }
-        }
-
-        // Unregister plugin message listeners
-        for ( int key : this.pluginMessageListeners.keySet() ) {
-            Iterator<MethodContainer<Plugin>> iterator = this.pluginMessageListeners.get( key ).iterator();
-
-            while ( iterator.hasNext() ) {
-                MethodContainer methodContainer = iterator.next();
-                if ( methodContainer.getOrigin().equals( origin ) ) {
-                    iterator.remove();
-                }
-            }
-        }
+    public synchronized void unregisterListeners( Plugin origin ) {
+        this.listenerTable = this.listenerTable.withoutOrigin( origin );
     }
 
     /**
@@ -199,31 +251,119 @@ public class BukkitMessageManager implements MessageManager<Plugin, Player> {
     @Override
     public void handleIncomingMessage( byte[] data, Player player ) {
         try {
-            DataInputStream inputStream = new DataInputStream( new ByteArrayInputStream( data ) );
+            FrameHeader header = this.frameCodec.readHeader( data );
+            if ( header == null || this.frameCodec.isExpired( header ) ) {
+                // The frame is malformed, of an unknown version or too old
+                return;
+            }
 
-            int id = inputStream.readInt();
-            if ( !MessagingLib.getMessageRegistry().isPluginMessageRegistered( id ) ) {
+            if ( !header.isBatch() ) {
+                this.handleFrame( data, header, player );
                 return;
             }
 
-            PluginMessage pluginMessage = MessagingLib.getMessageRegistry().getPluginMessage( id ).getClass().getConstructor().newInstance();
+            MessageReader reader = this.frameCodec.openBody( data, header );
+            if ( reader == null ) {
+                return;
+            }
 
-            pluginMessage.read( inputStream );
+            // The frames are handled in the order they were sent
+            byte[] frame;
+            while ( ( frame = FrameBatcher.readFrame( reader ) ) != null ) {
+                FrameHeader frameHeader = this.frameCodec.readHeader( frame );
+                if ( frameHeader != null && !frameHeader.isBatch() && !this.frameCodec.isExpired( frameHeader ) ) {
+                    this.handleFrame( frame, frameHeader, player );
+                }
+            }
+        } catch ( Exception e ) {
+            e.printStackTrace();
+        }
+    }
 
-            if ( this.pluginMessageListeners.containsKey( id ) ) {
-                for ( MethodContainer methodContainer : this.pluginMessageListeners.get( id ) ) {
-                    try {
-                        methodContainer.getMethod().invoke( methodContainer.getMessageListener(), pluginMessage, player );
-                    } catch ( Exception e ) {
-                        throw new PluginMessageEventException( "Error while performing a plugin message event", e );
-                    }
+    /**
+     * Handles a single received frame which is not a batch.
+     * @param data The bytes of the frame
+     * @param header The header of the frame
+     * @param player The player the frame was received through
+     */
+    private void handleFrame( byte[] data, FrameHeader header, Player player ) {
+        try {
+            MessageRegistry messageRegistry = MessagingLib.getMessageRegistry();
+            int typeId = header.getTypeId();
+            int id = messageRegistry.getTypeIndex( typeId, header.hasNegotiatedTypeId() );
+            if ( !messageRegistry.isPluginMessageRegisteredByIndex( id ) ) {
+                // The type is unknown, ambiguous or was negotiated with another proxy
+                return;
+            }
+
+            DispatchTable<Plugin> dispatchTable = this.listenerTable.getDispatchTable( messageRegistry );
+            if ( !dispatchTable.isSubscribed( id ) ) {
+                // Nobody listens for this message, so we do not even decode it
+                return;
+            }
+
+            if ( header.isFragment() ) {
+                data = this.frameAssembler.accept( player.getUniqueId(), data, header );
+                if ( data == null ) {
+                    // We are still waiting for further fragments
+                    return;
+                }
+
+                header = this.frameCodec.readHeader( data );
+                if ( header == null || header.isFragment() || header.getTypeId() != typeId || this.frameCodec.isExpired( header ) ) {
+                    return;
                 }
             }
+
+            MessageReader reader = this.frameCodec.openBody( data, header );
+            if ( reader == null ) {
+                // The body is malformed or compressed using an unknown codec
+                return;
+            }
+
+            LazyPluginMessage<PluginMessage> lazyPluginMessage = new LazyPluginMessage<>( messageRegistry.getMessageFactoryByIndex( id ), reader );
+            MethodContainer<Plugin>[] methodContainers = dispatchTable.getPluginMessageListeners( id );
+            boolean recyclable = dispatchTable.isRecyclable( id );
+            this.dispatch( player, () -> this.dispatchPluginMessage( methodContainers, recyclable, lazyPluginMessage, player ) );
         } catch ( Exception e ) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Passes a received plugin message to its listeners.
+     * @param methodContainers The listeners of the message
+     * @param recyclable Whether or not none of the listeners retains the message
+     * @param lazyPluginMessage The lazy view of the message
+     * @param player The player the message was received through
+     * @throws PluginMessageEventException Thrown when a listener fails
+     */
+    private void dispatchPluginMessage( MethodContainer<Plugin>[] methodContainers, boolean recyclable,
+                                        LazyPluginMessage<PluginMessage> lazyPluginMessage, Player player ) {
+        boolean mainThread = Bukkit.isPrimaryThread();
+        for ( MethodContainer<Plugin> methodContainer : methodContainers ) {
+            Object message = methodContainer.isLazy() ? lazyPluginMessage : lazyPluginMessage.get();
+            if ( message == null ) {
+                // The message is malformed, we do not pass it to the listeners
+                return;
+            }
+
+            if ( !mainThread && methodContainer.getThreadMode() == ThreadMode.SYNC ) {
+                // The listener is called during the next tick and may still use the message then
+                this.mainThreadQueue.add( () -> invoke( methodContainer, message, player, "plugin message" ) );
+                recyclable = false;
+                continue;
+            }
+
+            invoke( methodContainer, message, player, "plugin message" );
+        }
+
+        if ( recyclable ) {
+            // No listener kept a reference, so the message can be reused
+            lazyPluginMessage.recycle();
+        }
+    }
+
     /**
      * Handles an incoming BungeeCord message.
      * @param data The data of the incoming message
@@ -232,32 +372,95 @@ public class BukkitMessageManager implements MessageManager<Plugin, Player> {
     @Override
     public void handleIncomingBungeeCordMessage( byte[] data, Player player ) {
         try {
-            DataInputStream inputStream = new DataInputStream( new ByteArrayInputStream( data ) );
+            MessageReader reader = new MessageReader( data );
 
-            String id = inputStream.readUTF();
-            if ( !MessagingLib.getMessageRegistry().isBungeeCordMessageRegistered( id ) ) {
+            String id = reader.readUTF();
+            MessageFactory<? extends BungeeCordMessage> messageFactory = id == null ? null : MessagingLib.getMessageRegistry().getBungeeCordMessageFactory( id );
+            if ( messageFactory == null ) {
                 // Message is not registered
                 return;
             }
 
-            BungeeCordMessage bungeeCordMessage = MessagingLib.getMessageRegistry().getBungeeCordMessage( id ).getClass().getConstructor().newInstance();
+            BungeeCordMessage bungeeCordMessage = messageFactory.create();
 
-            bungeeCordMessage.read( inputStream );
+            bungeeCordMessage.read( reader );
 
-            if ( this.bukkitMessageListeners.containsKey( id ) ) {
-                for ( MethodContainer methodContainer : this.bukkitMessageListeners.get( id ) ) {
-                    try {
-                        methodContainer.getMethod().invoke( methodContainer.getMessageListener(), bungeeCordMessage, player );
-                    } catch ( Exception e ) {
-                        throw new PluginMessageEventException( "Error while performing a bungeecord message event", e );
-                    }
-                }
+            MethodContainer<Plugin>[] methodContainers = this.listenerTable.getBungeeCordMessageListeners( id );
+            if ( methodContainers.length > 0 ) {
+                this.dispatch( player, () -> this.dispatchBungeeCordMessage( methodContainers, bungeeCordMessage, player ) );
             }
         } catch ( Exception e ) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Passes a received BungeeCord message to its listeners.
+     * @param methodContainers The listeners of the message
+     * @param bungeeCordMessage The message
+     * @param player The player the message was received through
+     * @throws PluginMessageEventException Thrown when a listener fails
+     */
+    private void dispatchBungeeCordMessage( MethodContainer<Plugin>[] methodContainers, BungeeCordMessage bungeeCordMessage, Player player ) {
+        boolean mainThread = Bukkit.isPrimaryThread();
+        for ( MethodContainer<Plugin> methodContainer : methodContainers ) {
+            if ( !mainThread && methodContainer.getThreadMode() == ThreadMode.SYNC ) {
+                this.mainThreadQueue.add( () -> invoke( methodContainer, bungeeCordMessage, player, "bungeecord message" ) );
+            } else {
+                invoke( methodContainer, bungeeCordMessage, player, "bungeecord message" );
+            }
+        }
+    }
+
+    /**
+     * Calls a listener method.
+     * @param methodContainer The listener method
+     * @param message The message or lazy view of the message
+     * @param player The player the message was received through
+     * @param kind The kind of message used in the error message
+     * @throws PluginMessageEventException Thrown when the listener fails
+     */
+    private static void invoke( MethodContainer<Plugin> methodContainer, Object message, Player player, String kind ) {
+        try {
+            methodContainer.invoke( message, player );
+        } catch ( Throwable throwable ) {
+            throw new PluginMessageEventException( "Error while performing a " + kind + " event", throwable );
+        }
+    }
+
+    /**
+     * Calls the sync listeners queued for messages dispatched off the main thread
+     * until the {@link #mainThreadBudget} is used up. This is called once per tick.
+     */
+    public void drainMainThreadQueue() {
+        if ( !this.mainThreadQueue.isEmpty() ) {
+            this.mainThreadQueue.drain( TimeUnit.MILLISECONDS.toNanos( this.mainThreadBudget ) );
+        }
+    }
+
+    /**
+     * Runs the dispatch of a received message. Without a {@link #dispatchExecutor}
+     * this happens right away on the current thread, otherwise on the stripe of
+     * the player, so messages of a player are handled in order.
+     * @param player The player the message was received through
+     * @param task The dispatch
+     */
+    private void dispatch( Player player, Runnable task ) {
+        StripedExecutor dispatchExecutor = this.dispatchExecutor;
+        if ( dispatchExecutor == null ) {
+            task.run();
+            return;
+        }
+
+        dispatchExecutor.execute( player.getUniqueId(), () -> {
+            try {
+                task.run();
+            } catch ( Exception e ) {
+                e.printStackTrace();
+            }
+        } );
+    }
+
     /**
      * Sends a plugin message to the specified player.
      * @param pluginMessage The message to send
@@ -267,18 +470,69 @@ public class BukkitMessageManager implements MessageManager<Plugin, Player> {
     public void sendPluginMessage( PluginMessage pluginMessage, Player player ) {
         try {
             if ( player != null && player.isOnline() ) {
-                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                DataOutputStream outputStream = new DataOutputStream( byteArrayOutputStream );
-                if ( BungeeCordMessage.class.isAssignableFrom( pluginMessage.getClass() ) ) {
-
-                    BungeeCordMessage bungeeCordMessage = (BungeeCordMessage) pluginMessage;
-                    outputStream.writeUTF( bungeeCordMessage.getSubChannel() );
-                    bungeeCordMessage.write( outputStream );
-                    player.sendPluginMessage( MessagingLib.getMessagingLib(), MessagingLib.BUNGEE_CORD_CHANNEL, byteArrayOutputStream.toByteArray() );
+                MessageBuffer buffer = MessageBuffer.acquire( pluginMessage.getSizeHint() );
+                try {
+                    if ( BungeeCordMessage.class.isAssignableFrom( pluginMessage.getClass() ) ) {
+
+                        BungeeCordMessage bungeeCordMessage = (BungeeCordMessage) pluginMessage;
+                        buffer.getDataOutputStream().writeUTF( bungeeCordMessage.getSubChannel() );
+                        bungeeCordMessage.write( buffer );
+                        // Messages sent before have to arrive first
+                        this.frameBatcher.flush( player );
+                        player.sendPluginMessage( MessagingLib.getMessagingLib(), MessagingLib.BUNGEE_CORD_CHANNEL, buffer.toByteArray() );
+                    } else if ( pluginMessage.getCoalescingKey() != null ) {
+                        // Only the last message with this key is encoded when the batch is sent
+                        this.frameBatcher.add( player, pluginMessage.getClass(), pluginMessage.getCoalescingKey(), () -> this.encodeFrames( pluginMessage, player ) );
+                    } else {
+                        pluginMessage.write( buffer );
+                        for ( byte[] frame : this.encodeFrames( pluginMessage, player, buffer ) ) {
+                            this.frameBatcher.add( player, frame );
+                        }
+                    }
+                } finally {
+                    buffer.release();
+                }
+            }
+        } catch ( Exception e ) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sends a plugin message to all specified players. The message is
+     * encoded once and the same bytes are sent to every player.
+     * @param pluginMessage The message to send
+     * @param players The players to send the message to
+     */
+    @Override
+    public void broadcast( PluginMessage pluginMessage, Collection<? extends Player> players ) {
+        try {
+            if ( BungeeCordMessage.class.isAssignableFrom( pluginMessage.getClass() ) ) {
+                byte[] data = this.encodeBungeeCordMessage( (BungeeCordMessage) pluginMessage );
+                for ( Player player : players ) {
+                    if ( player != null && player.isOnline() ) {
+                        this.frameBatcher.flush( player );
+                        player.sendPluginMessage( MessagingLib.getMessagingLib(), MessagingLib.BUNGEE_CORD_CHANNEL, data );
+                    }
+                }
+                return;
+            }
+
+            SharedFrames sharedFrames = new SharedFrames( this.frameCodec, pluginMessage );
+            Object coalescingKey = pluginMessage.getCoalescingKey();
+            for ( Player player : players ) {
+                if ( player == null || !player.isOnline() ) {
+                    continue;
+                }
+
+                if ( coalescingKey != null ) {
+                    // Encoded when the first batch containing it is sent
+                    this.frameBatcher.add( player, pluginMessage.getClass(), coalescingKey,
+                            () -> sharedFrames.getFrames( this.getNegotiatedTypeId( pluginMessage, player ) ) );
                 } else {
-                    outputStream.writeInt( pluginMessage.getClass().getName().hashCode() );
-                    pluginMessage.write( outputStream );
-                    player.sendPluginMessage( MessagingLib.getMessagingLib(), MessagingLib.MESSAGING_LIB_CHANNEL, byteArrayOutputStream.toByteArray() );
+                    for ( byte[] frame : sharedFrames.getFrames( this.getNegotiatedTypeId( pluginMessage, player ) ) ) {
+                        this.frameBatcher.add( player, frame );
+                    }
                 }
             }
         } catch ( Exception e ) {
@@ -287,28 +541,241 @@ public class BukkitMessageManager implements MessageManager<Plugin, Player> {
     }
 
     /**
-     * Sends a plugin message to a randomized player.
+     * Encodes a BungeeCord message including its sub channel.
+     * @param bungeeCordMessage The message to encode
+     * @return The bytes to send on the BungeeCord channel
+     * @throws IOException Thrown when an error occurs
+     */
+    private byte[] encodeBungeeCordMessage( BungeeCordMessage bungeeCordMessage ) throws IOException {
+        MessageBuffer buffer = MessageBuffer.acquire( bungeeCordMessage.getSizeHint() );
+        try {
+            buffer.getDataOutputStream().writeUTF( bungeeCordMessage.getSubChannel() );
+            bungeeCordMessage.write( buffer );
+            return buffer.toByteArray();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Encodes a plugin message into its frames.
+     * @param pluginMessage The message to encode
+     * @param player The player the message is sent through
+     * @return The bytes of the frames to send in order
+     */
+    private byte[][] encodeFrames( PluginMessage pluginMessage, Player player ) {
+        MessageBuffer buffer = MessageBuffer.acquire( pluginMessage.getSizeHint() );
+        try {
+            pluginMessage.write( buffer );
+            return this.encodeFrames( pluginMessage, player, buffer );
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Wraps a written plugin message into its frames.
+     * @param pluginMessage The message
+     * @param player The player the message is sent through
+     * @param buffer The buffer the message was written to
+     * @return The bytes of the frames to send in order
+     */
+    private byte[][] encodeFrames( PluginMessage pluginMessage, Player player, MessageBuffer buffer ) {
+        int typeId = this.getNegotiatedTypeId( pluginMessage, player );
+        boolean negotiated = typeId >= 0;
+        if ( !negotiated ) {
+            typeId = pluginMessage.getClass().getName().hashCode();
+        }
+        return this.frameCodec.encodeFrames( typeId, negotiated, pluginMessage.getSchemaVersion(), buffer );
+    }
+
+    /**
+     * Gets the type id negotiated with the proxy for the type of the plugin message.
+     * Type ids are taken from the epoch the proxy of the player confirmed,
+     * otherwise the hash code is used.
+     * @param pluginMessage The plugin message to send
+     * @param player The player the message is sent through
+     * @return The negotiated type id or -1 if the proxy of the player does not know it
+     */
+    private int getNegotiatedTypeId( PluginMessage pluginMessage, Player player ) {
+        Integer epoch = this.confirmedEpochs.get( player.getUniqueId() );
+        if ( epoch == null ) {
+            return -1;
+        }
+
+        MessageRegistry messageRegistry = MessagingLib.getMessageRegistry();
+        return messageRegistry.getNegotiatedTypeId( messageRegistry.getTypeIndex( pluginMessage.getClass() ), epoch );
+    }
+
+    /**
+     * Sends the frames batched since the previous call. This is called at
+     * the start of every tick, so frames added during a tick are sent at the
+     * start of the next one.
+     */
+    public void flushBatches() {
+        this.frameBatcher.flushAll();
+    }
+
+    /**
+     * Sends a plugin message through one of the online players, which are
+     * picked round-robin. Messages with a coalescing key are always sent
+     * through the same player, so they are coalesced within its batch.
      * If no player is online the message will be added
      * to a queue and sent when the next player joins.
      * @param pluginMessage The message to send
      */
     @Override
     public void sendPluginMessage( PluginMessage pluginMessage ) {
-        if ( Bukkit.getOnlinePlayers().size() > 0 ) {
-            sendPluginMessage( pluginMessage, Bukkit.getOnlinePlayers().toArray( new Player[ Bukkit.getOnlinePlayers().size() ] )[0] );
+        Player player = this.getCarrier( pluginMessage );
+        if ( player != null && player.isOnline() ) {
+            sendPluginMessage( pluginMessage, player );
         } else {
             this.backLog.add( pluginMessage );
         }
     }
 
     /**
-     * Resolves the back log
+     * Picks the player to send a message without a recipient through.
+     * @param pluginMessage The message to send
+     * @return The player or null if no player is online
+     */
+    private Player getCarrier( PluginMessage pluginMessage ) {
+        Object coalescingKey = pluginMessage.getCoalescingKey();
+        return coalescingKey == null ? this.carriers.next() : this.carriers.get( coalescingKey );
+    }
+
+    /**
+     * Sends up to {@link #backLogRate} messages of the back log, the ones of
+     * the highest priority first. This is called once per tick, so the back
+     * log is sent over several ticks once a player is online. A message is
+     * only taken out once a player to send it through is found, otherwise it
+     * keeps its place and time to live until the next tick.
      */
     public void resolveBackLog() {
-        for ( PluginMessage pluginMessage : this.backLog ) {
-            sendPluginMessage( pluginMessage );
+        for ( int i = 0; i < this.backLogRate; i++ ) {
+            PluginMessage pluginMessage;
+            Player player;
+            synchronized ( this.backLog ) {
+                pluginMessage = this.backLog.peek();
+                if ( pluginMessage == null ) {
+                    return;
+                }
+
+                player = this.getCarrier( pluginMessage );
+                if ( player == null || !player.isOnline() ) {
+                    // Nobody is able to send it right now
+                    return;
+                }
+                this.backLog.poll();
+            }
+            sendPluginMessage( pluginMessage, player );
+        }
+    }
+
+    /**
+     * Asks the proxy of the player for type ids. This is called whenever
+     * a player joins, as plugin messages can only be sent through a player
+     * and the player may be connected through another proxy than the others.
+     * The request offers an unused epoch, which the proxy takes unless this
+     * server assigned it one before. Until the proxy answered, frames sent
+     * through the player use the hash code, as they do if all epochs are used.
+     * @param player The player to send the request through
+     */
+    public void negotiateTypeIds( Player player ) {
+        int epoch;
+        synchronized ( this.reservedEpochs ) {
+            epoch = this.reserveEpoch();
+            if ( epoch < 0 ) {
+                return;
+            }
+            this.pendingEpochs.put( player.getUniqueId(), epoch );
+        }
+
+        MessageRegistry messageRegistry = MessagingLib.getMessageRegistry();
+        sendPluginMessage( new TypeIdRequest( epoch, messageRegistry.getNegotiableTypeNames() ), player );
+    }
+
+    /**
+     * Installs the type ids the proxy assigned within the epoch of the
+     * response. Frames sent through the player use them from now on.
+     * The response is rejected if the epoch was not offered by this server
+     * or another proxy got it, which is told by the names of the epoch.
+     * @param typeIdResponse The response of the proxy
+     * @param player The player the response was sent through
+     */
+    public void installTypeIds( TypeIdResponse typeIdResponse, Player player ) {
+        int epoch = typeIdResponse.getEpoch();
+        synchronized ( this.reservedEpochs ) {
+            if ( this.pendingEpochs.remove( player.getUniqueId() ) == null ) {
+                // The player quit or the request was answered before
+                this.releaseEpochs();
+                return;
+            }
+
+            try {
+                if ( epoch < 1 || epoch > TypeIdTable.MAX_EPOCH || !this.reservedEpochs[ epoch ] ) {
+                    throw new IllegalArgumentException( "Epoch " + epoch + " was not offered by this server" );
+                }
+
+                MessagingLib.getMessageRegistry().installTypeIds( epoch, typeIdResponse.getTypeNames() );
+                this.confirmedEpochs.put( player.getUniqueId(), epoch );
+            } catch ( IllegalArgumentException | NullPointerException e ) {
+                e.printStackTrace();
+            }
+            this.releaseEpochs();
         }
+    }
 
-        this.backLog.clear();
+    /**
+     * Stops sending messages without a recipient through the player
+     * and forgets the epoch its proxy confirmed. The type ids of an epoch
+     * are forgotten once no player confirmed it anymore, as the proxy may
+     * be restarted until the next player joins through it.
+     * This is called on the main thread.
+     * @param player The player who quit
+     */
+    public void removeCarrier( Player player ) {
+        this.carriers.remove( player );
+        synchronized ( this.reservedEpochs ) {
+            this.pendingEpochs.remove( player.getUniqueId() );
+            this.confirmedEpochs.remove( player.getUniqueId() );
+            this.releaseEpochs();
+        }
+    }
+
+    /**
+     * Reserves the next epoch which is not reserved yet.
+     * Must be called while holding the lock of {@link #reservedEpochs}.
+     * @return The epoch or -1 if all epochs are reserved
+     */
+    private int reserveEpoch() {
+        for ( int i = 0; i < TypeIdTable.MAX_EPOCH; i++ ) {
+            int epoch = this.nextEpoch;
+            this.nextEpoch = epoch % TypeIdTable.MAX_EPOCH + 1;
+            if ( !this.reservedEpochs[ epoch ] ) {
+                this.reservedEpochs[ epoch ] = true;
+                return epoch;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Releases all epochs no player confirmed and forgets their type ids, unless
+     * a proxy is still asked for type ids and may answer with one of them.
+     * Must be called while holding the lock of {@link #reservedEpochs}.
+     */
+    private void releaseEpochs() {
+        if ( !this.pendingEpochs.isEmpty() ) {
+            return;
+        }
+
+        Set<Integer> confirmed = new HashSet<>( this.confirmedEpochs.values() );
+        for ( int epoch = 1; epoch <= TypeIdTable.MAX_EPOCH; epoch++ ) {
+            if ( this.reservedEpochs[ epoch ] && !confirmed.contains( epoch ) ) {
+                this.reservedEpochs[ epoch ] = false;
+                MessagingLib.getMessageRegistry().removeTypeIds( epoch );
+            }
+        }
     }
 }
\ No newline at end of file
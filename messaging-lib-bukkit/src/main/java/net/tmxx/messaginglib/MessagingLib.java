@@ -18,13 +18,22 @@
 package net.tmxx.messaginglib;
 
 import lombok.Getter;
+import net.tmxx.messaginglib.core.compression.CompressionDictionaries;
+import net.tmxx.messaginglib.core.compression.CompressionDictionary;
 import net.tmxx.messaginglib.core.message.MessageRegistry;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdRequest;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdResponse;
 import net.tmxx.messaginglib.listener.PlayerJoinListener;
+import net.tmxx.messaginglib.listener.PlayerQuitListener;
+import net.tmxx.messaginglib.listener.TypeIdListener;
 import net.tmxx.messaginglib.receiver.MessageReceiver;
 import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.plugin.messaging.Messenger;
 
+import java.io.File;
+
 /**
  * Created by tmxx on 14.01.2016
  *
@@ -41,6 +50,11 @@ public class MessagingLib extends JavaPlugin {
      */
     public static final String BUNGEE_CORD_CHANNEL = "BungeeCord";
 
+    /**
+     * The folder inside the data folder containing compression dictionaries.
+     */
+    public static final String DICTIONARY_FOLDER = "dictionaries";
+
     /**
      * The MessagingLib instance.
      */
@@ -70,9 +84,30 @@ public class MessagingLib extends JavaPlugin {
         messagingLib = this;
         messageRegistry = new MessageRegistry();
         messageManager = new BukkitMessageManager();
+        this.loadDictionaries();
         messageReceiver = new MessageReceiver();
 
+        messageRegistry.registerMessage( new TypeIdRequest() );
+        messageRegistry.registerMessage( new TypeIdResponse() );
+        messageManager.registerListener( new TypeIdListener(), this );
+
         getServer().getPluginManager().registerEvents( new PlayerJoinListener(), this );
+        getServer().getPluginManager().registerEvents( new PlayerQuitListener(), this );
+
+        // Players may already be online if the plugin was reloaded
+        for ( Player player : getServer().getOnlinePlayers() ) {
+            messageManager.getCarriers().add( player );
+            messageManager.negotiateTypeIds( player );
+        }
+
+        // Calls the sync listeners of messages dispatched off the main thread
+        getServer().getScheduler().runTaskTimer( this, messageManager::drainMainThreadQueue, 1L, 1L );
+
+        // Sends a part of the backlog if a player is online
+        getServer().getScheduler().runTaskTimer( this, messageManager::resolveBackLog, 1L, 1L );
+
+        // Sends the messages batched since the previous tick
+        getServer().getScheduler().runTaskTimer( this, messageManager::flushBatches, 1L, 1L );
 
         getLogger().info( "Starting to register plugin channels..." );
         this.registerChannels();
@@ -84,6 +119,10 @@ public class MessagingLib extends JavaPlugin {
      */
     @Override
     public void onDisable() {
+        messageManager.flushBatches();
+        if ( messageManager.getDispatchExecutor() != null ) {
+            messageManager.getDispatchExecutor().shutdown();
+        }
         super.onDisable();
     }
 
@@ -100,6 +139,19 @@ public class MessagingLib extends JavaPlugin {
 
         // Register the message lib channel
         messenger.registerOutgoingPluginChannel( this, MESSAGING_LIB_CHANNEL );
-        messenger.unregisterIncomingPluginChannel( this, MESSAGING_LIB_CHANNEL, messageReceiver );
+        messenger.registerIncomingPluginChannel( this, MESSAGING_LIB_CHANNEL, messageReceiver );
+    }
+
+    /**
+     * Registers all compression dictionaries found in the dictionaries
+     * folder and compresses outgoing frames using the newest one.
+     */
+    private void loadDictionaries() {
+        File directory = new File( getDataFolder(), DICTIONARY_FOLDER );
+        CompressionDictionary dictionary = CompressionDictionaries.registerAll( directory );
+        if ( dictionary != null ) {
+            messageManager.getFrameCodec().setCompressionDictionary( dictionary );
+            getLogger().info( "Using compression dictionary " + dictionary.getId() );
+        }
     }
 }
\ No newline at end of file
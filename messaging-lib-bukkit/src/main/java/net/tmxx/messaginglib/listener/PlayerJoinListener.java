@@ -28,7 +28,11 @@ import org.bukkit.event.player.PlayerJoinEvent;
 public class PlayerJoinListener implements Listener {
     @EventHandler
     public void onPlayerJoin( PlayerJoinEvent event ) {
-        // We can resolve the backlog now
-        MessagingLib.getMessageManager().resolveBackLog();
+        // Messages without a recipient may be sent through the player now,
+        // the backlog is resolved over the following ticks
+        MessagingLib.getMessageManager().getCarriers().add( event.getPlayer() );
+
+        // Ask the proxy of the player for type ids
+        MessagingLib.getMessageManager().negotiateTypeIds( event.getPlayer() );
     }
 }
@@ -0,0 +1,34 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.listener;
+
+import net.tmxx.messaginglib.MessagingLib;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Created by tmxx on 17.10.2026
+ */
+public class PlayerQuitListener implements Listener {
+    @EventHandler
+    public void onPlayerQuit( PlayerQuitEvent event ) {
+        // Messages without a recipient must not be sent through the player anymore
+        MessagingLib.getMessageManager().removeCarrier( event.getPlayer() );
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.listener;
+
+import net.tmxx.messaginglib.MessagingLib;
+import net.tmxx.messaginglib.core.listener.MessageHandler;
+import net.tmxx.messaginglib.core.listener.MessageListener;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdResponse;
+import org.bukkit.entity.Player;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Installs the type ids the proxy assigned.</p>
+ */
+public class TypeIdListener implements MessageListener {
+    /**
+     * Called when the proxy answers a type id request.
+     * @param typeIdResponse The response of the proxy
+     * @param player The player the response was sent through
+     */
+    @MessageHandler
+    public void onTypeIdResponse( TypeIdResponse typeIdResponse, Player player ) {
+        MessagingLib.getMessageManager().installTypeIds( typeIdResponse, player );
+    }
+}
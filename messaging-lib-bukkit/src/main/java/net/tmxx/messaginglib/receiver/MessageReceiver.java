@@ -21,9 +21,6 @@ import net.tmxx.messaginglib.MessagingLib;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.messaging.PluginMessageListener;
 
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
-
 /**
  * Created by tmxx on 14.01.2016
  */
@@ -36,7 +33,6 @@ public class MessageReceiver implements PluginMessageListener {
      */
     @Override
     public void onPluginMessageReceived( String channel, Player player, byte[] bytes ) {
-        DataInputStream inputStream = new DataInputStream( new ByteArrayInputStream( bytes ) );
         if ( channel.equals( MessagingLib.BUNGEE_CORD_CHANNEL ) ) {
             // A BungeeCord message arrived
             MessagingLib.getMessageManager().handleIncomingBungeeCordMessage( bytes, player );
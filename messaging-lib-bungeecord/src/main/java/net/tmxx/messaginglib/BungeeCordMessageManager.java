@@ -18,29 +18,53 @@
 package net.tmxx.messaginglib;
 
 import com.google.common.reflect.ClassPath;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import net.md_5.bungee.api.config.ServerInfo;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.api.connection.Server;
 import net.md_5.bungee.api.plugin.Plugin;
 import net.tmxx.messaginglib.core.MessageManager;
+import net.tmxx.messaginglib.core.dispatch.StripedExecutor;
 import net.tmxx.messaginglib.core.exception.InvalidListenerException;
 import net.tmxx.messaginglib.core.exception.PluginMessageEventException;
+import net.tmxx.messaginglib.core.frame.FrameAssembler;
+import net.tmxx.messaginglib.core.frame.FrameBatcher;
+import net.tmxx.messaginglib.core.frame.FrameCodec;
+import net.tmxx.messaginglib.core.frame.FrameHeader;
+import net.tmxx.messaginglib.core.frame.SharedFrames;
+import net.tmxx.messaginglib.core.io.MessageBuffer;
+import net.tmxx.messaginglib.core.io.MessageReader;
+import net.tmxx.messaginglib.core.listener.DispatchTable;
+import net.tmxx.messaginglib.core.listener.ListenerTable;
 import net.tmxx.messaginglib.core.listener.MessageHandler;
 import net.tmxx.messaginglib.core.listener.MessageListener;
 import net.tmxx.messaginglib.core.message.BungeeCordMessage;
+import net.tmxx.messaginglib.core.message.LazyPluginMessage;
+import net.tmxx.messaginglib.core.message.MessageFactory;
+import net.tmxx.messaginglib.core.message.MessageRegistry;
+import net.tmxx.messaginglib.core.message.TypeIdTable;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdRequest;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdResponse;
 import net.tmxx.messaginglib.core.message.PluginMessage;
 import net.tmxx.messaginglib.core.util.MethodContainer;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by tmxx on 16.01.2016
@@ -49,14 +73,78 @@ import java.util.Map;
  */
 public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedPlayer> {
     /**
-     * Contains all BungeeCord message listeners.
+     * The default time in milliseconds batched frames wait for further frames.
      */
-    private Map<String, List<MethodContainer<Plugin>>> bungeeCordMessageListeners = new HashMap<>();
+    public static final long DEFAULT_BATCH_LINGER = 5;
 
     /**
-     * Contains all plugin message listeners.
+     * The current snapshot of all registered listeners. It is replaced as a
+     * whole on every registration, so dispatching reads it without locking.
      */
-    private Map<Integer, List<MethodContainer<Plugin>>> pluginMessageListeners = new HashMap<>();
+    private volatile ListenerTable<Plugin> listenerTable = ListenerTable.empty();
+
+    /**
+     * Frames and compresses all messages sent on the messaging lib channel.
+     */
+    @Getter private final FrameCodec frameCodec = new FrameCodec();
+
+    /**
+     * Puts received fragments of large frames back together.
+     */
+    @Getter private final FrameAssembler frameAssembler = new FrameAssembler();
+
+    /**
+     * Packs the frames sent through a player within the {@link #batchLinger}
+     * into a single plugin message.
+     */
+    @Getter private final FrameBatcher<ProxiedPlayer> frameBatcher = new FrameBatcher<>( this.frameCodec,
+            ( proxiedPlayer, frame ) -> proxiedPlayer.sendData( MessagingLib.MESSAGING_LIB_CHANNEL, frame ) );
+
+    /**
+     * The time in milliseconds batched frames wait for further frames.
+     */
+    @Getter @Setter private volatile long batchLinger = DEFAULT_BATCH_LINGER;
+
+    /**
+     * The single thread sending the batches of all players once they waited
+     * for the {@link #batchLinger}. It is shut down when the plugin is disabled.
+     */
+    @Getter private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor( runnable -> {
+        Thread thread = new Thread( runnable, "MessagingLib Batch Flusher" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
+    /**
+     * The executor dispatching received messages or null to dispatch them on
+     * the thread they were received on. Messages are ordered by player
+     * or by server, see {@link #dispatchOrderedByServer}.
+     * The executor is shut down when the plugin is disabled.
+     */
+    @Getter @Setter private volatile StripedExecutor dispatchExecutor;
+
+    /**
+     * Whether or not the dispatch executor orders messages by the server the
+     * player is connected to instead of the player.
+     */
+    @Getter @Setter private volatile boolean dispatchOrderedByServer;
+
+    /**
+     * The names of all message types by the type id this proxy assigned to them.
+     */
+    private final List<String> assignedTypeNames = new ArrayList<>();
+
+    /**
+     * Contains the names of all message types this proxy assigned a type id to.
+     */
+    private final Set<String> assignedTypes = new HashSet<>();
+
+    /**
+     * The epoch every server assigned to this proxy and the amount of type ids
+     * the server knows by the name of the server. Changes are guarded by
+     * {@link #assignedTypeNames}.
+     */
+    private final Map<String, NegotiatedServer> negotiatedServers = new ConcurrentHashMap<>();
 
     /**
      * Registers the listener to the specified origin.
@@ -64,33 +152,24 @@ public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedP
      * @param origin The origin of the listener
      */
     @Override
-    public void registerListener( MessageListener messageListener, Plugin origin ) {
+    public synchronized void registerListener( MessageListener messageListener, Plugin origin ) {
+        ListenerTable<Plugin> listenerTable = this.listenerTable;
         for ( Method method : messageListener.getClass().getDeclaredMethods() ) {
             if ( method.isAnnotationPresent( MessageHandler.class ) ) {
                 if ( method.getParameterTypes().length == 2 ) {
-                    if ( PluginMessage.class.isAssignableFrom( method.getParameterTypes()[0] ) && ProxiedPlayer.class.isAssignableFrom( method.getParameterTypes()[1] ) ) {
-                        if ( BungeeCordMessage.class.isAssignableFrom( method.getParameterTypes()[0] ) ) {
+                    Class<?> messageType = LazyPluginMessage.getMessageType( method );
+                    if ( messageType != null && ProxiedPlayer.class.isAssignableFrom( method.getParameterTypes()[1] ) ) {
+                        if ( BungeeCordMessage.class.isAssignableFrom( messageType ) ) {
                             try {
-                                String id = ( ( BungeeCordMessage ) method.getParameterTypes()[0].getDeclaredConstructor().newInstance() ).getSubChannel();
-                                List<MethodContainer<Plugin>> methodContainers = this.bungeeCordMessageListeners.get( id );
-                                if ( methodContainers == null ) {
-                                    methodContainers = new ArrayList<>();
-                                }
-                                method.setAccessible( true );
-                                methodContainers.add( new MethodContainer<>( messageListener, method, origin ) );
-                                this.bungeeCordMessageListeners.put( id, methodContainers );
+                                String id = ( ( BungeeCordMessage ) messageType.getDeclaredConstructor().newInstance() ).getSubChannel();
+                                listenerTable = listenerTable.withBungeeCordMessageListener( id, new MethodContainer<>( messageListener, method, origin ) );
                             } catch ( InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e ) {
                                 e.printStackTrace();
                             }
                         } else {
-                            int id = method.getParameterTypes()[0].getName().hashCode();
-                            List<MethodContainer<Plugin>> methodContainers = this.pluginMessageListeners.get( id );
-                            if ( methodContainers == null ) {
-                                methodContainers = new ArrayList<>();
-                            }
-                            method.setAccessible( true );
-                            methodContainers.add( new MethodContainer<>( messageListener, method, origin ) );
-                            this.pluginMessageListeners.put( id, methodContainers );
+                            boolean lazy = LazyPluginMessage.class.equals( method.getParameterTypes()[0] );
+                            boolean retaining = method.getAnnotation( MessageHandler.class ).retainsMessage();
+                            listenerTable = listenerTable.withPluginMessageListener( new MethodContainer<>( messageListener, method, origin, lazy, retaining ) );
                         }
                     }
                 } else {
@@ -98,6 +177,8 @@ public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedP
                 }
             }
         }
+
+        this.listenerTable = listenerTable;
     }
 
     /**
@@ -126,30 +207,8 @@ public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedP
      * @param messageListener The message listener to unregister
      */
     @Override
-    public void unregisterListener( MessageListener messageListener ) {
-        // Unregister BungeeCord message listeners
-        for ( String key : this.bungeeCordMessageListeners.keySet() ) {
-            Iterator<MethodContainer<Plugin>> iterator = this.bungeeCordMessageListeners.get( key ).iterator();
-
-            while ( iterator.hasNext() ) {
-                MethodContainer methodContainer = iterator.next();
-                if ( methodContainer.getMessageListener().equals( messageListener ) ) {
-                    iterator.remove();
-                }
-            }
-        }
-
-        // Unregister plugin message listeners
-        for ( int key : this.pluginMessageListeners.keySet() ) {
-            Iterator<MethodContainer<Plugin>> iterator = this.pluginMessageListeners.get( key ).iterator();
-
-            while ( iterator.hasNext() ) {
-                MethodContainer methodContainer = iterator.next();
-                if ( methodContainer.getMessageListener().equals( messageListener ) ) {
-                    iterator.remove();
-                }
-            }
-        }
+    public synchronized void unregisterListener( MessageListener messageListener ) {
+        this.listenerTable = this.listenerTable.withoutListener( messageListener );
     }
 
     /**
@@ -157,30 +216,8 @@ public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedP
      * @param origin The origin to unregister all to it registered listeners
      */
     @Override
-    public void unregisterListeners( Plugin origin ) {
-        // Unregister BungeeCord message listeners
-        for ( String key : this.bungeeCordMessageListeners.keySet() ) {
-            Iterator<MethodContainer<Plugin>> iterator = this.bungeeCordMessageListeners.get( key ).iterator();
-
-            while ( iterator.hasNext() ) {
-                MethodContainer methodContainer = iterator.next();
-                if ( methodContainer.getOrigin().equals( origin ) ) {
-                    iterator.remove();
-                }
-            }
-        }
-
-        // Unregister plugin message listeners
-        for ( int key : this.pluginMessageListeners.keySet() ) {
-            Iterator<MethodContainer<Plugin>> iterator = this.pluginMessageListeners.get( key ).iterator();
-
-            while ( iterator.hasNext() ) {
-                MethodContainer methodContainer = iterator.next();
-                if ( methodContainer.getOrigin().equals( origin ) ) {
-                    iterator.remove();
-                }
-            }
-        }
+    public synchronized void unregisterListeners( Plugin origin ) {
+        this.listenerTable = this.listenerTable.withoutOrigin( origin );
     }
 
     /**
@@ -191,31 +228,115 @@ public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedP
     @Override
     public void handleIncomingMessage( byte[] data, ProxiedPlayer proxiedPlayer ) {
         try {
-            DataInputStream inputStream = new DataInputStream( new ByteArrayInputStream( data ) );
+            FrameHeader header = this.frameCodec.readHeader( data );
+            if ( header == null || this.frameCodec.isExpired( header ) ) {
+                // The frame is malformed, of an unknown version or too old
+                return;
+            }
+
+            if ( !header.isBatch() ) {
+                this.handleFrame( data, header, proxiedPlayer );
+                return;
+            }
+
+            MessageReader reader = this.frameCodec.openBody( data, header );
+            if ( reader == null ) {
+                return;
+            }
+
+            // The frames are handled in the order they were sent
+            byte[] frame;
+            while ( ( frame = FrameBatcher.readFrame( reader ) ) != null ) {
+                FrameHeader frameHeader = this.frameCodec.readHeader( frame );
+                if ( frameHeader != null && !frameHeader.isBatch() && !this.frameCodec.isExpired( frameHeader ) ) {
+                    this.handleFrame( frame, frameHeader, proxiedPlayer );
+                }
+            }
+        } catch ( Exception e ) {
+            e.printStackTrace();
+        }
+    }
 
-            int id = inputStream.readInt();
-            if ( !MessagingLib.getMessageRegistry().isPluginMessageRegistered( id ) ) {
+    /**
+     * Handles a single received frame which is not a batch.
+     * @param data The bytes of the frame
+     * @param header The header of the frame
+     * @param proxiedPlayer The player the frame was received through
+     */
+    private void handleFrame( byte[] data, FrameHeader header, ProxiedPlayer proxiedPlayer ) {
+        try {
+            MessageRegistry messageRegistry = MessagingLib.getMessageRegistry();
+            int typeId = header.getTypeId();
+            int id = messageRegistry.getTypeIndex( typeId, header.hasNegotiatedTypeId() );
+            if ( !messageRegistry.isPluginMessageRegisteredByIndex( id ) ) {
+                // The type is unknown, ambiguous or was negotiated with another proxy
                 return;
             }
 
-            PluginMessage pluginMessage = MessagingLib.getMessageRegistry().getPluginMessage( id ).getClass().getConstructor().newInstance();
+            DispatchTable<Plugin> dispatchTable = this.listenerTable.getDispatchTable( messageRegistry );
+            if ( !dispatchTable.isSubscribed( id ) ) {
+                // Nobody listens for this message, so we do not even decode it
+                return;
+            }
 
-            pluginMessage.read( inputStream );
+            if ( header.isFragment() ) {
+                data = this.frameAssembler.accept( proxiedPlayer.getUniqueId(), data, header );
+                if ( data == null ) {
+                    // We are still waiting for further fragments
+                    return;
+                }
 
-            if ( this.pluginMessageListeners.containsKey( id ) ) {
-                for ( MethodContainer methodContainer : this.pluginMessageListeners.get( id ) ) {
-                    try {
-                        methodContainer.getMethod().invoke( methodContainer.getMessageListener(), pluginMessage, proxiedPlayer );
-                    } catch ( Exception e ) {
-                        throw new PluginMessageEventException( "Error while performing a plugin message event", e );
-                    }
+                header = this.frameCodec.readHeader( data );
+                if ( header == null || header.isFragment() || header.getTypeId() != typeId || this.frameCodec.isExpired( header ) ) {
+                    return;
                 }
             }
+
+            MessageReader reader = this.frameCodec.openBody( data, header );
+            if ( reader == null ) {
+                // The body is malformed or compressed using an unknown codec
+                return;
+            }
+
+            LazyPluginMessage<PluginMessage> lazyPluginMessage = new LazyPluginMessage<>( messageRegistry.getMessageFactoryByIndex( id ), reader );
+            MethodContainer<Plugin>[] methodContainers = dispatchTable.getPluginMessageListeners( id );
+            boolean recyclable = dispatchTable.isRecyclable( id );
+            this.dispatch( proxiedPlayer, () -> this.dispatchPluginMessage( methodContainers, recyclable, lazyPluginMessage, proxiedPlayer ) );
         } catch ( Exception e ) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Passes a received plugin message to its listeners.
+     * @param methodContainers The listeners of the message
+     * @param recyclable Whether or not none of the listeners retains the message
+     * @param lazyPluginMessage The lazy view of the message
+     * @param proxiedPlayer The player the message was received through
+     * @throws PluginMessageEventException Thrown when a listener fails
+     */
+    private void dispatchPluginMessage( MethodContainer<Plugin>[] methodContainers, boolean recyclable,
+                                        LazyPluginMessage<PluginMessage> lazyPluginMessage, ProxiedPlayer proxiedPlayer ) {
+        for ( MethodContainer<Plugin> methodContainer : methodContainers ) {
+            Object message = methodContainer.isLazy() ? lazyPluginMessage : lazyPluginMessage.get();
+            if ( message == null ) {
+                // The message is malformed, we do not pass it to the listeners
+                return;
+            }
+
+            try {
+                methodContainer.invoke( message, proxiedPlayer );
+            } catch ( Throwable throwable ) {
+                throw new PluginMessageEventException( "Error while performing a plugin message event", throwable );
+            }
+        }
+
+        if ( recyclable ) {
+            // No listener kept a reference, so the message can be reused
+            lazyPluginMessage.recycle();
+        }
+    }
+
     /**
      * Handles an incoming BungeeCord message.
      * @param data The data of the incoming message
@@ -224,31 +345,82 @@ public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedP
     @Override
     public void handleIncomingBungeeCordMessage( byte[] data, ProxiedPlayer proxiedPlayer ) {
         try {
-            DataInputStream inputStream = new DataInputStream( new ByteArrayInputStream( data ) );
+            MessageReader reader = new MessageReader( data );
 
-            String id = inputStream.readUTF();
-            if ( !MessagingLib.getMessageRegistry().isBungeeCordMessageRegistered( id ) ) {
+            String id = reader.readUTF();
+            MessageFactory<? extends BungeeCordMessage> messageFactory = id == null ? null : MessagingLib.getMessageRegistry().getBungeeCordMessageFactory( id );
+            if ( messageFactory == null ) {
+                // Message is not registered
                 return;
             }
 
-            BungeeCordMessage bungeeCordMessage = MessagingLib.getMessageRegistry().getBungeeCordMessage( id ).getClass().getConstructor().newInstance();
+            BungeeCordMessage bungeeCordMessage = messageFactory.create();
 
-            bungeeCordMessage.read( inputStream );
+            bungeeCordMessage.read( reader );
 
-            if ( this.bungeeCordMessageListeners.containsKey( id ) ) {
-                for ( MethodContainer methodContainer : this.bungeeCordMessageListeners.get( id ) ) {
-                    try {
-                        methodContainer.getMethod().invoke( methodContainer.getMessageListener(), bungeeCordMessage, proxiedPlayer );
-                    } catch ( Exception e ) {
-                        throw new PluginMessageEventException( "Error while performing a bungeecord message event", e );
-                    }
-                }
+            MethodContainer<Plugin>[] methodContainers = this.listenerTable.getBungeeCordMessageListeners( id );
+            if ( methodContainers.length > 0 ) {
+                this.dispatch( proxiedPlayer, () -> this.dispatchBungeeCordMessage( methodContainers, bungeeCordMessage, proxiedPlayer ) );
             }
         } catch ( Exception e ) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Passes a received BungeeCord message to its listeners.
+     * @param methodContainers The listeners of the message
+     * @param bungeeCordMessage The message
+     * @param proxiedPlayer The player the message was received through
+     * @throws PluginMessageEventException Thrown when a listener fails
+     */
+    private void dispatchBungeeCordMessage( MethodContainer<Plugin>[] methodContainers, BungeeCordMessage bungeeCordMessage, ProxiedPlayer proxiedPlayer ) {
+        for ( MethodContainer<Plugin> methodContainer : methodContainers ) {
+            try {
+                methodContainer.invoke( bungeeCordMessage, proxiedPlayer );
+            } catch ( Throwable throwable ) {
+                throw new PluginMessageEventException( "Error while performing a bungeecord message event", throwable );
+            }
+        }
+    }
+
+    /**
+     * Runs the dispatch of a received message. Without a {@link #dispatchExecutor}
+     * this happens right away on the current thread, otherwise on the stripe of
+     * the player or the server the player is connected to.
+     * @param proxiedPlayer The player the message was received through
+     * @param task The dispatch
+     */
+    private void dispatch( ProxiedPlayer proxiedPlayer, Runnable task ) {
+        StripedExecutor dispatchExecutor = this.dispatchExecutor;
+        if ( dispatchExecutor == null ) {
+            task.run();
+            return;
+        }
+
+        dispatchExecutor.execute( this.getDispatchKey( proxiedPlayer ), () -> {
+            try {
+                task.run();
+            } catch ( Exception e ) {
+                e.printStackTrace();
+            }
+        } );
+    }
+
+    /**
+     * Gets the key the messages received through the specified player are ordered by.
+     * @param proxiedPlayer The player
+     * @return The name of the server if {@link #dispatchOrderedByServer} is set and the
+     * player is connected to a server, otherwise the uuid of the player
+     */
+    private Object getDispatchKey( ProxiedPlayer proxiedPlayer ) {
+        Server server = proxiedPlayer.getServer();
+        if ( this.dispatchOrderedByServer && server != null ) {
+            return server.getInfo().getName();
+        }
+        return proxiedPlayer.getUniqueId();
+    }
+
     /**
      * Sends a plugin message to the specified player.
      * @param pluginMessage The message to send
@@ -258,18 +430,98 @@ public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedP
     public void sendPluginMessage( PluginMessage pluginMessage, ProxiedPlayer proxiedPlayer ) {
         try {
             if ( proxiedPlayer != null ) {
-                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                DataOutputStream outputStream = new DataOutputStream( byteArrayOutputStream );
-                if ( BungeeCordMessage.class.isAssignableFrom( pluginMessage.getClass() ) ) {
-
-                    BungeeCordMessage bungeeCordMessage = (BungeeCordMessage) pluginMessage;
-                    outputStream.writeUTF( bungeeCordMessage.getSubChannel() );
-                    bungeeCordMessage.write( outputStream );
-                    proxiedPlayer.sendData( MessagingLib.BUNGEE_CORD_CHANNEL, byteArrayOutputStream.toByteArray() );
+                MessageBuffer buffer = MessageBuffer.acquire( pluginMessage.getSizeHint() );
+                try {
+                    if ( BungeeCordMessage.class.isAssignableFrom( pluginMessage.getClass() ) ) {
+
+                        BungeeCordMessage bungeeCordMessage = (BungeeCordMessage) pluginMessage;
+                        buffer.getDataOutputStream().writeUTF( bungeeCordMessage.getSubChannel() );
+                        bungeeCordMessage.write( buffer );
+                        // Messages sent before have to arrive first
+                        this.frameBatcher.flush( proxiedPlayer );
+                        proxiedPlayer.sendData( MessagingLib.BUNGEE_CORD_CHANNEL, buffer.toByteArray() );
+                    } else if ( pluginMessage.getCoalescingKey() != null ) {
+                        // Only the last message with this key is encoded when the batch is sent
+                        this.frameBatcher.add( proxiedPlayer, pluginMessage.getClass(), pluginMessage.getCoalescingKey(),
+                                () -> this.encodeFrames( pluginMessage, proxiedPlayer.getServer() ) );
+                    } else {
+                        pluginMessage.write( buffer );
+                        for ( byte[] frame : this.encodeFrames( pluginMessage, proxiedPlayer.getServer(), buffer ) ) {
+                            this.frameBatcher.add( proxiedPlayer, frame );
+                        }
+                    }
+                } finally {
+                    buffer.release();
+                }
+            }
+        } catch ( Exception e ) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sends a plugin message to all specified players. The message is
+     * encoded once and the same bytes are sent to every player.
+     * @param pluginMessage The message to send
+     * @param proxiedPlayers The players to send the message to
+     */
+    @Override
+    public void broadcast( PluginMessage pluginMessage, Collection<? extends ProxiedPlayer> proxiedPlayers ) {
+        try {
+            if ( BungeeCordMessage.class.isAssignableFrom( pluginMessage.getClass() ) ) {
+                byte[] data = this.encodeBungeeCordMessage( (BungeeCordMessage) pluginMessage );
+                for ( ProxiedPlayer proxiedPlayer : proxiedPlayers ) {
+                    if ( proxiedPlayer != null ) {
+                        this.frameBatcher.flush( proxiedPlayer );
+                        proxiedPlayer.sendData( MessagingLib.BUNGEE_CORD_CHANNEL, data );
+                    }
+                }
+                return;
+            }
+
+            SharedFrames sharedFrames = new SharedFrames( this.frameCodec, pluginMessage );
+            Object coalescingKey = pluginMessage.getCoalescingKey();
+            for ( ProxiedPlayer proxiedPlayer : proxiedPlayers ) {
+                if ( proxiedPlayer == null ) {
+                    continue;
+                }
+
+                if ( coalescingKey != null ) {
+                    // Encoded when the first batch containing it is sent
+                    this.frameBatcher.add( proxiedPlayer, pluginMessage.getClass(), coalescingKey,
+                            () -> sharedFrames.getFrames( this.getNegotiatedTypeId( pluginMessage, getServerInfo( proxiedPlayer ) ) ) );
                 } else {
-                    outputStream.writeInt( pluginMessage.getClass().getName().hashCode() );
-                    pluginMessage.write( outputStream );
-                    proxiedPlayer.sendData( MessagingLib.MESSAGING_LIB_CHANNEL, byteArrayOutputStream.toByteArray() );
+                    for ( byte[] frame : sharedFrames.getFrames( this.getNegotiatedTypeId( pluginMessage, getServerInfo( proxiedPlayer ) ) ) ) {
+                        this.frameBatcher.add( proxiedPlayer, frame );
+                    }
+                }
+            }
+        } catch ( Exception e ) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sends a plugin message to all specified servers. The message is encoded
+     * once and sent right away without waiting for further messages. Servers
+     * without players queue the message until a player connects.
+     * @param pluginMessage The message to send
+     * @param serverInfos The servers to send the message to
+     */
+    public void broadcastToServers( PluginMessage pluginMessage, Collection<? extends ServerInfo> serverInfos ) {
+        try {
+            if ( BungeeCordMessage.class.isAssignableFrom( pluginMessage.getClass() ) ) {
+                byte[] data = this.encodeBungeeCordMessage( (BungeeCordMessage) pluginMessage );
+                for ( ServerInfo serverInfo : serverInfos ) {
+                    serverInfo.sendData( MessagingLib.BUNGEE_CORD_CHANNEL, data );
+                }
+                return;
+            }
+
+            SharedFrames sharedFrames = new SharedFrames( this.frameCodec, pluginMessage );
+            for ( ServerInfo serverInfo : serverInfos ) {
+                for ( byte[] frame : sharedFrames.getFrames( this.getNegotiatedTypeId( pluginMessage, serverInfo ) ) ) {
+                    serverInfo.sendData( MessagingLib.MESSAGING_LIB_CHANNEL, frame );
                 }
             }
         } catch ( Exception e ) {
@@ -277,6 +529,79 @@ public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedP
         }
     }
 
+    /**
+     * Gets the server the player is connected to.
+     * @param proxiedPlayer The player
+     * @return The server or null if the player is not connected to one
+     */
+    private static ServerInfo getServerInfo( ProxiedPlayer proxiedPlayer ) {
+        Server server = proxiedPlayer.getServer();
+        return server == null ? null : server.getInfo();
+    }
+
+    /**
+     * Encodes a BungeeCord message including its sub channel.
+     * @param bungeeCordMessage The message to encode
+     * @return The bytes to send on the BungeeCord channel
+     * @throws IOException Thrown when an error occurs
+     */
+    private byte[] encodeBungeeCordMessage( BungeeCordMessage bungeeCordMessage ) throws IOException {
+        MessageBuffer buffer = MessageBuffer.acquire( bungeeCordMessage.getSizeHint() );
+        try {
+            buffer.getDataOutputStream().writeUTF( bungeeCordMessage.getSubChannel() );
+            bungeeCordMessage.write( buffer );
+            return buffer.toByteArray();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Encodes a plugin message into its frames.
+     * @param pluginMessage The message to encode
+     * @param server The server the message is sent to or null
+     * @return The bytes of the frames to send in order
+     */
+    private byte[][] encodeFrames( PluginMessage pluginMessage, Server server ) {
+        MessageBuffer buffer = MessageBuffer.acquire( pluginMessage.getSizeHint() );
+        try {
+            pluginMessage.write( buffer );
+            return this.encodeFrames( pluginMessage, server, buffer );
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Wraps a written plugin message into its frames.
+     * @param pluginMessage The message
+     * @param server The server the message is sent to or null
+     * @param buffer The buffer the message was written to
+     * @return The bytes of the frames to send in order
+     */
+    private byte[][] encodeFrames( PluginMessage pluginMessage, Server server, MessageBuffer buffer ) {
+        int typeId = this.getNegotiatedTypeId( pluginMessage, server == null ? null : server.getInfo() );
+        boolean negotiated = typeId >= 0;
+        if ( !negotiated ) {
+            typeId = pluginMessage.getClass().getName().hashCode();
+        }
+        return this.frameCodec.encodeFrames( typeId, negotiated, pluginMessage.getSchemaVersion(), buffer );
+    }
+
+    /**
+     * Sends the batch of a player once it waited for the {@link #batchLinger}.
+     * This is called whenever a batch is started. All batches share the
+     * {@link #flushScheduler}, the batch is sent right away once it is shut down.
+     * @param flush Sends the batch unless it was sent before
+     */
+    public void scheduleFlush( Runnable flush ) {
+        try {
+            this.flushScheduler.schedule( flush, this.batchLinger, TimeUnit.MILLISECONDS );
+        } catch ( RejectedExecutionException e ) {
+            flush.run();
+        }
+    }
+
     /**
      * !! THIS METHOD IS NOT SUPPORTED ON BUNGEECORD !!
      *
@@ -289,4 +614,133 @@ public class BungeeCordMessageManager implements MessageManager<Plugin, ProxiedP
     public void sendPluginMessage( PluginMessage pluginMessage ) {
         // THIS METHOD IS NOT SUPPORTED ON BUNGEECORD !!
     }
-}
+
+    /**
+     * Assigns type ids to all message types the server knows about and
+     * sends all type ids assigned so far back to the server. Types keep
+     * their id for the lifetime of this proxy. The type ids are sent within
+     * the epoch the server assigned to this proxy, which is the one offered
+     * by the request unless the server assigned one before.
+     * @param typeIdRequest The request of the server
+     * @param proxiedPlayer The player the request was sent through
+     */
+    public void assignTypeIds( TypeIdRequest typeIdRequest, ProxiedPlayer proxiedPlayer ) {
+        Server server = proxiedPlayer.getServer();
+        if ( server == null || typeIdRequest.getTypeNames() == null ) {
+            return;
+        }
+
+        String serverName = server.getInfo().getName();
+        TypeIdResponse typeIdResponse;
+        synchronized ( this.assignedTypeNames ) {
+            // Other players of the server may still use the epoch assigned before
+            NegotiatedServer negotiatedServer = this.negotiatedServers.get( serverName );
+            int epoch = negotiatedServer != null ? negotiatedServer.epoch : typeIdRequest.getEpoch();
+            if ( epoch < 1 || epoch > TypeIdTable.MAX_EPOCH ) {
+                return;
+            }
+
+            MessageRegistry messageRegistry = MessagingLib.getMessageRegistry();
+            List<String> typeNames = new ArrayList<>( typeIdRequest.getTypeNames() );
+            typeNames.addAll( messageRegistry.getNegotiableTypeNames() );
+            for ( String typeName : typeNames ) {
+                if ( typeName != null && TypeIdTable.isNegotiable( typeName )
+                        && this.assignedTypeNames.size() < TypeIdTable.MAX_TYPE_IDS && this.assignedTypes.add( typeName ) ) {
+                    this.assignedTypeNames.add( typeName );
+                }
+            }
+
+            typeIdResponse = new TypeIdResponse( epoch, new ArrayList<>( this.assignedTypeNames ) );
+            messageRegistry.installTypeIds( epoch, typeIdResponse.getTypeNames() );
+            if ( negotiatedServer == null ) {
+                // No type ids are sent to the server until it received the response
+                this.negotiatedServers.put( serverName, new NegotiatedServer( epoch, 0 ) );
+            }
+        }
+
+        // The response always uses the hash code, the server does not know the ids yet
+        MessageBuffer buffer = MessageBuffer.acquire( typeIdResponse.getSizeHint() );
+        try {
+            typeIdResponse.write( buffer );
+            for ( byte[] frame : this.frameCodec.encodeFrames( TypeIdResponse.class.getName().hashCode(), buffer ) ) {
+                server.sendData( MessagingLib.MESSAGING_LIB_CHANNEL, frame );
+            }
+        } finally {
+            buffer.release();
+        }
+
+        synchronized ( this.assignedTypeNames ) {
+            NegotiatedServer negotiatedServer = this.negotiatedServers.get( serverName );
+            if ( negotiatedServer != null && negotiatedServer.epoch == typeIdResponse.getEpoch()
+                    && negotiatedServer.typeIdCount < typeIdResponse.getTypeNames().size() ) {
+                this.negotiatedServers.put( serverName, new NegotiatedServer( typeIdResponse.getEpoch(), typeIdResponse.getTypeNames().size() ) );
+            }
+        }
+    }
+
+    /**
+     * Forgets the type ids a server received if the player was the last one on it.
+     * Plugin messages only reach a server through its players, so the server may
+     * have been restarted until the next one joins, which negotiates again.
+     * The type ids of the epoch are forgotten if no other server assigned it.
+     * @param serverInfo The server the player leaves
+     * @param proxiedPlayer The player leaving the server
+     */
+    public void leaveServer( ServerInfo serverInfo, ProxiedPlayer proxiedPlayer ) {
+        for ( ProxiedPlayer player : serverInfo.getPlayers() ) {
+            if ( !player.equals( proxiedPlayer ) ) {
+                // Somebody else is still on the server
+                return;
+            }
+        }
+
+        synchronized ( this.assignedTypeNames ) {
+            NegotiatedServer negotiatedServer = this.negotiatedServers.remove( serverInfo.getName() );
+            if ( negotiatedServer == null ) {
+                return;
+            }
+
+            for ( NegotiatedServer other : this.negotiatedServers.values() ) {
+                if ( other.epoch == negotiatedServer.epoch ) {
+                    return;
+                }
+            }
+            MessagingLib.getMessageRegistry().removeTypeIds( negotiatedServer.epoch );
+        }
+    }
+
+    /**
+     * Gets the type id to send the plugin message with. Type ids are only used if the
+     * server the message is sent to received them, otherwise the hash code is used.
+     * They are sent within the epoch the server assigned to this proxy.
+     * @param pluginMessage The plugin message to send
+     * @param serverInfo The server the message is sent to or null
+     * @return The negotiated type id or -1 if the server does not know it
+     */
+    private int getNegotiatedTypeId( PluginMessage pluginMessage, ServerInfo serverInfo ) {
+        NegotiatedServer negotiatedServer = serverInfo == null ? null : this.negotiatedServers.get( serverInfo.getName() );
+        if ( negotiatedServer == null ) {
+            return -1;
+        }
+
+        MessageRegistry messageRegistry = MessagingLib.getMessageRegistry();
+        int typeId = messageRegistry.getNegotiatedTypeId( messageRegistry.getTypeIndex( pluginMessage.getClass() ), negotiatedServer.epoch );
+        return typeId >= 0 && ( typeId & ( TypeIdTable.MAX_TYPE_IDS - 1 ) ) < negotiatedServer.typeIdCount ? typeId : -1;
+    }
+
+    /**
+     * The type ids a server received from this proxy.
+     */
+    @AllArgsConstructor
+    private static class NegotiatedServer {
+        /**
+         * The epoch the server assigned to this proxy.
+         */
+        private final int epoch;
+
+        /**
+         * The amount of type ids the server knows.
+         */
+        private final int typeIdCount;
+    }
+}
\ No newline at end of file
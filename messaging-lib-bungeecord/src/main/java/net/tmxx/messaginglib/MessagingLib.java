@@ -19,12 +19,20 @@ package net.tmxx.messaginglib;
 
 import lombok.Getter;
 import net.md_5.bungee.api.plugin.Plugin;
+import net.tmxx.messaginglib.core.compression.CompressionDictionaries;
+import net.tmxx.messaginglib.core.compression.CompressionDictionary;
 import net.tmxx.messaginglib.core.message.MessageRegistry;
 import net.tmxx.messaginglib.core.message.bungeecord.GetServersMessage;
 import net.tmxx.messaginglib.core.message.bungeecord.IPMessage;
 import net.tmxx.messaginglib.core.message.bungeecord.PlayerCountMessage;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdRequest;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdResponse;
+import net.tmxx.messaginglib.listener.ServerLeaveListener;
+import net.tmxx.messaginglib.listener.TypeIdListener;
 import net.tmxx.messaginglib.receiver.MessageReceiver;
 
+import java.io.File;
+
 /**
  * Created by tmxx on 16.01.2016
  *
@@ -41,6 +49,11 @@ public class MessagingLib extends Plugin {
      */
     public static final String BUNGEE_CORD_CHANNEL = "BungeeCord";
 
+    /**
+     * The folder inside the data folder containing compression dictionaries.
+     */
+    public static final String DICTIONARY_FOLDER = "dictionaries";
+
     /**
      * The instance of this library.
      */
@@ -70,13 +83,21 @@ public class MessagingLib extends Plugin {
         messagingLib = this;
         messageRegistry = new MessageRegistry();
         messageManager = new BungeeCordMessageManager();
+        this.loadDictionaries();
         messageReceiver = new MessageReceiver();
 
         messageRegistry.registerMessage( new IPMessage() );
         messageRegistry.registerMessage( new PlayerCountMessage() );
         messageRegistry.registerMessage( new GetServersMessage() );
+        messageRegistry.registerMessage( new TypeIdRequest() );
+        messageRegistry.registerMessage( new TypeIdResponse() );
+        messageManager.registerListener( new TypeIdListener(), this );
 
         getProxy().getPluginManager().registerListener( this, messageReceiver );
+        getProxy().getPluginManager().registerListener( this, new ServerLeaveListener() );
+
+        // Sends every batch once it waited long enough, unless it was full before
+        messageManager.getFrameBatcher().setLingerScheduler( ( proxiedPlayer, flush ) -> messageManager.scheduleFlush( flush ) );
 
         getLogger().info( "Starting to register plugin channels" );
         this.registerChannels();
@@ -88,6 +109,11 @@ public class MessagingLib extends Plugin {
      */
     @Override
     public void onDisable() {
+        messageManager.getFlushScheduler().shutdownNow();
+        messageManager.getFrameBatcher().flushAll();
+        if ( messageManager.getDispatchExecutor() != null ) {
+            messageManager.getDispatchExecutor().shutdown();
+        }
         super.onDisable();
     }
 
@@ -97,4 +123,17 @@ public class MessagingLib extends Plugin {
     private void registerChannels() {
         getProxy().registerChannel( MESSAGING_LIB_CHANNEL );
     }
-}
+
+    /**
+     * Registers all compression dictionaries found in the dictionaries
+     * folder and compresses outgoing frames using the newest one.
+     */
+    private void loadDictionaries() {
+        File directory = new File( getDataFolder(), DICTIONARY_FOLDER );
+        CompressionDictionary dictionary = CompressionDictionaries.registerAll( directory );
+        if ( dictionary != null ) {
+            messageManager.getFrameCodec().setCompressionDictionary( dictionary );
+            getLogger().info( "Using compression dictionary " + dictionary.getId() );
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.listener;
+
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.api.connection.Server;
+import net.md_5.bungee.api.event.PlayerDisconnectEvent;
+import net.md_5.bungee.api.event.ServerConnectedEvent;
+import net.md_5.bungee.api.plugin.Listener;
+import net.md_5.bungee.event.EventHandler;
+import net.tmxx.messaginglib.MessagingLib;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Tells the message manager whenever a player leaves a server,
+ * either by switching to another one or by disconnecting.</p>
+ */
+public class ServerLeaveListener implements Listener {
+    /**
+     * Called when a player connected to a server. The player
+     * is still connected to the previous server at this point.
+     * @param event The event
+     */
+    @EventHandler
+    public void onServerConnected( ServerConnectedEvent event ) {
+        this.leaveServer( event.getPlayer() );
+    }
+
+    /**
+     * Called when a player disconnects from the proxy.
+     * @param event The event
+     */
+    @EventHandler
+    public void onPlayerDisconnect( PlayerDisconnectEvent event ) {
+        this.leaveServer( event.getPlayer() );
+    }
+
+    /**
+     * Passes the server the player is currently connected to to the message manager.
+     * @param proxiedPlayer The player leaving the server
+     */
+    private void leaveServer( ProxiedPlayer proxiedPlayer ) {
+        Server server = proxiedPlayer.getServer();
+        if ( server != null ) {
+            MessagingLib.getMessageManager().leaveServer( server.getInfo(), proxiedPlayer );
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.listener;
+
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.tmxx.messaginglib.MessagingLib;
+import net.tmxx.messaginglib.core.listener.MessageHandler;
+import net.tmxx.messaginglib.core.listener.MessageListener;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdRequest;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Assigns type ids to the message types a server asks for.</p>
+ */
+public class TypeIdListener implements MessageListener {
+    /**
+     * Called when a server asks for type ids.
+     * @param typeIdRequest The request of the server
+     * @param proxiedPlayer The player the request was sent through
+     */
+    @MessageHandler
+    public void onTypeIdRequest( TypeIdRequest typeIdRequest, ProxiedPlayer proxiedPlayer ) {
+        MessagingLib.getMessageManager().assignTypeIds( typeIdRequest, proxiedPlayer );
+    }
+}
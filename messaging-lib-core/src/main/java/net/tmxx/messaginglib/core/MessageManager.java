@@ -20,6 +20,8 @@ package net.tmxx.messaginglib.core;
 import net.tmxx.messaginglib.core.listener.MessageListener;
 import net.tmxx.messaginglib.core.message.PluginMessage;
 
+import java.util.Collection;
+
 /**
  * Created by tmxx on 14.01.2016
  *
@@ -83,4 +85,12 @@ public interface MessageManager<O, P> {
      * @param pluginMessage The message to send
      */
     void sendPluginMessage( PluginMessage pluginMessage );
+
+    /**
+     * Sends a plugin message to all specified players. The message is
+     * encoded once and the same bytes are sent to every player.
+     * @param pluginMessage The message to send
+     * @param players The players to send the message to
+     */
+    void broadcast( PluginMessage pluginMessage, Collection<? extends P> players );
 }
\ No newline at end of file
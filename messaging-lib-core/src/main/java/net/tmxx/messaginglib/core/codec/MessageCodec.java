@@ -0,0 +1,66 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.codec;
+
+import net.tmxx.messaginglib.core.io.MessageBuffer;
+import net.tmxx.messaginglib.core.io.MessageReader;
+import net.tmxx.messaginglib.core.message.PluginMessage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Encodes and decodes the fields of a specific plugin message.
+ * Implementations are generated by the
+ * {@link net.tmxx.messaginglib.core.codec.processor.MessageCodecProcessor}
+ * for every message declaring {@link MessageField} fields.</p>
+ */
+public interface MessageCodec<T extends PluginMessage> {
+    /**
+     * Writes all fields of the message to the {@link java.io.DataOutputStream}.
+     * @param message The message to write
+     * @param outputStream The output stream to write the fields to
+     * @throws IOException Thrown when an error occurs
+     */
+    void write( T message, DataOutputStream outputStream ) throws IOException;
+
+    /**
+     * Writes all fields of the message to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * @param message The message to write
+     * @param buffer The buffer to write the fields to
+     */
+    void write( T message, MessageBuffer buffer );
+
+    /**
+     * Reads all fields of the message out of the {@link java.io.DataInputStream}.
+     * @param message The message to read the fields into
+     * @param inputStream The input stream to read the fields from
+     * @throws IOException Thrown when an error occurs
+     */
+    void read( T message, DataInputStream inputStream ) throws IOException;
+
+    /**
+     * Reads all fields of the message out of the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * @param message The message to read the fields into
+     * @param reader The reader to read the fields from
+     */
+    void read( T message, MessageReader reader );
+}
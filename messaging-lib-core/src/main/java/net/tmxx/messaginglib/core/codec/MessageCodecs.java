@@ -0,0 +1,202 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.codec;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import net.tmxx.messaginglib.core.io.MessageBuffer;
+import net.tmxx.messaginglib.core.io.MessageReader;
+import net.tmxx.messaginglib.core.message.PluginMessage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Resolves the generated {@link MessageCodec} of a plugin message class.
+ * The lookup happens only once per class, afterwards the codec is
+ * cached alongside the class itself so unloading a plugin does not
+ * leave its classes referenced from here.</p>
+ */
+@NoArgsConstructor( access = AccessLevel.PRIVATE )
+public final class MessageCodecs {
+    /**
+     * The suffix appended to the name of every generated codec.
+     */
+    public static final String CODEC_SUFFIX = "_MessageCodec";
+
+    /**
+     * Marker for classes without a generated codec.
+     */
+    private static final MessageCodec<PluginMessage> NONE = new MessageCodec<PluginMessage>() {
+        @Override
+        public void write( PluginMessage message, DataOutputStream outputStream ) {
+        }
+
+        @Override
+        public void write( PluginMessage message, MessageBuffer buffer ) {
+        }
+
+        @Override
+        public void read( PluginMessage message, DataInputStream inputStream ) {
+        }
+
+        @Override
+        public void read( PluginMessage message, MessageReader reader ) {
+        }
+    };
+
+    /**
+     * The codec cache keyed by the message class.
+     */
+    private static final ClassValue<MessageCodec<?>> CODECS = new ClassValue<MessageCodec<?>>() {
+        @Override
+        protected MessageCodec<?> computeValue( Class<?> type ) {
+            try {
+                Class<?> codecClass = Class.forName( getCodecName( type ), true, type.getClassLoader() );
+                return (MessageCodec<?>) codecClass.getConstructor().newInstance();
+            } catch ( ClassNotFoundException e ) {
+                // Subclasses not declaring fields on their own use the codec of their super class
+                Class<?> superClass = type.getSuperclass();
+                if ( superClass != null && PluginMessage.class.isAssignableFrom( superClass ) ) {
+                    return get( superClass );
+                }
+
+                // The message handles writing and reading on its own
+                return NONE;
+            } catch ( ReflectiveOperationException | ClassCastException e ) {
+                throw new IllegalStateException( "Could not instantiate the generated codec of " + type.getName(), e );
+            }
+        }
+    };
+
+    /**
+     * The codec used to write a message keyed by the message class. Classes
+     * overriding {@link PluginMessage#write(DataOutputStream)} get {@link #NONE},
+     * so their own implementation is not bypassed by an inherited codec.
+     */
+    private static final ClassValue<MessageCodec<?>> WRITE_CODECS = new ClassValue<MessageCodec<?>>() {
+        @Override
+        protected MessageCodec<?> computeValue( Class<?> type ) {
+            return overrides( type, "write", DataOutputStream.class ) ? NONE : CODECS.get( type );
+        }
+    };
+
+    /**
+     * The codec used to read a message keyed by the message class. Classes
+     * overriding {@link PluginMessage#read(DataInputStream)} get {@link #NONE}.
+     */
+    private static final ClassValue<MessageCodec<?>> READ_CODECS = new ClassValue<MessageCodec<?>>() {
+        @Override
+        protected MessageCodec<?> computeValue( Class<?> type ) {
+            return overrides( type, "read", DataInputStream.class ) ? NONE : CODECS.get( type );
+        }
+    };
+
+    /**
+     * Gets the generated codec of the specified message class.
+     * @param messageClass The class of the message
+     * @param <T> The type of the message
+     * @return The generated codec or null if the class has none
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T extends PluginMessage> MessageCodec<T> getCodec( Class<T> messageClass ) {
+        MessageCodec<?> codec = CODECS.get( messageClass );
+        return codec == NONE ? null : (MessageCodec<T>) codec;
+    }
+
+    /**
+     * Gets the generated codec to write the specified message class with.
+     * @param messageClass The class of the message
+     * @param <T> The type of the message
+     * @return The generated codec or null if the class has none or
+     * overrides {@link PluginMessage#write(DataOutputStream)}
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T extends PluginMessage> MessageCodec<T> getWriteCodec( Class<T> messageClass ) {
+        MessageCodec<?> codec = WRITE_CODECS.get( messageClass );
+        return codec == NONE ? null : (MessageCodec<T>) codec;
+    }
+
+    /**
+     * Gets the generated codec to read the specified message class with.
+     * @param messageClass The class of the message
+     * @param <T> The type of the message
+     * @return The generated codec or null if the class has none or
+     * overrides {@link PluginMessage#read(DataInputStream)}
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T extends PluginMessage> MessageCodec<T> getReadCodec( Class<T> messageClass ) {
+        MessageCodec<?> codec = READ_CODECS.get( messageClass );
+        return codec == NONE ? null : (MessageCodec<T>) codec;
+    }
+
+    /**
+     * Checks whether or not the specified message class can be written and read,
+     * either by its generated codec or by overriding
+     * {@link PluginMessage#write(DataOutputStream)} and {@link PluginMessage#read(DataInputStream)}.
+     * @param messageClass The class of the message
+     * @return Whether or not the message class can be written and read
+     */
+    public static boolean isSerializable( Class<? extends PluginMessage> messageClass ) {
+        return getCodec( messageClass ) != null || ( overrides( messageClass, "write", DataOutputStream.class )
+                && overrides( messageClass, "read", DataInputStream.class ) );
+    }
+
+    /**
+     * Checks whether or not the message class or one of its super classes
+     * below {@link PluginMessage} declares the specified method.
+     * @param messageClass The class of the message
+     * @param name The name of the method
+     * @param parameterType The only parameter of the method
+     * @return Whether or not the method is overridden
+     */
+    private static boolean overrides( Class<?> messageClass, String name, Class<?> parameterType ) {
+        for ( Class<?> type = messageClass; type != null && type != PluginMessage.class; type = type.getSuperclass() ) {
+            try {
+                type.getDeclaredMethod( name, parameterType );
+                return true;
+            } catch ( NoSuchMethodException e ) {
+                // Not declared by this class, look at its super class
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the fully qualified name of the codec generated for the specified class.
+     * Nested classes are flattened, so the codec of {@code a.Outer$Inner}
+     * is named {@code a.Outer_Inner_MessageCodec}.
+     * @param messageClass The class of the message
+     * @return The name of the generated codec
+     */
+    public static String getCodecName( Class<?> messageClass ) {
+        return getCodecName( messageClass.getName() );
+    }
+
+    /**
+     * Gets the fully qualified name of the codec generated for the specified binary class name.
+     * @param binaryName The binary name of the message class
+     * @return The name of the generated codec
+     */
+    public static String getCodecName( String binaryName ) {
+        int packageEnd = binaryName.lastIndexOf( '.' );
+        return binaryName.substring( 0, packageEnd + 1 ) + binaryName.substring( packageEnd + 1 ).replace( '$', '_' ) + CODEC_SUFFIX;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>This annotation marks fields of a {@link net.tmxx.messaginglib.core.message.PluginMessage}
+ * which should be transferred. The {@link net.tmxx.messaginglib.core.codec.processor.MessageCodecProcessor}
+ * generates a {@link MessageCodec} for every class declaring such fields at compile time,
+ * so the message does not have to implement write and read on its own.
+ * Fields are written in the order they are declared, fields of super classes first.</p>
+ *
+ * <p>Messages using the tagged encoding, see
+ * {@link net.tmxx.messaginglib.core.message.PluginMessage#isTagged()}, identify
+ * every field by its tag instead of its position.</p>
+ */
+@Retention( RetentionPolicy.CLASS )
+@Target( ElementType.FIELD )
+public @interface MessageField {
+    /**
+     * The tag identifying the field in the tagged encoding. Tags must be
+     * positive and unique within a message and must never be reused for a
+     * different field once released. By default the position of the field,
+     * starting at one, is used, which only stays compatible as long as new
+     * fields are added after all existing ones.
+     * @return The tag or 0 to use the position of the field
+     */
+    int tag() default 0;
+}
@@ -0,0 +1,82 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.codec;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import net.tmxx.messaginglib.core.io.MessageReader;
+import net.tmxx.messaginglib.core.io.VarInts;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Helpers used by generated codecs for the tagged encoding. Every field
+ * is written as its tag and its length in bytes, both as variable length
+ * integers, followed by the value. The fields are terminated by the tag
+ * {@link #END}:</p>
+ * <pre>
+ * tag      variable length integer
+ * length   variable length integer
+ * value    length bytes
+ * ...
+ * 0
+ * </pre>
+ *
+ * <p>Receivers skip fields with unknown tags by their length, while fields
+ * they know but did not receive keep the value the message was constructed
+ * or reset with. That way fields can be added and removed without breaking
+ * receivers running an older or newer version of the message.</p>
+ */
+@NoArgsConstructor( access = AccessLevel.PRIVATE )
+public final class TaggedFields {
+    /**
+     * The tag terminating the fields of a message.
+     */
+    public static final int END = 0;
+
+    /**
+     * Reads the length of a field and returns a reader limited to its value.
+     * @param reader The reader positioned behind the tag of the field
+     * @return The reader of the value or null if the reader is exhausted
+     */
+    public static MessageReader readField( MessageReader reader ) {
+        int length = reader.readVarInt();
+        return reader.isTruncated() ? null : reader.readSlice( length );
+    }
+
+    /**
+     * Reads the length and the value of a field.
+     * @param inputStream The input stream positioned behind the tag of the field
+     * @return The reader of the value
+     * @throws IOException Thrown when an error occurs, the length is invalid or the stream is exhausted
+     */
+    public static MessageReader readField( DataInputStream inputStream ) throws IOException {
+        int length = VarInts.readVarInt( inputStream );
+        if ( length < 0 || length > MessageReader.MAX_LENGTH ) {
+            throw new EOFException( "Invalid field length " + length );
+        }
+
+        byte[] value = new byte[ length ];
+        inputStream.readFully( value );
+        return new MessageReader( value );
+    }
+}
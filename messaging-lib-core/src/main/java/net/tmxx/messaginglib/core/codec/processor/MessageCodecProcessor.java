@@ -0,0 +1,329 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.codec.processor;
+
+import net.tmxx.messaginglib.core.codec.MessageCodecs;
+import net.tmxx.messaginglib.core.codec.MessageField;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Generates a {@link net.tmxx.messaginglib.core.codec.MessageCodec} for every
+ * plugin message declaring {@link MessageField} fields. The generated codec
+ * writes and reads the fields in a straight line using the helper methods of
+ * {@link net.tmxx.messaginglib.core.message.PluginMessage}, so no reflection
+ * is involved when a message is transferred.</p>
+ *
+ * <p>Fields which are not private are accessed directly. Private fields
+ * are accessed using their getter and setter, as generated by lombok.</p>
+ *
+ * <p>Every codec supports the tagged encoding as well, which is used by
+ * messages returning true for
+ * {@link net.tmxx.messaginglib.core.message.PluginMessage#isTagged()}.
+ * Fields are then read using a switch over their tags, see
+ * {@link net.tmxx.messaginglib.core.codec.TaggedFields}.</p>
+ */
+@SupportedAnnotationTypes( "net.tmxx.messaginglib.core.codec.MessageField" )
+public class MessageCodecProcessor extends AbstractProcessor {
+    /**
+     * The name of the base class of all messages.
+     */
+    private static final String PLUGIN_MESSAGE = "net.tmxx.messaginglib.core.message.PluginMessage";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment ) {
+        Set<TypeElement> messageTypes = new LinkedHashSet<>();
+        for ( Element element : roundEnvironment.getElementsAnnotatedWith( MessageField.class ) ) {
+            if ( element.getKind() == ElementKind.FIELD ) {
+                messageTypes.add( (TypeElement) element.getEnclosingElement() );
+            }
+        }
+
+        for ( TypeElement messageType : messageTypes ) {
+            try {
+                generateCodec( messageType );
+            } catch ( IOException e ) {
+                error( messageType, "Could not write the message codec: " + e.getMessage() );
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates the codec of the specified message type.
+     * @param messageType The message type to generate the codec for
+     * @throws IOException Thrown when the source file could not be written
+     */
+    private void generateCodec( TypeElement messageType ) throws IOException {
+        TypeElement pluginMessage = this.processingEnv.getElementUtils().getTypeElement( PLUGIN_MESSAGE );
+        if ( !this.processingEnv.getTypeUtils().isSubtype( this.processingEnv.getTypeUtils().erasure( messageType.asType() ), pluginMessage.asType() ) ) {
+            error( messageType, "@MessageField may only be used in subclasses of " + PLUGIN_MESSAGE );
+            return;
+        }
+        if ( messageType.getModifiers().contains( Modifier.PRIVATE ) ) {
+            error( messageType, "Messages using @MessageField must not be private" );
+            return;
+        }
+
+        PackageElement packageElement = this.processingEnv.getElementUtils().getPackageOf( messageType );
+        String packageName = packageElement.getQualifiedName().toString();
+        String codecName = MessageCodecs.getCodecName( this.processingEnv.getElementUtils().getBinaryName( messageType ).toString() );
+        String codecSimpleName = codecName.substring( codecName.lastIndexOf( '.' ) + 1 );
+        String messageName = messageType.getQualifiedName().toString();
+
+        List<VariableElement> fields = collectFields( messageType );
+        StringBuilder write = new StringBuilder();
+        StringBuilder read = new StringBuilder();
+        StringBuilder taggedWrite = new StringBuilder();
+        StringBuilder taggedRead = new StringBuilder();
+        Set<Integer> tags = new HashSet<>();
+        for ( int i = 0; i < fields.size(); i++ ) {
+            VariableElement field = fields.get( i );
+            String helper = getHelperSuffix( field.asType() );
+            if ( helper == null ) {
+                error( field, "Unsupported @MessageField type " + field.asType() );
+                return;
+            }
+            if ( field.getModifiers().contains( Modifier.FINAL ) || field.getModifiers().contains( Modifier.STATIC ) ) {
+                error( field, "@MessageField fields must neither be final nor static" );
+                return;
+            }
+
+            String name = field.getSimpleName().toString();
+            boolean direct = !field.getModifiers().contains( Modifier.PRIVATE )
+                    && this.processingEnv.getElementUtils().getPackageOf( field ).equals( packageElement );
+            String capitalized = Character.toUpperCase( name.charAt( 0 ) ) + name.substring( 1 );
+            String getter = direct ? "message." + name
+                    : "message." + ( field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get" ) + capitalized + "()";
+
+            int tag = field.getAnnotation( MessageField.class ).tag();
+            if ( tag == 0 ) {
+                tag = i + 1;
+            }
+            if ( tag < 0 || !tags.add( tag ) ) {
+                error( field, "@MessageField tags must be positive and unique, " + tag + " is not" );
+                return;
+            }
+
+            String readStatement = direct
+                    ? "message." + name + " = message.read" + helper + "( inputStream );\n"
+                    : "message.set" + capitalized + "( message.read" + helper + "( inputStream ) );\n";
+            write.append( "        message.write" ).append( helper ).append( "( outputStream, " ).append( getter ).append( " );\n" );
+            read.append( "        " ).append( readStatement );
+
+            taggedWrite.append( "            buffer.writeVarInt( " ).append( tag ).append( " );\n" );
+            taggedWrite.append( "            start = buffer.reserveLength();\n" );
+            taggedWrite.append( "            message.write" ).append( helper ).append( "( buffer, " ).append( getter ).append( " );\n" );
+            taggedWrite.append( "            buffer.writeReservedLength( start );\n" );
+            taggedRead.append( "            case " ).append( tag ).append( ":\n" );
+            taggedRead.append( "                " ).append( readStatement.replace( "( inputStream )", "( reader )" ) );
+            taggedRead.append( "                break;\n" );
+        }
+
+        JavaFileObject sourceFile = this.processingEnv.getFiler().createSourceFile( codecName, messageType );
+        try ( Writer writer = sourceFile.openWriter() ) {
+            if ( !packageName.isEmpty() ) {
+                writer.write( "package " + packageName + ";\n\n" );
+            }
+            writer.write( "/**\n * Generated by the MessageCodecProcessor. Do not edit.\n */\n" );
+            writer.write( "public final class " + codecSimpleName + " implements net.tmxx.messaginglib.core.codec.MessageCodec<" + messageName + "> {\n" );
+            writer.write( "    @Override\n" );
+            writer.write( "    public void write( " + messageName + " message, java.io.DataOutputStream outputStream ) throws java.io.IOException {\n" );
+            writer.write( "        if ( message.isTagged() ) {\n" );
+            writer.write( "            net.tmxx.messaginglib.core.io.MessageBuffer buffer = net.tmxx.messaginglib.core.io.MessageBuffer.acquire( message.getSizeHint() );\n" );
+            writer.write( "            try {\n" );
+            writer.write( "                write( message, buffer );\n" );
+            writer.write( "                outputStream.write( buffer.getData(), 0, buffer.size() );\n" );
+            writer.write( "            } finally {\n" );
+            writer.write( "                buffer.release();\n" );
+            writer.write( "            }\n" );
+            writer.write( "            return;\n" );
+            writer.write( "        }\n" );
+            writer.write( write.toString() );
+            writer.write( "    }\n\n" );
+            writer.write( "    @Override\n" );
+            writer.write( "    public void write( " + messageName + " message, net.tmxx.messaginglib.core.io.MessageBuffer buffer ) {\n" );
+            writer.write( "        if ( message.isTagged() ) {\n" );
+            writer.write( "            int start;\n" );
+            writer.write( taggedWrite.toString() );
+            writer.write( "            buffer.writeVarInt( net.tmxx.messaginglib.core.codec.TaggedFields.END );\n" );
+            writer.write( "            return;\n" );
+            writer.write( "        }\n" );
+            writer.write( write.toString().replace( "( outputStream, ", "( buffer, " ) );
+            writer.write( "    }\n\n" );
+            writer.write( "    @Override\n" );
+            writer.write( "    public void read( " + messageName + " message, java.io.DataInputStream inputStream ) throws java.io.IOException {\n" );
+            writer.write( "        if ( message.isTagged() ) {\n" );
+            writer.write( "            for ( int tag = net.tmxx.messaginglib.core.io.VarInts.readVarInt( inputStream ); tag != net.tmxx.messaginglib.core.codec.TaggedFields.END; tag = net.tmxx.messaginglib.core.io.VarInts.readVarInt( inputStream ) ) {\n" );
+            writer.write( "                net.tmxx.messaginglib.core.io.MessageReader field = net.tmxx.messaginglib.core.codec.TaggedFields.readField( inputStream );\n" );
+            writer.write( "                readField( message, tag, field );\n" );
+            writer.write( "                if ( field.isTruncated() ) {\n" );
+            writer.write( "                    throw new java.io.EOFException( \"Field \" + tag + \" is truncated\" );\n" );
+            writer.write( "                }\n" );
+            writer.write( "            }\n" );
+            writer.write( "            return;\n" );
+            writer.write( "        }\n" );
+            writer.write( read.toString() );
+            writer.write( "    }\n\n" );
+            writer.write( "    @Override\n" );
+            writer.write( "    public void read( " + messageName + " message, net.tmxx.messaginglib.core.io.MessageReader reader ) {\n" );
+            writer.write( "        if ( message.isTagged() ) {\n" );
+            writer.write( "            for ( int tag = reader.readVarInt(); tag != net.tmxx.messaginglib.core.codec.TaggedFields.END; tag = reader.readVarInt() ) {\n" );
+            writer.write( "                net.tmxx.messaginglib.core.io.MessageReader field = net.tmxx.messaginglib.core.codec.TaggedFields.readField( reader );\n" );
+            writer.write( "                if ( field == null ) {\n" );
+            writer.write( "                    return;\n" );
+            writer.write( "                }\n" );
+            writer.write( "                readField( message, tag, field );\n" );
+            writer.write( "                if ( field.isTruncated() ) {\n" );
+            writer.write( "                    reader.markTruncated();\n" );
+            writer.write( "                    return;\n" );
+            writer.write( "                }\n" );
+            writer.write( "            }\n" );
+            writer.write( "            return;\n" );
+            writer.write( "        }\n" );
+            writer.write( read.toString().replace( "( inputStream )", "( reader )" ) );
+            writer.write( "    }\n\n" );
+            writer.write( "    private static void readField( " + messageName + " message, int tag, net.tmxx.messaginglib.core.io.MessageReader reader ) {\n" );
+            writer.write( "        switch ( tag ) {\n" );
+            writer.write( taggedRead.toString() );
+            writer.write( "            default:\n" );
+            writer.write( "                // Fields of newer versions of the message are skipped\n" );
+            writer.write( "                break;\n" );
+            writer.write( "        }\n" );
+            writer.write( "    }\n" );
+            writer.write( "}\n" );
+        }
+    }
+
+    /**
+     * Collects all annotated fields of the message type and its super classes.
+     * Fields of super classes come first, all fields keep their declaration order.
+     * @param messageType The message type to collect the fields of
+     * @return The annotated fields
+     */
+    private List<VariableElement> collectFields( TypeElement messageType ) {
+        List<VariableElement> fields = new ArrayList<>();
+        TypeMirror superClass = messageType.getSuperclass();
+        if ( superClass.getKind() == TypeKind.DECLARED ) {
+            fields.addAll( collectFields( (TypeElement) ( (DeclaredType) superClass ).asElement() ) );
+        }
+        for ( Element element : messageType.getEnclosedElements() ) {
+            if ( element.getKind() == ElementKind.FIELD && element.getAnnotation( MessageField.class ) != null ) {
+                fields.add( (VariableElement) element );
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Gets the suffix of the {@link net.tmxx.messaginglib.core.message.PluginMessage}
+     * helper methods handling the specified type. Arrays of primitives and uuids
+     * as well as string lists and maps of strings to integers are handled by
+     * the bulk helpers, e.g. IntArray for int[].
+     * @param type The type of the field
+     * @return The suffix, e.g. Int for writeInt and readInt, or null if the type is not supported
+     */
+    private String getHelperSuffix( TypeMirror type ) {
+        switch ( type.getKind() ) {
+            case INT:
+                return "Int";
+            case BOOLEAN:
+                return "Boolean";
+            case BYTE:
+                return "Byte";
+            case SHORT:
+                return "Short";
+            case LONG:
+                return "Long";
+            case FLOAT:
+                return "Float";
+            case DOUBLE:
+                return "Double";
+            case DECLARED:
+                String name = ( (TypeElement) ( (DeclaredType) type ).asElement() ).getQualifiedName().toString();
+                if ( name.equals( "java.lang.String" ) ) {
+                    return "String";
+                } else if ( name.equals( "java.util.UUID" ) ) {
+                    return "UUID";
+                } else if ( type.toString().equals( "java.util.List<java.lang.String>" ) ) {
+                    return "StringList";
+                } else if ( type.toString().replace( " ", "" ).equals( "java.util.Map<java.lang.String,java.lang.Integer>" ) ) {
+                    return "StringIntMap";
+                }
+                return null;
+            case ARRAY:
+                TypeMirror componentType = ( (ArrayType) type ).getComponentType();
+                switch ( componentType.getKind() ) {
+                    case BYTE:
+                        return "ByteArray";
+                    case INT:
+                        return "IntArray";
+                    case LONG:
+                        return "LongArray";
+                    case FLOAT:
+                        return "FloatArray";
+                    case DOUBLE:
+                        return "DoubleArray";
+                    case DECLARED:
+                        return componentType.toString().equals( "java.util.UUID" ) ? "UUIDArray" : null;
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reports an error on the specified element.
+     * @param element The element causing the error
+     * @param message The error message
+     */
+    private void error( Element element, String message ) {
+        this.processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR, message, element );
+    }
+}
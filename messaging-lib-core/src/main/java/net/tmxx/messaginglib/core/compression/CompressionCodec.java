@@ -0,0 +1,99 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.compression;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>This interface has to be implemented by algorithms compressing
+ * the payload of a frame. Every codec has a unique id which is written
+ * into the frame, so the receiving side knows how to decompress it.
+ * Codecs have to be registered at {@link CompressionCodecs} on both sides.</p>
+ */
+public interface CompressionCodec {
+    /**
+     * Gets the unique id of this codec written into every frame it compressed.
+     * @return The id between 1 and 255
+     */
+    int getId();
+
+    /**
+     * Compresses the source bytes into the destination array.
+     * @param source The array containing the bytes to compress
+     * @param offset The index of the first byte to compress
+     * @param length The amount of bytes to compress
+     * @param destination The array to write the compressed bytes to
+     * @param destinationOffset The index to start writing at
+     * @param maxLength The maximum amount of bytes to write
+     * @return The amount of bytes written or -1 if the compressed bytes do not fit
+     */
+    int compress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int maxLength );
+
+    /**
+     * Decompresses the source bytes into the destination array.
+     * @param source The array containing the compressed bytes
+     * @param offset The index of the first compressed byte
+     * @param length The amount of compressed bytes
+     * @param destination The array to write the decompressed bytes to
+     * @param destinationOffset The index to start writing at
+     * @param decompressedLength The exact amount of bytes the data decompresses to
+     * @return Whether or not the data was decompressed successfully
+     */
+    boolean decompress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int decompressedLength );
+
+    /**
+     * Checks whether or not this codec is able to use a preset dictionary.
+     * @return Whether or not dictionaries are supported
+     */
+    default boolean supportsDictionary() {
+        return false;
+    }
+
+    /**
+     * Compresses the source bytes using a preset dictionary. Codecs
+     * not supporting dictionaries are not able to compress the bytes.
+     * @param source The array containing the bytes to compress
+     * @param offset The index of the first byte to compress
+     * @param length The amount of bytes to compress
+     * @param destination The array to write the compressed bytes to
+     * @param destinationOffset The index to start writing at
+     * @param maxLength The maximum amount of bytes to write
+     * @param dictionary The dictionary to use
+     * @return The amount of bytes written or -1 if the compressed bytes do not fit
+     */
+    default int compress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int maxLength,
+                          CompressionDictionary dictionary ) {
+        return -1;
+    }
+
+    /**
+     * Decompresses the source bytes using the preset dictionary they were compressed with.
+     * @param source The array containing the compressed bytes
+     * @param offset The index of the first compressed byte
+     * @param length The amount of compressed bytes
+     * @param destination The array to write the decompressed bytes to
+     * @param destinationOffset The index to start writing at
+     * @param decompressedLength The exact amount of bytes the data decompresses to
+     * @param dictionary The dictionary to use
+     * @return Whether or not the data was decompressed successfully
+     */
+    default boolean decompress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int decompressedLength,
+                                CompressionDictionary dictionary ) {
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.compression;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Holds all compression codecs known to this side by their id.
+ * Deflate and LZ4 are always available.</p>
+ */
+@NoArgsConstructor( access = AccessLevel.PRIVATE )
+public final class CompressionCodecs {
+    /**
+     * The deflate codec using the default compression level.
+     */
+    public static final CompressionCodec DEFLATE = new DeflateCompressionCodec();
+
+    /**
+     * The LZ4 codec.
+     */
+    public static final CompressionCodec LZ4 = new Lz4CompressionCodec();
+
+    /**
+     * All registered codecs indexed by their id.
+     */
+    private static final CompressionCodec[] CODECS = new CompressionCodec[ 256 ];
+
+    static {
+        register( DEFLATE );
+        register( LZ4 );
+    }
+
+    /**
+     * Registers a codec. A codec registered before with the same id is replaced.
+     * @param compressionCodec The codec to register
+     */
+    public static void register( CompressionCodec compressionCodec ) {
+        int id = compressionCodec.getId();
+        if ( id <= 0 || id >= CODECS.length ) {
+            throw new IllegalArgumentException( "Compression codec id " + id + " is not between 1 and 255" );
+        }
+
+        synchronized ( CODECS ) {
+            CODECS[ id ] = compressionCodec;
+        }
+    }
+
+    /**
+     * Gets the codec registered for the specified id.
+     * @param id The id of the codec
+     * @return The codec or null if there is none
+     */
+    public static CompressionCodec get( int id ) {
+        return id > 0 && id < CODECS.length ? CODECS[ id ] : null;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.compression;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Holds all compression dictionaries known to this side by their id.
+ * Frames referring to a dictionary which is not registered are dropped.</p>
+ */
+@NoArgsConstructor( access = AccessLevel.PRIVATE )
+public final class CompressionDictionaries {
+    /**
+     * The file extension of dictionary files.
+     */
+    public static final String FILE_EXTENSION = ".dict";
+
+    /**
+     * All registered dictionaries indexed by their id.
+     */
+    private static final CompressionDictionary[] DICTIONARIES = new CompressionDictionary[ 256 ];
+
+    /**
+     * Registers a dictionary. A dictionary registered before with the same id is replaced.
+     * @param dictionary The dictionary to register
+     */
+    public static void register( CompressionDictionary dictionary ) {
+        synchronized ( DICTIONARIES ) {
+            DICTIONARIES[ dictionary.getId() ] = dictionary;
+        }
+    }
+
+    /**
+     * Gets the dictionary registered for the specified id.
+     * @param id The id of the dictionary
+     * @return The dictionary or null if there is none
+     */
+    public static CompressionDictionary get( int id ) {
+        return id > 0 && id < DICTIONARIES.length ? DICTIONARIES[ id ] : null;
+    }
+
+    /**
+     * Registers all dictionary files found in the directory.
+     * Files which can not be read are skipped.
+     * @param directory The directory containing the dictionary files
+     * @return The registered dictionary with the highest id or null if there is none
+     */
+    public static CompressionDictionary registerAll( File directory ) {
+        File[] files = directory.listFiles();
+        if ( files == null ) {
+            return null;
+        }
+
+        CompressionDictionary latest = null;
+        for ( File file : files ) {
+            if ( !file.isFile() || !file.getName().endsWith( FILE_EXTENSION ) ) {
+                continue;
+            }
+
+            try {
+                CompressionDictionary dictionary = CompressionDictionary.load( file );
+                register( dictionary );
+                if ( latest == null || dictionary.getId() > latest.getId() ) {
+                    latest = dictionary;
+                }
+            } catch ( IOException e ) {
+                e.printStackTrace();
+            }
+        }
+        return latest;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.compression;
+
+import lombok.Getter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Adler32;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>A preset dictionary shared by both sides of a connection. Small
+ * messages hardly compress on their own, but they do compress well when
+ * the compressor may refer to typical message content from the dictionary.
+ * The id of a dictionary is written into every frame compressed with it,
+ * so it doubles as the version of the dictionary: a retrained dictionary
+ * has to get a new id and be deployed on both sides before it is used.</p>
+ *
+ * @see DictionaryTrainer
+ */
+public class CompressionDictionary {
+    /**
+     * The magic number every dictionary file starts with.
+     */
+    private static final int MAGIC = 0x4D4C4443;
+
+    /**
+     * The maximum size of a dictionary, which is the deflate window size.
+     */
+    public static final int MAX_SIZE = 32 * 1024;
+
+    /**
+     * The id of this dictionary between 1 and 255.
+     */
+    @Getter private final int id;
+
+    /**
+     * The content of this dictionary.
+     */
+    @Getter private final byte[] data;
+
+    /**
+     * The Adler-32 checksum of the content.
+     */
+    @Getter private final int checksum;
+
+    /**
+     * Constructs a new dictionary.
+     * @param id The id between 1 and 255
+     * @param data The content of the dictionary
+     */
+    public CompressionDictionary( int id, byte[] data ) {
+        if ( id <= 0 || id > 255 ) {
+            throw new IllegalArgumentException( "Dictionary id " + id + " is not between 1 and 255" );
+        }
+        if ( data.length > MAX_SIZE ) {
+            throw new IllegalArgumentException( "Dictionary exceeds " + MAX_SIZE + " bytes" );
+        }
+
+        this.id = id;
+        this.data = data;
+
+        Adler32 adler32 = new Adler32();
+        adler32.update( data, 0, data.length );
+        this.checksum = (int) adler32.getValue();
+    }
+
+    /**
+     * Writes this dictionary to the output stream.
+     * @param outputStream The output stream to write to
+     * @throws IOException Thrown when an error occurs
+     */
+    public void save( OutputStream outputStream ) throws IOException {
+        DataOutputStream dataOutputStream = new DataOutputStream( outputStream );
+        dataOutputStream.writeInt( MAGIC );
+        dataOutputStream.writeByte( this.id );
+        dataOutputStream.writeInt( this.data.length );
+        dataOutputStream.write( this.data );
+        dataOutputStream.writeInt( this.checksum );
+        dataOutputStream.flush();
+    }
+
+    /**
+     * Writes this dictionary to the file.
+     * @param file The file to write to
+     * @throws IOException Thrown when an error occurs
+     */
+    public void save( File file ) throws IOException {
+        try ( OutputStream outputStream = new FileOutputStream( file ) ) {
+            save( outputStream );
+        }
+    }
+
+    /**
+     * Reads a dictionary from the input stream.
+     * @param inputStream The input stream to read from
+     * @return The dictionary
+     * @throws IOException Thrown when an error occurs or the data is no valid dictionary
+     */
+    public static CompressionDictionary load( InputStream inputStream ) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream( inputStream );
+        if ( dataInputStream.readInt() != MAGIC ) {
+            throw new IOException( "Not a compression dictionary" );
+        }
+
+        int id = dataInputStream.readUnsignedByte();
+        int length = dataInputStream.readInt();
+        if ( id == 0 || length < 0 || length > MAX_SIZE ) {
+            throw new IOException( "Invalid compression dictionary header" );
+        }
+
+        byte[] data = new byte[ length ];
+        dataInputStream.readFully( data );
+
+        CompressionDictionary dictionary = new CompressionDictionary( id, data );
+        if ( dictionary.getChecksum() != dataInputStream.readInt() ) {
+            throw new IOException( "Compression dictionary " + id + " is corrupted" );
+        }
+        return dictionary;
+    }
+
+    /**
+     * Reads a dictionary from the file.
+     * @param file The file to read from
+     * @return The dictionary
+     * @throws IOException Thrown when an error occurs or the file is no valid dictionary
+     */
+    public static CompressionDictionary load( File file ) throws IOException {
+        try ( InputStream inputStream = new FileInputStream( file ) ) {
+            return load( inputStream );
+        }
+    }
+}
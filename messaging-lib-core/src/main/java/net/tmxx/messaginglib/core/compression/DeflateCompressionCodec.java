@@ -0,0 +1,136 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.compression;
+
+import lombok.Getter;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Compresses frames using raw deflate without zlib header and checksum.
+ * Every thread reuses its own {@link java.util.zip.Deflater} and
+ * {@link java.util.zip.Inflater}, as creating them is expensive.
+ * Preset dictionaries are supported.</p>
+ */
+public class DeflateCompressionCodec implements CompressionCodec {
+    /**
+     * The id of this codec.
+     */
+    public static final int ID = 1;
+
+    /**
+     * The compression level.
+     */
+    @Getter private final int level;
+
+    /**
+     * The deflater of every thread.
+     */
+    private final ThreadLocal<Deflater> deflater = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater( DeflateCompressionCodec.this.level, true );
+        }
+    };
+
+    /**
+     * The inflater of every thread.
+     */
+    private final ThreadLocal<Inflater> inflater = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater( true );
+        }
+    };
+
+    /**
+     * Constructs a new codec using the default compression level.
+     */
+    public DeflateCompressionCodec() {
+        this( Deflater.DEFAULT_COMPRESSION );
+    }
+
+    /**
+     * Constructs a new codec.
+     * @param level The compression level between 0 and 9
+     */
+    public DeflateCompressionCodec( int level ) {
+        this.level = level;
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int compress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int maxLength ) {
+        return compress( source, offset, length, destination, destinationOffset, maxLength, null );
+    }
+
+    @Override
+    public boolean decompress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int decompressedLength ) {
+        return decompress( source, offset, length, destination, destinationOffset, decompressedLength, null );
+    }
+
+    @Override
+    public boolean supportsDictionary() {
+        return true;
+    }
+
+    @Override
+    public int compress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int maxLength,
+                         CompressionDictionary dictionary ) {
+        Deflater deflater = this.deflater.get();
+        try {
+            if ( dictionary != null ) {
+                // Resetting the deflater drops the dictionary, so it is set for every frame
+                deflater.setDictionary( dictionary.getData() );
+            }
+            deflater.setInput( source, offset, length );
+            deflater.finish();
+            int written = deflater.deflate( destination, destinationOffset, maxLength );
+            return deflater.finished() ? written : -1;
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    @Override
+    public boolean decompress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int decompressedLength,
+                               CompressionDictionary dictionary ) {
+        Inflater inflater = this.inflater.get();
+        try {
+            if ( dictionary != null ) {
+                // Raw inflaters never ask for the dictionary, it has to be set up front
+                inflater.setDictionary( dictionary.getData() );
+            }
+            inflater.setInput( source, offset, length );
+            int written = inflater.inflate( destination, destinationOffset, decompressedLength );
+            return written == decompressedLength && inflater.finished();
+        } catch ( DataFormatException | IllegalArgumentException e ) {
+            return false;
+        } finally {
+            inflater.reset();
+        }
+    }
+}
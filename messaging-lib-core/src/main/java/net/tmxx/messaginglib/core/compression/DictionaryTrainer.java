@@ -0,0 +1,293 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.compression;
+
+import lombok.Getter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Builds a {@link CompressionDictionary} from captured frame payloads.
+ * Samples are either recorded at runtime by setting the trainer as sample
+ * recorder of a {@link net.tmxx.messaginglib.core.frame.FrameCodec} or
+ * loaded from sample files written by {@link #saveSamples(File)}.</p>
+ *
+ * <p>The trainer counts in how many samples every eight byte sequence
+ * occurs. Runs of sequences shared by several samples become dictionary
+ * segments, the most valuable ones are placed at the end of the dictionary
+ * where deflate reaches them with the shortest distances.</p>
+ *
+ * <p>It can be run as tool as well:
+ * {@code java -cp messaging-lib-core.jar net.tmxx.messaginglib.core.compression.DictionaryTrainer <id> <output> <sample files...>}</p>
+ */
+public class DictionaryTrainer {
+    /**
+     * The default amount of sample bytes kept.
+     */
+    public static final int DEFAULT_MAX_SAMPLE_BYTES = 1024 * 1024;
+
+    /**
+     * The default size of trained dictionaries.
+     */
+    public static final int DEFAULT_DICTIONARY_SIZE = 4096;
+
+    /**
+     * The length of the sequences counted.
+     */
+    private static final int SEQUENCE_LENGTH = 8;
+
+    /**
+     * The maximum length of a single segment.
+     */
+    private static final int MAX_SEGMENT_LENGTH = 256;
+
+    /**
+     * The amount of sample bytes kept, further samples are ignored.
+     */
+    @Getter private final int maxSampleBytes;
+
+    /**
+     * All collected samples.
+     */
+    private final List<byte[]> samples = new ArrayList<>();
+
+    /**
+     * The amount of collected sample bytes.
+     */
+    @Getter private int sampleBytes;
+
+    /**
+     * Constructs a new trainer keeping the default amount of sample bytes.
+     */
+    public DictionaryTrainer() {
+        this( DEFAULT_MAX_SAMPLE_BYTES );
+    }
+
+    /**
+     * Constructs a new trainer.
+     * @param maxSampleBytes The amount of sample bytes kept
+     */
+    public DictionaryTrainer( int maxSampleBytes ) {
+        this.maxSampleBytes = maxSampleBytes;
+    }
+
+    /**
+     * Adds a sample. Samples exceeding the sample limit are ignored.
+     * @param data The array containing the sample
+     * @param offset The index of the first byte of the sample
+     * @param length The length of the sample
+     * @return Whether or not the sample was added
+     */
+    public synchronized boolean addSample( byte[] data, int offset, int length ) {
+        if ( length > this.maxSampleBytes - this.sampleBytes ) {
+            return false;
+        }
+
+        byte[] sample = new byte[ length ];
+        System.arraycopy( data, offset, sample, 0, length );
+        this.samples.add( sample );
+        this.sampleBytes += length;
+        return true;
+    }
+
+    /**
+     * Gets the amount of collected samples.
+     * @return The amount of samples
+     */
+    public synchronized int getSampleCount() {
+        return this.samples.size();
+    }
+
+    /**
+     * Writes all collected samples to the file.
+     * @param file The file to write to
+     * @throws IOException Thrown when an error occurs
+     */
+    public synchronized void saveSamples( File file ) throws IOException {
+        try ( DataOutputStream dataOutputStream = new DataOutputStream( new FileOutputStream( file ) ) ) {
+            for ( byte[] sample : this.samples ) {
+                dataOutputStream.writeInt( sample.length );
+                dataOutputStream.write( sample );
+            }
+        }
+    }
+
+    /**
+     * Adds all samples stored in the file.
+     * @param file The file written by {@link #saveSamples(File)}
+     * @throws IOException Thrown when an error occurs
+     */
+    public void loadSamples( File file ) throws IOException {
+        try ( DataInputStream dataInputStream = new DataInputStream( new FileInputStream( file ) ) ) {
+            while ( true ) {
+                int length;
+                try {
+                    length = dataInputStream.readInt();
+                } catch ( EOFException e ) {
+                    return;
+                }
+                if ( length < 0 ) {
+                    throw new IOException( "Invalid sample length " + length );
+                }
+
+                byte[] sample = new byte[ length ];
+                dataInputStream.readFully( sample );
+                addSample( sample, 0, length );
+            }
+        }
+    }
+
+    /**
+     * Trains a dictionary from the collected samples.
+     * @param id The id of the new dictionary
+     * @param maxSize The maximum size of the dictionary
+     * @return The dictionary
+     */
+    public synchronized CompressionDictionary train( int id, int maxSize ) {
+        maxSize = Math.min( maxSize, CompressionDictionary.MAX_SIZE );
+
+        // Count in how many samples every sequence occurs
+        Map<Long, int[]> sequences = new HashMap<>();
+        for ( int i = 0; i < this.samples.size(); i++ ) {
+            byte[] sample = this.samples.get( i );
+            for ( int position = 0; position + SEQUENCE_LENGTH <= sample.length; position++ ) {
+                long sequence = getSequence( sample, position );
+                int[] counter = sequences.get( sequence );
+                if ( counter == null ) {
+                    sequences.put( sequence, new int[]{ 1, i } );
+                } else if ( counter[ 1 ] != i ) {
+                    counter[ 0 ]++;
+                    counter[ 1 ] = i;
+                }
+            }
+        }
+
+        // Runs of shared sequences become segments scored by the bytes they save
+        Map<String, Long> segments = new HashMap<>();
+        for ( byte[] sample : this.samples ) {
+            int start = -1;
+            long score = 0;
+            for ( int position = 0; position + SEQUENCE_LENGTH <= sample.length + 1; position++ ) {
+                int count = position + SEQUENCE_LENGTH <= sample.length ? sequences.get( getSequence( sample, position ) )[ 0 ] : 0;
+                boolean shared = count > 1 && ( start < 0 || position + SEQUENCE_LENGTH - start <= MAX_SEGMENT_LENGTH );
+                if ( shared ) {
+                    if ( start < 0 ) {
+                        start = position;
+                    }
+                    score += count;
+                } else if ( start >= 0 ) {
+                    String segment = new String( sample, start, position - 1 + SEQUENCE_LENGTH - start, StandardCharsets.ISO_8859_1 );
+                    Long previous = segments.get( segment );
+                    if ( previous == null || previous < score ) {
+                        segments.put( segment, score );
+                    }
+
+                    start = count > 1 ? position : -1;
+                    score = count > 1 ? count : 0;
+                }
+            }
+        }
+
+        List<Map.Entry<String, Long>> ranking = new ArrayList<>( segments.entrySet() );
+        ranking.sort( ( first, second ) -> Long.compare( second.getValue(), first.getValue() ) );
+
+        // Pick the best segments mostly containing sequences not covered yet, the best one ends up at the end
+        List<String> chosen = new ArrayList<>();
+        Set<Long> covered = new HashSet<>();
+        int size = 0;
+        for ( Map.Entry<String, Long> entry : ranking ) {
+            String segment = entry.getKey();
+            if ( size + segment.length() > maxSize ) {
+                continue;
+            }
+
+            byte[] bytes = segment.getBytes( StandardCharsets.ISO_8859_1 );
+            int total = bytes.length - SEQUENCE_LENGTH + 1;
+            int uncovered = 0;
+            for ( int position = 0; position < total; position++ ) {
+                if ( !covered.contains( getSequence( bytes, position ) ) ) {
+                    uncovered++;
+                }
+            }
+            if ( uncovered * 2 < total ) {
+                continue;
+            }
+
+            for ( int position = 0; position < total; position++ ) {
+                covered.add( getSequence( bytes, position ) );
+            }
+            chosen.add( segment );
+            size += segment.length();
+        }
+
+        StringBuilder dictionary = new StringBuilder( size );
+        for ( int i = chosen.size() - 1; i >= 0; i-- ) {
+            dictionary.append( chosen.get( i ) );
+        }
+        return new CompressionDictionary( id, dictionary.toString().getBytes( StandardCharsets.ISO_8859_1 ) );
+    }
+
+    /**
+     * Gets the sequence starting at the specified position.
+     * @return The eight bytes as long
+     */
+    private static long getSequence( byte[] data, int position ) {
+        long sequence = 0;
+        for ( int i = 0; i < SEQUENCE_LENGTH; i++ ) {
+            sequence = sequence << 8 | data[ position + i ] & 0xFF;
+        }
+        return sequence;
+    }
+
+    /**
+     * Trains a dictionary from sample files and writes it to a file.
+     * @param args The id of the dictionary, the output file and the sample files
+     * @throws IOException Thrown when an error occurs
+     */
+    public static void main( String[] args ) throws IOException {
+        if ( args.length < 3 ) {
+            System.out.println( "Usage: DictionaryTrainer <id> <output> <sample files...>" );
+            return;
+        }
+
+        DictionaryTrainer trainer = new DictionaryTrainer( Integer.MAX_VALUE );
+        for ( int i = 2; i < args.length; i++ ) {
+            trainer.loadSamples( new File( args[ i ] ) );
+        }
+
+        CompressionDictionary dictionary = trainer.train( Integer.parseInt( args[ 0 ] ), DEFAULT_DICTIONARY_SIZE );
+        dictionary.save( new File( args[ 1 ] ) );
+        System.out.println( "Trained dictionary " + dictionary.getId() + " with " + dictionary.getData().length
+                + " bytes from " + trainer.getSampleCount() + " samples" );
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.compression;
+
+import java.util.Arrays;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>A pure Java implementation of the LZ4 block format. It compresses
+ * worse than deflate but is a lot faster, which makes it a good fit for
+ * frames sent every tick. The compressor is a simple greedy one using a
+ * small hash table of four byte sequences.</p>
+ */
+public class Lz4CompressionCodec implements CompressionCodec {
+    /**
+     * The id of this codec.
+     */
+    public static final int ID = 2;
+
+    /**
+     * The minimum length of a match.
+     */
+    private static final int MIN_MATCH = 4;
+
+    /**
+     * The last bytes of a block are always literals.
+     */
+    private static final int LAST_LITERALS = 5;
+
+    /**
+     * A match must not start within the last bytes of a block.
+     */
+    private static final int MATCH_FIND_LIMIT = 12;
+
+    /**
+     * The maximum distance of a match.
+     */
+    private static final int MAX_DISTANCE = 65535;
+
+    /**
+     * The amount of bits used for the hash table index.
+     */
+    private static final int HASH_BITS = 12;
+
+    /**
+     * The hash table of every thread. It stores the position of
+     * a sequence plus one, so zero marks an empty slot.
+     */
+    private static final ThreadLocal<int[]> HASH_TABLE = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[ 1 << HASH_BITS ];
+        }
+    };
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int compress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int maxLength ) {
+        int end = offset + length;
+        int destinationEnd = destinationOffset + maxLength;
+        int output = destinationOffset;
+        int anchor = offset;
+
+        if ( length >= MATCH_FIND_LIMIT + 1 ) {
+            int[] table = HASH_TABLE.get();
+            Arrays.fill( table, 0 );
+
+            int matchLimit = end - LAST_LITERALS;
+            int findLimit = end - MATCH_FIND_LIMIT;
+            int input = offset;
+            while ( input < findLimit ) {
+                int sequence = readInt( source, input );
+                int hash = ( sequence * -1640531535 ) >>> ( 32 - HASH_BITS );
+                int reference = table[ hash ] - 1;
+                table[ hash ] = input + 1;
+
+                if ( reference < offset || input - reference > MAX_DISTANCE || readInt( source, reference ) != sequence ) {
+                    input++;
+                    continue;
+                }
+
+                int matchLength = MIN_MATCH;
+                while ( input + matchLength < matchLimit && source[ reference + matchLength ] == source[ input + matchLength ] ) {
+                    matchLength++;
+                }
+
+                output = writeSequence( source, anchor, input - anchor, input - reference, matchLength, destination, output, destinationEnd );
+                if ( output < 0 ) {
+                    return -1;
+                }
+
+                input += matchLength;
+                anchor = input;
+            }
+        }
+
+        output = writeSequence( source, anchor, end - anchor, 0, 0, destination, output, destinationEnd );
+        return output < 0 ? -1 : output - destinationOffset;
+    }
+
+    /**
+     * Writes a sequence of literals followed by a match. A match length
+     * of zero only writes the literals, which ends the block.
+     * @return The new output index or -1 if the destination is too small
+     */
+    private static int writeSequence( byte[] source, int literalOffset, int literalLength, int matchOffset, int matchLength,
+                                      byte[] destination, int output, int destinationEnd ) {
+        int matchToken = matchLength == 0 ? 0 : matchLength - MIN_MATCH;
+        if ( output + 1 + literalLength / 255 + 1 + literalLength + ( matchLength == 0 ? 0 : 2 + matchToken / 255 + 1 ) > destinationEnd ) {
+            return -1;
+        }
+
+        int token = output++;
+        destination[ token ] = (byte) ( Math.min( literalLength, 15 ) << 4 | Math.min( matchToken, 15 ) );
+        output = writeLength( literalLength, destination, output );
+        System.arraycopy( source, literalOffset, destination, output, literalLength );
+        output += literalLength;
+
+        if ( matchLength != 0 ) {
+            destination[ output++ ] = (byte) matchOffset;
+            destination[ output++ ] = (byte) ( matchOffset >>> 8 );
+            output = writeLength( matchToken, destination, output );
+        }
+        return output;
+    }
+
+    /**
+     * Writes the extension bytes of a length not fitting into the token.
+     * @return The new output index
+     */
+    private static int writeLength( int length, byte[] destination, int output ) {
+        if ( length >= 15 ) {
+            length -= 15;
+            while ( length >= 255 ) {
+                destination[ output++ ] = (byte) 255;
+                length -= 255;
+            }
+            destination[ output++ ] = (byte) length;
+        }
+        return output;
+    }
+
+    @Override
+    public boolean decompress( byte[] source, int offset, int length, byte[] destination, int destinationOffset, int decompressedLength ) {
+        int input = offset;
+        int end = offset + length;
+        int output = destinationOffset;
+        int destinationEnd = destinationOffset + decompressedLength;
+
+        while ( input < end ) {
+            int token = source[ input++ ] & 0xFF;
+
+            int literalLength = token >>> 4;
+            if ( literalLength == 15 ) {
+                int current;
+                do {
+                    if ( input >= end ) {
+                        return false;
+                    }
+                    current = source[ input++ ] & 0xFF;
+                    literalLength += current;
+                } while ( current == 255 );
+            }
+            if ( literalLength > end - input || literalLength > destinationEnd - output ) {
+                return false;
+            }
+            System.arraycopy( source, input, destination, output, literalLength );
+            input += literalLength;
+            output += literalLength;
+
+            if ( input == end ) {
+                // The last sequence only contains literals
+                break;
+            }
+
+            if ( end - input < 2 ) {
+                return false;
+            }
+            int matchOffset = source[ input ] & 0xFF | ( source[ input + 1 ] & 0xFF ) << 8;
+            input += 2;
+            if ( matchOffset == 0 || matchOffset > output - destinationOffset ) {
+                return false;
+            }
+
+            int matchLength = token & 0x0F;
+            if ( matchLength == 15 ) {
+                int current;
+                do {
+                    if ( input >= end ) {
+                        return false;
+                    }
+                    current = source[ input++ ] & 0xFF;
+                    matchLength += current;
+                } while ( current == 255 );
+            }
+            matchLength += MIN_MATCH;
+            if ( matchLength > destinationEnd - output ) {
+                return false;
+            }
+
+            // Matches may overlap with the output, so we copy byte by byte
+            for ( int reference = output - matchOffset, matchEnd = output + matchLength; output < matchEnd; ) {
+                destination[ output++ ] = destination[ reference++ ];
+            }
+        }
+        return output == destinationEnd;
+    }
+
+    /**
+     * Reads four bytes as integer.
+     * @return The integer
+     */
+    private static int readInt( byte[] data, int index ) {
+        return ( data[ index ] & 0xFF ) | ( data[ index + 1 ] & 0xFF ) << 8 | ( data[ index + 2 ] & 0xFF ) << 16 | ( data[ index + 3 ] & 0xFF ) << 24;
+    }
+}
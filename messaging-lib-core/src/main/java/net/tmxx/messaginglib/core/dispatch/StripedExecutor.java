@@ -0,0 +1,123 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.dispatch;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Runs tasks on a fixed amount of single threaded stripes. Tasks are
+ * assigned to a stripe by their key, e.g. the uuid of the player a message
+ * was received through, so tasks of the same key run one after another in
+ * submission order while tasks of different keys run in parallel.</p>
+ *
+ * <p>The queues of the stripes are unbounded, a slow task only delays
+ * the keys sharing its stripe.</p>
+ */
+public class StripedExecutor {
+    /**
+     * The single threaded executors of the stripes.
+     */
+    private final ExecutorService[] stripes;
+
+    /**
+     * Constructs a new executor having a stripe per available processor.
+     */
+    public StripedExecutor() {
+        this( Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Constructs a new executor.
+     * @param stripeCount The amount of stripes
+     * @throws IllegalArgumentException Thrown when the amount of stripes is not positive
+     */
+    public StripedExecutor( int stripeCount ) {
+        if ( stripeCount <= 0 ) {
+            throw new IllegalArgumentException( "Stripe count has to be positive: " + stripeCount );
+        }
+
+        this.stripes = new ExecutorService[ stripeCount ];
+        for ( int i = 0; i < stripeCount; i++ ) {
+            String name = "MessagingLib Dispatcher #" + i;
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread( runnable, name );
+                thread.setDaemon( true );
+                return thread;
+            };
+            this.stripes[ i ] = Executors.newSingleThreadExecutor( threadFactory );
+        }
+    }
+
+    /**
+     * Runs the task on the stripe of the specified key.
+     * @param key The key the task is ordered by or null
+     * @param task The task
+     * @throws java.util.concurrent.RejectedExecutionException Thrown when the executor is shut down
+     */
+    public void execute( Object key, Runnable task ) {
+        this.stripes[ getStripe( key ) ].execute( task );
+    }
+
+    /**
+     * Gets the amount of stripes.
+     * @return The amount of stripes
+     */
+    public int getStripeCount() {
+        return this.stripes.length;
+    }
+
+    /**
+     * Stops accepting tasks. Tasks already submitted are still run.
+     */
+    public void shutdown() {
+        for ( ExecutorService stripe : this.stripes ) {
+            stripe.shutdown();
+        }
+    }
+
+    /**
+     * Waits for all submitted tasks to complete after a shutdown.
+     * @param timeout The maximum time to wait for every stripe
+     * @param unit The unit of the timeout
+     * @return Whether or not all stripes terminated
+     * @throws InterruptedException Thrown when interrupted while waiting
+     */
+    public boolean awaitTermination( long timeout, TimeUnit unit ) throws InterruptedException {
+        boolean terminated = true;
+        for ( ExecutorService stripe : this.stripes ) {
+            terminated &= stripe.awaitTermination( timeout, unit );
+        }
+        return terminated;
+    }
+
+    /**
+     * Gets the stripe of the specified key.
+     * @param key The key or null
+     * @return The index of the stripe
+     */
+    private int getStripe( Object key ) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        return ( hash & Integer.MAX_VALUE ) % this.stripes.length;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.dispatch;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Collects tasks from any thread which are run in batches by a single
+ * thread, e.g. once per server tick on the main thread. Adding a task never
+ * blocks. A batch stops once its time budget is used up and leaves the
+ * remaining tasks for the next one, so a burst of tasks is spread over
+ * several ticks instead of stalling a single one.</p>
+ */
+public class TickQueue {
+    /**
+     * The pending tasks in the order they were added.
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Adds a task to run with the next batch.
+     * @param task The task
+     */
+    public void add( Runnable task ) {
+        this.tasks.offer( task );
+    }
+
+    /**
+     * Runs pending tasks in the order they were added until none are left or
+     * the time budget is used up. At least one task is run if there is one.
+     * Exceptions of tasks are printed and do not stop the batch.
+     * This must only be called by one thread at a time.
+     * @param budgetNanos The time budget in nanoseconds
+     * @return The amount of tasks run
+     */
+    public int drain( long budgetNanos ) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int count = 0;
+
+        Runnable task;
+        while ( ( task = this.tasks.poll() ) != null ) {
+            try {
+                task.run();
+            } catch ( Exception e ) {
+                e.printStackTrace();
+            }
+            count++;
+
+            if ( System.nanoTime() - deadline >= 0 ) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether or not tasks are pending.
+     * @return Whether or not the queue is empty
+     */
+    public boolean isEmpty() {
+        return this.tasks.isEmpty();
+    }
+}
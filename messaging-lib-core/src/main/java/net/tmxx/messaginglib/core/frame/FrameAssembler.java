@@ -0,0 +1,280 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.frame;
+
+import lombok.Getter;
+import lombok.Setter;
+import net.tmxx.messaginglib.core.io.MessageReader;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Puts fragment frames back together. Fragments are collected per sender
+ * and transfer id. The memory used per sender is bounded by the amount of
+ * transfers and bytes pending; the oldest transfers are dropped to make room.
+ * Transfers not completed within the timeout are dropped as well.</p>
+ *
+ * @see FrameCodec#encodeFrames(int, net.tmxx.messaginglib.core.io.MessageBuffer)
+ */
+public class FrameAssembler {
+    /**
+     * The default time in milliseconds a transfer may take.
+     */
+    public static final long DEFAULT_TIMEOUT = 10000;
+
+    /**
+     * The default amount of transfers pending per sender.
+     */
+    public static final int DEFAULT_MAX_TRANSFERS_PER_SENDER = 4;
+
+    /**
+     * The default amount of bytes pending per sender.
+     */
+    public static final int DEFAULT_MAX_BYTES_PER_SENDER = FrameCodec.MAX_FRAME_SIZE;
+
+    /**
+     * Frames split into more fragments are rejected.
+     */
+    public static final int MAX_FRAGMENTS = 4096;
+
+    /**
+     * The interval in milliseconds timed out transfers are looked for.
+     */
+    private static final long SWEEP_INTERVAL = 1000;
+
+    /**
+     * The time in milliseconds a transfer may take.
+     */
+    @Getter @Setter private long timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * The amount of transfers pending per sender.
+     */
+    @Getter @Setter private int maxTransfersPerSender = DEFAULT_MAX_TRANSFERS_PER_SENDER;
+
+    /**
+     * The amount of bytes pending per sender.
+     */
+    @Getter @Setter private int maxBytesPerSender = DEFAULT_MAX_BYTES_PER_SENDER;
+
+    /**
+     * Contains the pending transfers of every sender.
+     */
+    private final Map<Object, Sender> senders = new HashMap<>();
+
+    /**
+     * The time timed out transfers were looked for the last time.
+     */
+    private long lastSweep;
+
+    /**
+     * Adds a received fragment frame.
+     * @param sender The key of the sender, e.g. the uuid of the player the fragment was received from
+     * @param data The bytes of the fragment frame
+     * @param header The header of the fragment frame
+     * @return The bytes of the original frame once all fragments are received, otherwise null
+     */
+    public synchronized byte[] accept( Object sender, byte[] data, FrameHeader header ) {
+        long now = System.currentTimeMillis();
+        if ( now - this.lastSweep >= SWEEP_INTERVAL ) {
+            this.sweep( now );
+            this.lastSweep = now;
+        }
+
+        MessageReader reader = new MessageReader( data, header.getBodyOffset(), header.getBodyLength() );
+        int transferId = reader.readVarInt();
+        int index = reader.readVarInt();
+        int count = reader.readVarInt();
+        int length = reader.remaining();
+        if ( reader.isTruncated() || count < 2 || count > MAX_FRAGMENTS || index < 0 || index >= count || length <= 0 ) {
+            // The fragment is malformed
+            return null;
+        }
+
+        Sender state = this.senders.get( sender );
+        if ( state == null ) {
+            state = new Sender();
+            this.senders.put( sender, state );
+        }
+
+        Transfer transfer = state.transfers.get( transferId );
+        if ( transfer == null ) {
+            while ( state.transfers.size() >= this.maxTransfersPerSender && !state.transfers.isEmpty() ) {
+                state.removeOldest();
+            }
+            transfer = new Transfer( header.getTypeId(), count, now );
+            state.transfers.put( transferId, transfer );
+        } else if ( transfer.typeId != header.getTypeId() || transfer.chunks.length != count ) {
+            // Two transfers got mixed up, none of them can be trusted
+            state.remove( transferId );
+            this.removeIfEmpty( sender, state );
+            return null;
+        }
+
+        if ( transfer.chunks[ index ] != null ) {
+            // We already got this fragment
+            return null;
+        }
+
+        while ( state.bytes + length > this.maxBytesPerSender ) {
+            if ( state.removeOldest() == transfer ) {
+                // The transfer alone exceeds the limit
+                this.removeIfEmpty( sender, state );
+                return null;
+            }
+        }
+
+        transfer.chunks[ index ] = Arrays.copyOfRange( data, reader.getPosition(), reader.getPosition() + length );
+        transfer.received++;
+        transfer.bytes += length;
+        state.bytes += length;
+        if ( transfer.received < count ) {
+            return null;
+        }
+
+        state.remove( transferId );
+        this.removeIfEmpty( sender, state );
+
+        byte[] frame = new byte[ transfer.bytes ];
+        int offset = 0;
+        for ( byte[] chunk : transfer.chunks ) {
+            System.arraycopy( chunk, 0, frame, offset, chunk.length );
+            offset += chunk.length;
+        }
+        return frame;
+    }
+
+    /**
+     * Drops all transfers which were not completed within the timeout.
+     * @param now The current time in milliseconds
+     */
+    private void sweep( long now ) {
+        Iterator<Sender> senderIterator = this.senders.values().iterator();
+        while ( senderIterator.hasNext() ) {
+            Sender state = senderIterator.next();
+            Iterator<Transfer> transferIterator = state.transfers.values().iterator();
+            while ( transferIterator.hasNext() ) {
+                Transfer transfer = transferIterator.next();
+                if ( now - transfer.startedAt > this.timeout ) {
+                    state.bytes -= transfer.bytes;
+                    transferIterator.remove();
+                }
+            }
+            if ( state.transfers.isEmpty() ) {
+                senderIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the state of the sender if it has no pending transfers.
+     * @param sender The key of the sender
+     * @param state The state of the sender
+     */
+    private void removeIfEmpty( Object sender, Sender state ) {
+        if ( state.transfers.isEmpty() ) {
+            this.senders.remove( sender );
+        }
+    }
+
+    /**
+     * The pending transfers of a single sender.
+     */
+    private static class Sender {
+        /**
+         * Contains the pending transfers by their id, the oldest first.
+         */
+        private final LinkedHashMap<Integer, Transfer> transfers = new LinkedHashMap<>();
+
+        /**
+         * The amount of bytes received for all pending transfers.
+         */
+        private int bytes;
+
+        /**
+         * Removes the specified transfer.
+         * @param transferId The id of the transfer
+         */
+        private void remove( int transferId ) {
+            Transfer transfer = this.transfers.remove( transferId );
+            if ( transfer != null ) {
+                this.bytes -= transfer.bytes;
+            }
+        }
+
+        /**
+         * Removes the oldest transfer.
+         * @return The removed transfer
+         */
+        private Transfer removeOldest() {
+            Iterator<Transfer> iterator = this.transfers.values().iterator();
+            Transfer transfer = iterator.next();
+            iterator.remove();
+            this.bytes -= transfer.bytes;
+            return transfer;
+        }
+    }
+
+    /**
+     * The fragments of a single frame received so far.
+     */
+    private static class Transfer {
+        /**
+         * The id of the message type.
+         */
+        private final int typeId;
+
+        /**
+         * The received fragments by their index.
+         */
+        private final byte[][] chunks;
+
+        /**
+         * The time the first fragment was received at.
+         */
+        private final long startedAt;
+
+        /**
+         * The amount of fragments received.
+         */
+        private int received;
+
+        /**
+         * The amount of bytes received.
+         */
+        private int bytes;
+
+        /**
+         * Constructs a new transfer.
+         * @param typeId The id of the message type
+         * @param count The amount of fragments
+         * @param startedAt The time the first fragment was received at
+         */
+        private Transfer( int typeId, int count, long startedAt ) {
+            this.typeId = typeId;
+            this.chunks = new byte[ count ][];
+            this.startedAt = startedAt;
+        }
+    }
+}
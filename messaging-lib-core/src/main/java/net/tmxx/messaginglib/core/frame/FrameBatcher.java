@@ -0,0 +1,526 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.frame;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import net.tmxx.messaginglib.core.io.MessageBuffer;
+import net.tmxx.messaginglib.core.io.MessageReader;
+import net.tmxx.messaginglib.core.io.VarInts;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Collects the frames sent through every carrier, e.g. a player, and
+ * sends them packed into a single batch frame when flushed. This turns a
+ * burst of small messages into a single plugin message. Frames of a carrier
+ * are sent in the order they were added.</p>
+ *
+ * <p>A batch is sent right away once it reaches the flush threshold or
+ * the next frame would not fit into it. Frames too large for a batch
+ * are sent on their own after the pending batch of their carrier.</p>
+ *
+ * <p>Messages carrying state of which only the newest value matters can be
+ * added with a coalescing key instead. They are encoded when the batch is
+ * sent, and a message replaces the pending message of the same type and
+ * key, so only the last one is encoded and sent.</p>
+ *
+ * <p>Batches are only taken out under the lock of the batcher, they are
+ * encoded and sent after releasing it. The batches taken out for a carrier
+ * are queued and sent one after another by a single thread at a time, so
+ * a batch may still be sent by another thread when flushing returns.</p>
+ *
+ * @param <C> The type of the carriers
+ * @see FrameCodec#encodeBatch(MessageBuffer)
+ */
+public class FrameBatcher<C> {
+    /**
+     * The default amount of bytes a batch is sent at without waiting for the flush.
+     */
+    public static final int DEFAULT_FLUSH_THRESHOLD = 8192;
+
+    /**
+     * The codec wrapping the packed frames into batch frames.
+     */
+    private final FrameCodec frameCodec;
+
+    /**
+     * Sends a frame through a carrier.
+     */
+    private final BiConsumer<C, byte[]> sender;
+
+    /**
+     * Whether or not frames are batched at all. Otherwise they are sent right away.
+     */
+    @Getter @Setter private volatile boolean enabled = true;
+
+    /**
+     * The amount of bytes a batch is sent at without waiting for the flush.
+     */
+    @Getter @Setter private volatile int flushThreshold = DEFAULT_FLUSH_THRESHOLD;
+
+    /**
+     * Called with the carrier and a task sending its new batch whenever a
+     * batch is started. The task should be run once the batch waited long
+     * enough for further frames and does nothing if the batch was sent before.
+     * If this is null, batches are only sent when they are full or flushed.
+     */
+    @Getter @Setter private volatile BiConsumer<C, Runnable> lingerScheduler;
+
+    /**
+     * Contains the pending batch of every carrier, the oldest first.
+     */
+    private final Map<C, Batch> batches = new LinkedHashMap<>();
+
+    /**
+     * Contains the batches taken out but not sent yet of every carrier
+     * a thread is currently sending batches through.
+     */
+    private final Map<C, Deque<Batch>> sending = new HashMap<>();
+
+    /**
+     * Constructs a new batcher.
+     * @param frameCodec The codec wrapping the packed frames into batch frames
+     * @param sender Sends a frame through a carrier
+     */
+    public FrameBatcher( FrameCodec frameCodec, BiConsumer<C, byte[]> sender ) {
+        this.frameCodec = frameCodec;
+        this.sender = sender;
+    }
+
+    /**
+     * Adds a frame to the pending batch of the carrier.
+     * @param carrier The carrier to send the frame through
+     * @param frame The bytes of the frame
+     */
+    public void add( C carrier, byte[] frame ) {
+        int maxBodyLength = this.frameCodec.getMaxFrameLength() - FrameCodec.MAX_HEADER_SIZE;
+        int length = VarInts.getVarIntSize( frame.length ) + frame.length;
+        boolean drain = false;
+        synchronized ( this ) {
+            Batch batch = this.batches.get( carrier );
+            if ( !this.enabled || length > maxBodyLength ) {
+                // Frames sent before have to arrive first
+                if ( batch != null ) {
+                    drain = this.enqueue( carrier, this.batches.remove( carrier ) );
+                }
+                drain |= this.enqueue( carrier, new Batch( new Entry( frame, null ) ) );
+            } else {
+                if ( batch != null && batch.bodyLength + length > maxBodyLength ) {
+                    drain = this.enqueue( carrier, this.batches.remove( carrier ) );
+                    batch = null;
+                }
+                if ( batch == null ) {
+                    batch = this.startBatch( carrier );
+                }
+
+                batch.entries.add( new Entry( frame, null ) );
+                batch.bodyLength += length;
+                if ( batch.bodyLength >= this.flushThreshold ) {
+                    drain |= this.enqueue( carrier, this.batches.remove( carrier ) );
+                }
+            }
+        }
+
+        if ( drain ) {
+            this.drain( carrier );
+        }
+    }
+
+    /**
+     * Adds a message to the pending batch of the carrier, which is encoded
+     * when the batch is sent. The pending message of the same type and key
+     * is dropped, the message takes the place at the end of the batch.
+     * @param carrier The carrier to send the message through
+     * @param type The type of the message
+     * @param coalescingKey The key of the state the message carries
+     * @param encoder Encodes the message into its frames
+     */
+    public void add( C carrier, Class<?> type, Object coalescingKey, Supplier<byte[][]> encoder ) {
+        if ( !this.enabled ) {
+            boolean drain = false;
+            synchronized ( this ) {
+                Batch batch = this.batches.remove( carrier );
+                if ( batch != null ) {
+                    drain = this.enqueue( carrier, batch );
+                }
+                drain |= this.enqueue( carrier, new Batch( new Entry( null, encoder ) ) );
+            }
+
+            if ( drain ) {
+                this.drain( carrier );
+            }
+            return;
+        }
+
+        this.addCoalesced( carrier, type, coalescingKey, encoder );
+    }
+
+    /**
+     * Adds a message with a coalescing key to the pending batch of the carrier.
+     * @param carrier The carrier to send the message through
+     * @param type The type of the message
+     * @param coalescingKey The key of the state the message carries
+     * @param encoder Encodes the message into its frames
+     */
+    private synchronized void addCoalesced( C carrier, Class<?> type, Object coalescingKey, Supplier<byte[][]> encoder ) {
+        Batch batch = this.batches.get( carrier );
+        if ( batch == null ) {
+            batch = this.startBatch( carrier );
+        }
+        if ( batch.coalesced == null ) {
+            batch.coalesced = new HashMap<>();
+        }
+
+        Entry entry = new Entry( null, encoder );
+        Entry previous = batch.coalesced.put( new CoalescingKey( type, coalescingKey ), entry );
+        if ( previous != null ) {
+            // The previous state is outdated, it is neither encoded nor sent
+            previous.encoder = null;
+        }
+        batch.entries.add( entry );
+    }
+
+    /**
+     * Sends the pending batch of the carrier.
+     * @param carrier The carrier
+     */
+    public void flush( C carrier ) {
+        boolean drain;
+        synchronized ( this ) {
+            Batch batch = this.batches.remove( carrier );
+            drain = batch != null && this.enqueue( carrier, batch );
+        }
+
+        if ( drain ) {
+            this.drain( carrier );
+        }
+    }
+
+    /**
+     * Sends the pending batches of all carriers.
+     */
+    public void flushAll() {
+        List<C> carriers = new ArrayList<>();
+        synchronized ( this ) {
+            Iterator<Map.Entry<C, Batch>> iterator = this.batches.entrySet().iterator();
+            while ( iterator.hasNext() ) {
+                Map.Entry<C, Batch> entry = iterator.next();
+                iterator.remove();
+                if ( this.enqueue( entry.getKey(), entry.getValue() ) ) {
+                    carriers.add( entry.getKey() );
+                }
+            }
+        }
+
+        for ( C carrier : carriers ) {
+            this.drain( carrier );
+        }
+    }
+
+    /**
+     * Starts a new pending batch of the carrier and hands the
+     * task sending it to the {@link #lingerScheduler}.
+     * @param carrier The carrier
+     * @return The new batch
+     */
+    private Batch startBatch( C carrier ) {
+        Batch batch = new Batch();
+        this.batches.put( carrier, batch );
+
+        BiConsumer<C, Runnable> lingerScheduler = this.lingerScheduler;
+        if ( lingerScheduler != null ) {
+            try {
+                lingerScheduler.accept( carrier, () -> this.flushPending( carrier, batch ) );
+            } catch ( Exception e ) {
+                e.printStackTrace();
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Sends the batch if it is still the pending batch of the carrier.
+     * It is not if it was full or flushed before.
+     * @param carrier The carrier
+     * @param batch The batch
+     */
+    private void flushPending( C carrier, Batch batch ) {
+        boolean drain = false;
+        synchronized ( this ) {
+            if ( this.batches.get( carrier ) == batch ) {
+                this.batches.remove( carrier );
+                drain = this.enqueue( carrier, batch );
+            }
+        }
+
+        if ( drain ) {
+            this.drain( carrier );
+        }
+    }
+
+    /**
+     * Queues a batch taken out to be sent through the carrier.
+     * Must be called while holding the lock of the batcher.
+     * @param carrier The carrier
+     * @param batch The batch
+     * @return Whether or not the caller has to {@link #drain(Object)} the
+     *         queue of the carrier, otherwise another thread is sending it
+     */
+    private boolean enqueue( C carrier, Batch batch ) {
+        Deque<Batch> queue = this.sending.get( carrier );
+        if ( queue != null ) {
+            queue.add( batch );
+            return false;
+        }
+
+        queue = new ArrayDeque<>();
+        queue.add( batch );
+        this.sending.put( carrier, queue );
+        return true;
+    }
+
+    /**
+     * Sends the queued batches of the carrier in order until its queue is
+     * empty. Must be called without holding the lock of the batcher.
+     * @param carrier The carrier
+     */
+    private void drain( C carrier ) {
+        while ( true ) {
+            Batch batch;
+            synchronized ( this ) {
+                Deque<Batch> queue = this.sending.get( carrier );
+                batch = queue.poll();
+                if ( batch == null ) {
+                    this.sending.remove( carrier );
+                    return;
+                }
+            }
+
+            try {
+                this.flush( carrier, batch );
+            } catch ( Exception e ) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Sends a batch. Messages added with a coalescing key are encoded now.
+     * The frames are packed into as few batch frames as possible, a batch
+     * frame containing a single frame is sent as that frame. The frames of
+     * a batch that is not {@link Batch#packed} are sent on their own.
+     * @param carrier The carrier to send the batch through
+     * @param batch The batch
+     */
+    private void flush( C carrier, Batch batch ) {
+        int maxBodyLength = this.frameCodec.getMaxFrameLength() - FrameCodec.MAX_HEADER_SIZE;
+        List<byte[]> frames = new ArrayList<>( batch.entries.size() );
+        int bodyLength = 0;
+        for ( Entry entry : batch.entries ) {
+            byte[][] entryFrames = entry.frame != null ? new byte[][] { entry.frame } : this.encode( entry.encoder );
+            if ( entryFrames == null ) {
+                continue;
+            }
+
+            for ( byte[] frame : entryFrames ) {
+                if ( !batch.packed ) {
+                    this.send( carrier, frame );
+                    continue;
+                }
+
+                int length = VarInts.getVarIntSize( frame.length ) + frame.length;
+                if ( bodyLength + length > maxBodyLength ) {
+                    this.send( carrier, frames, bodyLength );
+                    frames.clear();
+                    bodyLength = 0;
+                }
+                if ( length > maxBodyLength ) {
+                    this.send( carrier, frame );
+                    continue;
+                }
+
+                frames.add( frame );
+                bodyLength += length;
+            }
+        }
+        this.send( carrier, frames, bodyLength );
+    }
+
+    /**
+     * Packs the frames into a batch frame and sends it.
+     * @param carrier The carrier to send the frames through
+     * @param frames The frames in order
+     * @param bodyLength The length of the body of the batch frame
+     */
+    private void send( C carrier, List<byte[]> frames, int bodyLength ) {
+        if ( frames.size() <= 1 ) {
+            if ( !frames.isEmpty() ) {
+                this.send( carrier, frames.get( 0 ) );
+            }
+            return;
+        }
+
+        MessageBuffer buffer = MessageBuffer.acquire( bodyLength );
+        try {
+            for ( byte[] frame : frames ) {
+                buffer.writeVarInt( frame.length );
+                buffer.writeBytes( frame );
+            }
+            this.send( carrier, this.frameCodec.encodeBatch( buffer ) );
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Encodes a message added with a coalescing key.
+     * @param encoder Encodes the message or null if the message was replaced
+     * @return The frames of the message or null if it was replaced or could not be encoded
+     */
+    private byte[][] encode( Supplier<byte[][]> encoder ) {
+        if ( encoder == null ) {
+            return null;
+        }
+
+        try {
+            return encoder.get();
+        } catch ( Exception e ) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Sends a frame through the carrier. Errors are printed, so they do not
+     * prevent the batches of other carriers from being sent.
+     * @param carrier The carrier
+     * @param frame The bytes of the frame
+     */
+    private void send( C carrier, byte[] frame ) {
+        try {
+            this.sender.accept( carrier, frame );
+        } catch ( Exception e ) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the next frame packed into the body of a batch frame.
+     * @param reader The reader of the body of the batch frame
+     * @return The bytes of the frame or null if all frames were read or the body is malformed
+     */
+    public static byte[] readFrame( MessageReader reader ) {
+        if ( reader.remaining() == 0 ) {
+            return null;
+        }
+
+        int length = reader.readVarInt();
+        return reader.isTruncated() || length <= 0 ? null : reader.readBytes( length );
+    }
+
+    /**
+     * The frames pending for a single carrier.
+     */
+    private static class Batch {
+        /**
+         * The frames and messages in the order they were added.
+         */
+        private final List<Entry> entries = new ArrayList<>();
+
+        /**
+         * Whether or not the frames are packed into batch frames.
+         * Otherwise they are sent on their own.
+         */
+        private final boolean packed;
+
+        /**
+         * Contains the pending messages by their type and coalescing key
+         * or null if no message was added with a key.
+         */
+        private Map<CoalescingKey, Entry> coalesced;
+
+        /**
+         * The length of the body of the batch frame without the messages
+         * added with a coalescing key, which are not encoded yet.
+         */
+        private int bodyLength;
+
+        /**
+         * Constructs a new empty batch packing its frames.
+         */
+        private Batch() {
+            this.packed = true;
+        }
+
+        /**
+         * Constructs a new batch of a single frame or message sent on its own.
+         * @param entry The frame or message
+         */
+        private Batch( Entry entry ) {
+            this.packed = false;
+            this.entries.add( entry );
+        }
+    }
+
+    /**
+     * A pending frame or message of a batch.
+     */
+    @AllArgsConstructor
+    private static class Entry {
+        /**
+         * The bytes of the frame or null if this is a message added with a coalescing key.
+         */
+        private final byte[] frame;
+
+        /**
+         * Encodes the message or null if this is a frame or the message was replaced.
+         */
+        private Supplier<byte[][]> encoder;
+    }
+
+    /**
+     * Identifies the state carried by a message added with a coalescing key.
+     */
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class CoalescingKey {
+        /**
+         * The type of the message.
+         */
+        private final Class<?> type;
+
+        /**
+         * The coalescing key of the message.
+         */
+        private final Object key;
+    }
+}
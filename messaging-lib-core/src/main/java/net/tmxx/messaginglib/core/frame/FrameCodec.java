@@ -0,0 +1,530 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.frame;
+
+import lombok.Getter;
+import lombok.Setter;
+import net.tmxx.messaginglib.core.compression.CompressionCodec;
+import net.tmxx.messaginglib.core.compression.CompressionCodecs;
+import net.tmxx.messaginglib.core.compression.CompressionDictionaries;
+import net.tmxx.messaginglib.core.compression.CompressionDictionary;
+import net.tmxx.messaginglib.core.compression.DictionaryTrainer;
+import net.tmxx.messaginglib.core.io.MessageBuffer;
+import net.tmxx.messaginglib.core.io.MessageReader;
+import net.tmxx.messaginglib.core.io.VarInts;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Wraps the encoded messages sent on the messaging lib channel into frames.
+ * Every frame starts with a fixed header which can be read without touching
+ * the body:</p>
+ * <pre>
+ * magic        1 byte
+ * version      1 byte
+ * flags        1 byte
+ * type id      4 bytes, the hash code of the name of the type or the
+ *              negotiated type id if {@link #FLAG_NEGOTIATED_TYPE_ID} is set
+ * sequence     variable length integer
+ * schema       variable length integer, only if {@link #FLAG_SCHEMA} is set
+ * timestamp    8 bytes, only if {@link #FLAG_TIMESTAMP} is set
+ * body length  variable length integer
+ * body
+ * </pre>
+ *
+ * <p>Bodies reaching the compression threshold are compressed, in which
+ * case the body starts with the id of the compression codec and the
+ * uncompressed length as variable length integer. The compressed body
+ * is only used if it is actually smaller.</p>
+ *
+ * <p>If a {@link CompressionDictionary} is set and supported by the codec,
+ * bodies are compressed using it as preset dictionary. Those frames carry
+ * the dictionary flag and the dictionary id after the codec id. As even
+ * small bodies compress well with a dictionary, a separate and much
+ * lower threshold applies to them.</p>
+ *
+ * <p>Frames exceeding the maximum frame length are split into fragment
+ * frames carrying the {@link #FLAG_FRAGMENT} flag and the type id of the
+ * original frame. Their body starts with the transfer id, the index of the
+ * fragment and the amount of fragments as variable length integers followed
+ * by a part of the original frame. Receivers put them back together using
+ * a {@link FrameAssembler}.</p>
+ *
+ * <p>Several small frames sent to the same player can be packed into a
+ * single batch frame carrying the {@link #FLAG_BATCH} flag. Its body
+ * contains the packed frames, each prefixed with its length as variable
+ * length integer, and is compressed like any other body. Receivers unpack
+ * them using {@link FrameBatcher#readFrame(MessageReader)}.</p>
+ */
+public class FrameCodec {
+    /**
+     * The first byte of every frame.
+     */
+    public static final int MAGIC = 0x4D;
+
+    /**
+     * The version of the frame format written by this codec.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The flag marking a compressed body.
+     */
+    public static final int FLAG_COMPRESSED = 0x01;
+
+    /**
+     * The flag marking a body compressed using a preset dictionary.
+     */
+    public static final int FLAG_DICTIONARY = 0x02;
+
+    /**
+     * The flag marking a frame carrying the time it was sent at.
+     */
+    public static final int FLAG_TIMESTAMP = 0x04;
+
+    /**
+     * The flag marking a fragment of a larger frame.
+     */
+    public static final int FLAG_FRAGMENT = 0x08;
+
+    /**
+     * The flag marking a frame carrying the schema version of its message.
+     */
+    public static final int FLAG_SCHEMA = 0x10;
+
+    /**
+     * The flag marking a frame carrying a type id negotiated with the proxy
+     * instead of the hash code of the name of the type.
+     */
+    public static final int FLAG_NEGOTIATED_TYPE_ID = 0x20;
+
+    /**
+     * The flag marking a frame containing several other frames.
+     */
+    public static final int FLAG_BATCH = 0x40;
+
+    /**
+     * The default amount of bytes a body needs to be compressed.
+     */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    /**
+     * The default amount of bytes a body needs to be compressed using a dictionary.
+     */
+    public static final int DEFAULT_DICTIONARY_COMPRESSION_THRESHOLD = 32;
+
+    /**
+     * Frames decompressing to more bytes are rejected.
+     */
+    public static final int MAX_FRAME_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * The default maximum length of a sent frame, which stays below the
+     * 32767 bytes the platforms accept for a single plugin message.
+     */
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 32000;
+
+    /**
+     * The maximum size of a frame header.
+     */
+    static final int MAX_HEADER_SIZE = 3 + 4 + VarInts.MAX_VAR_INT_SIZE * 2 + 8 + VarInts.MAX_VAR_INT_SIZE;
+
+    /**
+     * The maximum size of the header and the prefix of a fragment frame.
+     */
+    private static final int MAX_FRAGMENT_OVERHEAD = MAX_HEADER_SIZE + 3 * VarInts.MAX_VAR_INT_SIZE;
+
+    /**
+     * Scratch arrays grown above this size are not kept.
+     */
+    private static final int MAX_RETAINED_SCRATCH = 64 * 1024;
+
+    /**
+     * The scratch array of every thread the body gets compressed into.
+     */
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[ 1024 ];
+        }
+    };
+
+    /**
+     * The amount of bytes a body needs to be compressed.
+     */
+    @Getter @Setter private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+
+    /**
+     * The codec used to compress bodies or null to disable compression.
+     */
+    @Getter @Setter private CompressionCodec compressionCodec = CompressionCodecs.DEFLATE;
+
+    /**
+     * The amount of bytes a body needs to be compressed using the dictionary.
+     */
+    @Getter @Setter private int dictionaryCompressionThreshold = DEFAULT_DICTIONARY_COMPRESSION_THRESHOLD;
+
+    /**
+     * The dictionary used to compress bodies or null to compress without one.
+     * Receivers need the dictionary registered at {@link CompressionDictionaries}.
+     */
+    @Getter @Setter private CompressionDictionary compressionDictionary;
+
+    /**
+     * The trainer every sent body is added to as sample or null to not record samples.
+     */
+    @Getter @Setter private DictionaryTrainer sampleRecorder;
+
+    /**
+     * Whether or not sent frames carry the time they were sent at.
+     */
+    @Getter @Setter private boolean timestamped;
+
+    /**
+     * The age in milliseconds after which received frames carrying a timestamp
+     * are expired or 0 to never expire frames.
+     */
+    @Getter @Setter private long maxFrameAge;
+
+    /**
+     * The maximum length of a sent frame. Larger frames are split into fragments.
+     */
+    @Getter private int maxFrameLength = DEFAULT_MAX_FRAME_LENGTH;
+
+    /**
+     * The sequence number of the last sent frame.
+     */
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * The id of the last fragmented frame. It starts at a random value, so
+     * transfers of different senders passing the same player rarely collide.
+     */
+    private final AtomicInteger transferId = new AtomicInteger( ThreadLocalRandom.current().nextInt() );
+
+    /**
+     * Sets the maximum length of a sent frame.
+     * @param maxFrameLength The maximum length
+     * @throws IllegalArgumentException Thrown when the length leaves no room for fragments
+     */
+    public void setMaxFrameLength( int maxFrameLength ) {
+        if ( maxFrameLength <= MAX_FRAGMENT_OVERHEAD ) {
+            throw new IllegalArgumentException( "Frames need to be longer than " + MAX_FRAGMENT_OVERHEAD + " bytes" );
+        }
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Wraps the encoded body into one or more frames. Bodies exceeding the
+     * maximum frame length after compression are split into fragments.
+     * @param typeId The id of the message type
+     * @param body The buffer containing the encoded message
+     * @return The bytes of the frames to send in order
+     */
+    public byte[][] encodeFrames( int typeId, MessageBuffer body ) {
+        return encodeFrames( typeId, 0, body );
+    }
+
+    /**
+     * Wraps the encoded body into one or more frames carrying the schema version.
+     * @param typeId The id of the message type
+     * @param schemaVersion The schema version of the message or 0 to not send one
+     * @param body The buffer containing the encoded message
+     * @return The bytes of the frames to send in order
+     * @see #encodeFrames(int, MessageBuffer)
+     */
+    public byte[][] encodeFrames( int typeId, int schemaVersion, MessageBuffer body ) {
+        return encodeFrames( typeId, false, schemaVersion, body );
+    }
+
+    /**
+     * Wraps the encoded body into one or more frames carrying the schema version.
+     * @param typeId The id of the message type
+     * @param negotiated Whether or not the type id is negotiated or the hash code of the name of the type
+     * @param schemaVersion The schema version of the message or 0 to not send one
+     * @param body The buffer containing the encoded message
+     * @return The bytes of the frames to send in order
+     * @see #encodeFrames(int, MessageBuffer)
+     */
+    public byte[][] encodeFrames( int typeId, boolean negotiated, int schemaVersion, MessageBuffer body ) {
+        byte[] frame = encodeFrame( typeId, negotiated, schemaVersion, body );
+        if ( frame.length <= this.maxFrameLength ) {
+            return new byte[][] { frame };
+        }
+        return fragment( typeId, negotiated, frame );
+    }
+
+    /**
+     * Wraps the encoded body into a frame and compresses it if it is worth it.
+     * @param typeId The id of the message type
+     * @param body The buffer containing the encoded message
+     * @return The bytes of the frame to send
+     */
+    public byte[] encodeFrame( int typeId, MessageBuffer body ) {
+        return encodeFrame( typeId, 0, body );
+    }
+
+    /**
+     * Wraps the encoded body into a frame carrying the schema version.
+     * @param typeId The id of the message type
+     * @param schemaVersion The schema version of the message or 0 to not send one
+     * @param body The buffer containing the encoded message
+     * @return The bytes of the frame to send
+     */
+    public byte[] encodeFrame( int typeId, int schemaVersion, MessageBuffer body ) {
+        return encodeFrame( typeId, false, schemaVersion, body );
+    }
+
+    /**
+     * Wraps the encoded body into a frame carrying the schema version.
+     * @param typeId The id of the message type
+     * @param negotiated Whether or not the type id is negotiated or the hash code of the name of the type
+     * @param schemaVersion The schema version of the message or 0 to not send one
+     * @param body The buffer containing the encoded message
+     * @return The bytes of the frame to send
+     */
+    public byte[] encodeFrame( int typeId, boolean negotiated, int schemaVersion, MessageBuffer body ) {
+        DictionaryTrainer sampleRecorder = this.sampleRecorder;
+        if ( sampleRecorder != null ) {
+            sampleRecorder.addSample( body.getData(), 0, body.size() );
+        }
+
+        int flags = this.timestamped ? FLAG_TIMESTAMP : 0;
+        if ( schemaVersion != 0 ) {
+            flags |= FLAG_SCHEMA;
+        }
+        if ( negotiated ) {
+            flags |= FLAG_NEGOTIATED_TYPE_ID;
+        }
+        return encodeFrame( flags, typeId, schemaVersion, body );
+    }
+
+    /**
+     * Wraps frames packed by a {@link FrameBatcher} into a batch frame.
+     * The packed frames carry their own type ids and timestamps, so the
+     * batch frame has neither.
+     * @param body The buffer containing the packed frames
+     * @return The bytes of the batch frame to send
+     */
+    public byte[] encodeBatch( MessageBuffer body ) {
+        return encodeFrame( FLAG_BATCH, 0, 0, body );
+    }
+
+    /**
+     * Wraps the body into a frame and compresses it if it is worth it.
+     * @param flags The flags of the frame besides the compression flags
+     * @param typeId The id of the message type
+     * @param schemaVersion The schema version, only written if the flag is set
+     * @param body The buffer containing the body
+     * @return The bytes of the frame
+     */
+    private byte[] encodeFrame( int flags, int typeId, int schemaVersion, MessageBuffer body ) {
+        byte[] data = body.getData();
+        int length = body.size();
+        byte[] section = data;
+        int sectionLength = length;
+
+        CompressionCodec compressionCodec = this.compressionCodec;
+        CompressionDictionary dictionary = compressionCodec != null && compressionCodec.supportsDictionary() ? this.compressionDictionary : null;
+        if ( compressionCodec != null && length >= ( dictionary == null ? this.compressionThreshold : this.dictionaryCompressionThreshold ) ) {
+            int prefixLength = ( dictionary == null ? 1 : 2 ) + VarInts.getVarIntSize( length );
+            byte[] scratch = getScratch( length );
+
+            // Compressing only pays off if the result is smaller than the body
+            int compressedLength = length <= prefixLength ? -1 : dictionary == null
+                    ? compressionCodec.compress( data, 0, length, scratch, prefixLength, length - prefixLength )
+                    : compressionCodec.compress( data, 0, length, scratch, prefixLength, length - prefixLength, dictionary );
+            if ( compressedLength >= 0 ) {
+                flags |= FLAG_COMPRESSED;
+                scratch[ 0 ] = (byte) compressionCodec.getId();
+                if ( dictionary == null ) {
+                    VarInts.writeVarInt( scratch, 1, length );
+                } else {
+                    flags |= FLAG_DICTIONARY;
+                    scratch[ 1 ] = (byte) dictionary.getId();
+                    VarInts.writeVarInt( scratch, 2, length );
+                }
+                section = scratch;
+                sectionLength = prefixLength + compressedLength;
+            }
+        }
+
+        byte[] header = new byte[ MAX_HEADER_SIZE ];
+        int headerLength = writeHeader( header, flags, typeId, schemaVersion, sectionLength );
+
+        byte[] frame = new byte[ headerLength + sectionLength ];
+        System.arraycopy( header, 0, frame, 0, headerLength );
+        System.arraycopy( section, 0, frame, headerLength, sectionLength );
+        return frame;
+    }
+
+    /**
+     * Splits the frame into fragment frames fitting the maximum frame length.
+     * @param typeId The id of the message type
+     * @param negotiated Whether or not the type id is negotiated
+     * @param frame The bytes of the frame to split
+     * @return The bytes of the fragment frames in order
+     */
+    private byte[][] fragment( int typeId, boolean negotiated, byte[] frame ) {
+        int chunkSize = this.maxFrameLength - MAX_FRAGMENT_OVERHEAD;
+        int count = ( frame.length + chunkSize - 1 ) / chunkSize;
+        int transferId = this.transferId.incrementAndGet();
+        int flags = negotiated ? FLAG_FRAGMENT | FLAG_NEGOTIATED_TYPE_ID : FLAG_FRAGMENT;
+
+        byte[][] fragments = new byte[ count ][];
+        byte[] prefix = new byte[ MAX_FRAGMENT_OVERHEAD ];
+        for ( int index = 0; index < count; index++ ) {
+            int offset = index * chunkSize;
+            int length = Math.min( chunkSize, frame.length - offset );
+
+            int prefixLength = VarInts.getVarIntSize( transferId ) + VarInts.getVarIntSize( index ) + VarInts.getVarIntSize( count );
+            int headerLength = writeHeader( prefix, flags, typeId, 0, prefixLength + length );
+            headerLength = VarInts.writeVarInt( prefix, headerLength, transferId );
+            headerLength = VarInts.writeVarInt( prefix, headerLength, index );
+            headerLength = VarInts.writeVarInt( prefix, headerLength, count );
+
+            byte[] fragment = new byte[ headerLength + length ];
+            System.arraycopy( prefix, 0, fragment, 0, headerLength );
+            System.arraycopy( frame, offset, fragment, headerLength, length );
+            fragments[ index ] = fragment;
+        }
+        return fragments;
+    }
+
+    /**
+     * Writes the header of a frame and assigns the next sequence number.
+     * @param header The array to write the header to
+     * @param flags The flags of the frame
+     * @param typeId The id of the message type
+     * @param schemaVersion The schema version, only written if the flag is set
+     * @param bodyLength The length of the body
+     * @return The length of the header
+     */
+    private int writeHeader( byte[] header, int flags, int typeId, int schemaVersion, int bodyLength ) {
+        header[ 0 ] = MAGIC;
+        header[ 1 ] = VERSION;
+        header[ 2 ] = (byte) flags;
+        header[ 3 ] = (byte) ( typeId >>> 24 );
+        header[ 4 ] = (byte) ( typeId >>> 16 );
+        header[ 5 ] = (byte) ( typeId >>> 8 );
+        header[ 6 ] = (byte) typeId;
+        int headerLength = VarInts.writeVarInt( header, 7, this.sequence.incrementAndGet() );
+        if ( ( flags & FLAG_SCHEMA ) != 0 ) {
+            headerLength = VarInts.writeVarInt( header, headerLength, schemaVersion );
+        }
+        if ( ( flags & FLAG_TIMESTAMP ) != 0 ) {
+            long timestamp = System.currentTimeMillis();
+            for ( int shift = 56; shift >= 0; shift -= 8 ) {
+                header[ headerLength++ ] = (byte) ( timestamp >>> shift );
+            }
+        }
+        return VarInts.writeVarInt( header, headerLength, bodyLength );
+    }
+
+    /**
+     * Reads the header of a received frame without touching its body.
+     * @param data The bytes of the frame
+     * @return The header or null if the frame is malformed or of an unknown version
+     */
+    public FrameHeader readHeader( byte[] data ) {
+        MessageReader reader = new MessageReader( data );
+        if ( reader.readUnsignedByte() != MAGIC || reader.readUnsignedByte() != VERSION ) {
+            return null;
+        }
+
+        int flags = reader.readUnsignedByte();
+        int typeId = reader.readInt();
+        int sequence = reader.readVarInt();
+        int schemaVersion = ( flags & FLAG_SCHEMA ) != 0 ? reader.readVarInt() : 0;
+        long timestamp = ( flags & FLAG_TIMESTAMP ) != 0 ? reader.readLong() : -1;
+        int bodyLength = reader.readVarInt();
+        if ( reader.isTruncated() || bodyLength != reader.remaining() ) {
+            return null;
+        }
+        return new FrameHeader( VERSION, flags, typeId, sequence, schemaVersion, timestamp, reader.getPosition(), bodyLength );
+    }
+
+    /**
+     * Checks whether or not the frame is older than the maximum frame age.
+     * @param header The header of the frame
+     * @return Whether or not the frame is expired
+     */
+    public boolean isExpired( FrameHeader header ) {
+        return this.maxFrameAge > 0 && header.isExpired( this.maxFrameAge, System.currentTimeMillis() );
+    }
+
+    /**
+     * Opens the body of a received frame and decompresses it if needed.
+     * @param data The bytes of the frame
+     * @param header The header read before
+     * @return A reader positioned at the body or null if the body is malformed
+     */
+    public MessageReader openBody( byte[] data, FrameHeader header ) {
+        MessageReader reader = new MessageReader( data, header.getBodyOffset(), header.getBodyLength() );
+        reader.setSchemaVersion( header.getSchemaVersion() );
+        if ( !header.isCompressed() ) {
+            return reader;
+        }
+
+        CompressionCodec compressionCodec = CompressionCodecs.get( reader.readUnsignedByte() );
+        CompressionDictionary dictionary = null;
+        if ( header.hasFlag( FLAG_DICTIONARY ) ) {
+            dictionary = CompressionDictionaries.get( reader.readUnsignedByte() );
+            if ( dictionary == null ) {
+                // We do not know the dictionary, the other side uses a newer one
+                return null;
+            }
+        }
+
+        int length = reader.readVarInt();
+        if ( reader.isTruncated() || compressionCodec == null || length < 0 || length > MAX_FRAME_SIZE ) {
+            return null;
+        }
+
+        byte[] body = new byte[ length ];
+        boolean decompressed = dictionary == null
+                ? compressionCodec.decompress( data, reader.getPosition(), reader.remaining(), body, 0, length )
+                : compressionCodec.decompress( data, reader.getPosition(), reader.remaining(), body, 0, length, dictionary );
+        if ( !decompressed ) {
+            return null;
+        }
+
+        MessageReader bodyReader = new MessageReader( body );
+        bodyReader.setSchemaVersion( header.getSchemaVersion() );
+        return bodyReader;
+    }
+
+    /**
+     * Gets the scratch array of the current thread with at least the specified size.
+     * @param size The size needed
+     * @return The scratch array
+     */
+    private static byte[] getScratch( int size ) {
+        byte[] scratch = SCRATCH.get();
+        if ( scratch.length < size ) {
+            scratch = new byte[ Math.max( size, scratch.length << 1 ) ];
+            if ( scratch.length <= MAX_RETAINED_SCRATCH ) {
+                SCRATCH.set( scratch );
+            }
+        }
+        return scratch;
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.frame;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>The header of a received frame. It is parsed without touching the
+ * body, so frames can be dropped or forwarded before the message is
+ * looked up, decompressed or decoded.</p>
+ *
+ * @see FrameCodec#readHeader(byte[])
+ */
+@AllArgsConstructor
+@Getter
+public class FrameHeader {
+    /**
+     * The version of the frame format.
+     */
+    private final int version;
+
+    /**
+     * The flags of the frame.
+     */
+    private final int flags;
+
+    /**
+     * The id of the message type contained in the body, see {@link #hasNegotiatedTypeId()}.
+     */
+    private final int typeId;
+
+    /**
+     * The sequence number assigned by the sender.
+     */
+    private final int sequence;
+
+    /**
+     * The schema version of the message or 0 if the frame carries none.
+     */
+    private final int schemaVersion;
+
+    /**
+     * The time the frame was sent at in milliseconds or -1 if it carries no timestamp.
+     */
+    private final long timestamp;
+
+    /**
+     * The index of the first byte of the body.
+     */
+    private final int bodyOffset;
+
+    /**
+     * The length of the body as sent, which is the compressed length for compressed frames.
+     */
+    private final int bodyLength;
+
+    /**
+     * Checks whether or not the specified flag is set.
+     * @param flag The flag
+     * @return Whether or not the flag is set
+     */
+    public boolean hasFlag( int flag ) {
+        return ( this.flags & flag ) != 0;
+    }
+
+    /**
+     * Checks whether or not the body of this frame is compressed.
+     * @return Whether or not the body is compressed
+     */
+    public boolean isCompressed() {
+        return hasFlag( FrameCodec.FLAG_COMPRESSED );
+    }
+
+    /**
+     * Checks whether or not this frame is a fragment of a larger frame.
+     * @return Whether or not this frame is a fragment
+     */
+    public boolean isFragment() {
+        return hasFlag( FrameCodec.FLAG_FRAGMENT );
+    }
+
+    /**
+     * Checks whether or not this frame contains several other frames.
+     * @return Whether or not this frame is a batch
+     */
+    public boolean isBatch() {
+        return hasFlag( FrameCodec.FLAG_BATCH );
+    }
+
+    /**
+     * Checks whether or not the type id of this frame was negotiated with
+     * the proxy or is the hash code of the name of the type.
+     * @return Whether or not the type id is negotiated
+     */
+    public boolean hasNegotiatedTypeId() {
+        return hasFlag( FrameCodec.FLAG_NEGOTIATED_TYPE_ID );
+    }
+
+    /**
+     * Checks whether or not this frame was sent before the specified time.
+     * Frames without timestamp never expire.
+     * @param maxAge The maximum age in milliseconds
+     * @param now The current time in milliseconds
+     * @return Whether or not this frame is expired
+     */
+    public boolean isExpired( long maxAge, long now ) {
+        return this.timestamp >= 0 && now - this.timestamp > maxAge;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.frame;
+
+import net.tmxx.messaginglib.core.io.MessageBuffer;
+import net.tmxx.messaginglib.core.message.PluginMessage;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>The frames of a plugin message sent to many recipients. The message
+ * is written once when its frames are needed for the first time, and all
+ * recipients share the same frames. As recipients may or may not know the
+ * negotiated type id of the message, at most two sets of frames are made:
+ * one using the negotiated type id and one using the hash code of the name
+ * of the type.</p>
+ *
+ * <p>The returned arrays are shared and must not be modified.</p>
+ */
+public class SharedFrames {
+    /**
+     * The codec wrapping the message into frames.
+     */
+    private final FrameCodec frameCodec;
+
+    /**
+     * The message to send.
+     */
+    private final PluginMessage pluginMessage;
+
+    /**
+     * The buffer the message was written to or null if it was not written yet.
+     */
+    private MessageBuffer body;
+
+    /**
+     * The frames using the hash code of the name of the type or null if not made yet.
+     */
+    private byte[][] frames;
+
+    /**
+     * The frames using the negotiated type id or null if not made yet.
+     */
+    private byte[][] negotiatedFrames;
+
+    /**
+     * Constructs new shared frames.
+     * @param frameCodec The codec wrapping the message into frames
+     * @param pluginMessage The message to send
+     */
+    public SharedFrames( FrameCodec frameCodec, PluginMessage pluginMessage ) {
+        this.frameCodec = frameCodec;
+        this.pluginMessage = pluginMessage;
+    }
+
+    /**
+     * Gets the frames of the message for a recipient.
+     * @param negotiatedTypeId The negotiated type id the recipient knows or -1 if it knows none
+     * @return The bytes of the frames to send in order
+     */
+    public synchronized byte[][] getFrames( int negotiatedTypeId ) {
+        boolean negotiated = negotiatedTypeId >= 0;
+        byte[][] frames = negotiated ? this.negotiatedFrames : this.frames;
+        if ( frames != null ) {
+            return frames;
+        }
+
+        if ( this.body == null ) {
+            this.body = new MessageBuffer( this.pluginMessage.getSizeHint() );
+            this.pluginMessage.write( this.body );
+        }
+
+        int typeId = negotiated ? negotiatedTypeId : this.pluginMessage.getClass().getName().hashCode();
+        frames = this.frameCodec.encodeFrames( typeId, negotiated, this.pluginMessage.getSchemaVersion(), this.body );
+        if ( negotiated ) {
+            this.negotiatedFrames = frames;
+        } else {
+            this.frames = frames;
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,435 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.io;
+
+import java.io.DataOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>A growable byte buffer messages are written to before being sent.
+ * Every thread owns one pooled buffer which is handed out by
+ * {@link #acquire(int)} and has to be given back using {@link #release()},
+ * so sending a message does not allocate a new stream and backing array
+ * every time.</p>
+ *
+ * <p>The buffer is an {@link java.io.OutputStream} as well, messages still
+ * writing to a {@link java.io.DataOutputStream} get a view on this buffer
+ * using {@link #getDataOutputStream()}.</p>
+ */
+public class MessageBuffer extends OutputStream {
+    /**
+     * The capacity new buffers start with.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Pooled buffers grown above this capacity are shrunk
+     * on release so a single huge message does not pin
+     * its backing array forever.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    /**
+     * The pooled buffer of every thread.
+     */
+    private static final ThreadLocal<MessageBuffer> POOL = new ThreadLocal<MessageBuffer>() {
+        @Override
+        protected MessageBuffer initialValue() {
+            return new MessageBuffer( DEFAULT_CAPACITY, true );
+        }
+    };
+
+    /**
+     * Whether or not this buffer belongs to the pool.
+     */
+    private final boolean pooled;
+
+    /**
+     * The view used by messages writing to a data output stream.
+     */
+    private final DataOutputStream dataOutputStream = new DataOutputStream( this );
+
+    /**
+     * The backing array.
+     */
+    private byte[] data;
+
+    /**
+     * The amount of bytes written.
+     */
+    private int position;
+
+    /**
+     * Whether or not the pooled buffer is currently in use.
+     */
+    private boolean acquired;
+
+    /**
+     * Constructs a new buffer not belonging to the pool.
+     * @param capacity The initial capacity
+     */
+    public MessageBuffer( int capacity ) {
+        this( capacity, false );
+    }
+
+    /**
+     * Constructs a new buffer.
+     * @param capacity The initial capacity
+     * @param pooled Whether or not the buffer belongs to the pool
+     */
+    private MessageBuffer( int capacity, boolean pooled ) {
+        this.data = new byte[ Math.max( capacity, 16 ) ];
+        this.pooled = pooled;
+    }
+
+    /**
+     * Acquires the pooled buffer of the current thread. When the pooled
+     * buffer is already in use, e.g. because a message is written while
+     * writing another one, a new buffer is returned instead.
+     * @param sizeHint The expected size of the content
+     * @return An empty buffer with at least the hinted capacity
+     */
+    public static MessageBuffer acquire( int sizeHint ) {
+        MessageBuffer buffer = POOL.get();
+        if ( buffer.acquired ) {
+            return new MessageBuffer( sizeHint );
+        }
+
+        buffer.acquired = true;
+        buffer.position = 0;
+        buffer.ensureCapacity( sizeHint );
+        return buffer;
+    }
+
+    /**
+     * Gives this buffer back to the pool. The content of the
+     * buffer must not be used after releasing it.
+     */
+    public void release() {
+        if ( this.pooled ) {
+            this.acquired = false;
+            this.position = 0;
+            if ( this.data.length > MAX_RETAINED_CAPACITY ) {
+                this.data = new byte[ DEFAULT_CAPACITY ];
+            }
+        }
+    }
+
+    /**
+     * Ensures that the specified amount of bytes can be
+     * written without growing the backing array.
+     * @param length The amount of bytes to write
+     */
+    public void ensureWritable( int length ) {
+        ensureCapacity( this.position + length );
+    }
+
+    /**
+     * Grows the backing array to at least the specified capacity.
+     * @param capacity The capacity needed
+     */
+    private void ensureCapacity( int capacity ) {
+        if ( capacity > this.data.length ) {
+            this.data = Arrays.copyOf( this.data, Math.max( capacity, this.data.length << 1 ) );
+        }
+    }
+
+    @Override
+    public void write( int value ) {
+        ensureCapacity( this.position + 1 );
+        this.data[ this.position++ ] = (byte) value;
+    }
+
+    @Override
+    public void write( byte[] bytes, int offset, int length ) {
+        ensureCapacity( this.position + length );
+        System.arraycopy( bytes, offset, this.data, this.position, length );
+        this.position += length;
+    }
+
+    /**
+     * Writes all specified bytes.
+     * @param bytes The bytes to write
+     */
+    public void writeBytes( byte[] bytes ) {
+        write( bytes, 0, bytes.length );
+    }
+
+    /**
+     * Writes a byte.
+     * @param value The byte to write
+     */
+    public void writeByte( int value ) {
+        write( value );
+    }
+
+    /**
+     * Writes a boolean as a single byte.
+     * @param value The boolean to write
+     */
+    public void writeBoolean( boolean value ) {
+        write( value ? 1 : 0 );
+    }
+
+    /**
+     * Writes a big endian short.
+     * @param value The short to write
+     */
+    public void writeShort( int value ) {
+        ensureCapacity( this.position + 2 );
+        this.data[ this.position ] = (byte) ( value >>> 8 );
+        this.data[ this.position + 1 ] = (byte) value;
+        this.position += 2;
+    }
+
+    /**
+     * Writes a big endian integer.
+     * @param value The integer to write
+     */
+    public void writeInt( int value ) {
+        ensureCapacity( this.position + 4 );
+        this.data[ this.position ] = (byte) ( value >>> 24 );
+        this.data[ this.position + 1 ] = (byte) ( value >>> 16 );
+        this.data[ this.position + 2 ] = (byte) ( value >>> 8 );
+        this.data[ this.position + 3 ] = (byte) value;
+        this.position += 4;
+    }
+
+    /**
+     * Writes a big endian long.
+     * @param value The long to write
+     */
+    public void writeLong( long value ) {
+        ensureCapacity( this.position + 8 );
+        for ( int shift = 56; shift >= 0; shift -= 8 ) {
+            this.data[ this.position++ ] = (byte) ( value >>> shift );
+        }
+    }
+
+    /**
+     * Writes a float using its integer bits.
+     * @param value The float to write
+     */
+    public void writeFloat( float value ) {
+        writeInt( Float.floatToIntBits( value ) );
+    }
+
+    /**
+     * Writes a double using its long bits.
+     * @param value The double to write
+     */
+    public void writeDouble( double value ) {
+        writeLong( Double.doubleToLongBits( value ) );
+    }
+
+    /**
+     * Writes big endian integers out of the array. Capacity is ensured
+     * once for all values.
+     * @param values The array containing the integers
+     * @param offset The index of the first integer
+     * @param length The amount of integers to write
+     */
+    public void writeInts( int[] values, int offset, int length ) {
+        ensureCapacity( this.position + length * 4 );
+        byte[] data = this.data;
+        int position = this.position;
+        for ( int i = offset, end = offset + length; i < end; i++ ) {
+            int value = values[ i ];
+            data[ position ] = (byte) ( value >>> 24 );
+            data[ position + 1 ] = (byte) ( value >>> 16 );
+            data[ position + 2 ] = (byte) ( value >>> 8 );
+            data[ position + 3 ] = (byte) value;
+            position += 4;
+        }
+        this.position = position;
+    }
+
+    /**
+     * Writes big endian longs out of the array. Capacity is ensured
+     * once for all values.
+     * @param values The array containing the longs
+     * @param offset The index of the first long
+     * @param length The amount of longs to write
+     */
+    public void writeLongs( long[] values, int offset, int length ) {
+        ensureCapacity( this.position + length * 8 );
+        byte[] data = this.data;
+        int position = this.position;
+        for ( int i = offset, end = offset + length; i < end; i++ ) {
+            long value = values[ i ];
+            for ( int shift = 56; shift >= 0; shift -= 8 ) {
+                data[ position++ ] = (byte) ( value >>> shift );
+            }
+        }
+        this.position = position;
+    }
+
+    /**
+     * Writes floats using their integer bits out of the array.
+     * @param values The array containing the floats
+     * @param offset The index of the first float
+     * @param length The amount of floats to write
+     */
+    public void writeFloats( float[] values, int offset, int length ) {
+        ensureCapacity( this.position + length * 4 );
+        byte[] data = this.data;
+        int position = this.position;
+        for ( int i = offset, end = offset + length; i < end; i++ ) {
+            int value = Float.floatToIntBits( values[ i ] );
+            data[ position ] = (byte) ( value >>> 24 );
+            data[ position + 1 ] = (byte) ( value >>> 16 );
+            data[ position + 2 ] = (byte) ( value >>> 8 );
+            data[ position + 3 ] = (byte) value;
+            position += 4;
+        }
+        this.position = position;
+    }
+
+    /**
+     * Writes doubles using their long bits out of the array.
+     * @param values The array containing the doubles
+     * @param offset The index of the first double
+     * @param length The amount of doubles to write
+     */
+    public void writeDoubles( double[] values, int offset, int length ) {
+        ensureCapacity( this.position + length * 8 );
+        byte[] data = this.data;
+        int position = this.position;
+        for ( int i = offset, end = offset + length; i < end; i++ ) {
+            long value = Double.doubleToLongBits( values[ i ] );
+            for ( int shift = 56; shift >= 0; shift -= 8 ) {
+                data[ position++ ] = (byte) ( value >>> shift );
+            }
+        }
+        this.position = position;
+    }
+
+    /**
+     * Reserves a single byte for the length of the content written next.
+     * The length is filled in by {@link #writeReservedLength(int)}.
+     * @return The index of the reserved byte
+     */
+    public int reserveLength() {
+        ensureCapacity( this.position + 1 );
+        this.data[ this.position ] = 0;
+        return this.position++;
+    }
+
+    /**
+     * Writes the amount of bytes written after the reserved byte into it as
+     * variable length integer. Content of 128 bytes or more is moved back
+     * to make room for the longer integer.
+     * @param offset The index of the reserved byte
+     */
+    public void writeReservedLength( int offset ) {
+        int length = this.position - offset - 1;
+        int size = VarInts.getVarIntSize( length );
+        if ( size > 1 ) {
+            ensureCapacity( this.position + size - 1 );
+            System.arraycopy( this.data, offset + 1, this.data, offset + size, length );
+            this.position += size - 1;
+        }
+        VarInts.writeVarInt( this.data, offset, length );
+    }
+
+    /**
+     * Writes an unsigned LEB128 variable length integer.
+     * @param value The integer to write
+     * @see VarInts
+     */
+    public void writeVarInt( int value ) {
+        ensureCapacity( this.position + VarInts.MAX_VAR_INT_SIZE );
+        while ( ( value & ~0x7F ) != 0 ) {
+            this.data[ this.position++ ] = (byte) ( ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        this.data[ this.position++ ] = (byte) value;
+    }
+
+    /**
+     * Writes an unsigned LEB128 variable length long.
+     * @param value The long to write
+     * @see VarInts
+     */
+    public void writeVarLong( long value ) {
+        ensureCapacity( this.position + VarInts.MAX_VAR_LONG_SIZE );
+        while ( ( value & ~0x7FL ) != 0 ) {
+            this.data[ this.position++ ] = (byte) ( ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        this.data[ this.position++ ] = (byte) value;
+    }
+
+    /**
+     * Writes a UTF-8 string prefixed with its length in bytes as variable
+     * length integer. The string is encoded straight into the backing array.
+     * @param value The string to write
+     * @see StringCodec
+     */
+    public void writeString( String value ) {
+        int encodedLength = StringCodec.getEncodedLength( value );
+        writeVarInt( encodedLength );
+        ensureCapacity( this.position + encodedLength );
+        StringCodec.encode( value, encodedLength, this.data, this.position );
+        this.position += encodedLength;
+    }
+
+    /**
+     * Gets a data output stream writing to this buffer.
+     * The stream is created once per buffer and reused.
+     * @return The data output stream
+     */
+    public DataOutputStream getDataOutputStream() {
+        return this.dataOutputStream;
+    }
+
+    /**
+     * Gets the backing array. Only the first {@link #size()} bytes are valid.
+     * @return The backing array
+     */
+    public byte[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Gets the amount of bytes written.
+     * @return The amount of bytes written
+     */
+    public int size() {
+        return this.position;
+    }
+
+    /**
+     * Discards everything written so far.
+     */
+    public void reset() {
+        this.position = 0;
+    }
+
+    /**
+     * Copies the written bytes into a new array of the exact size.
+     * This is the only copy made when sending a message.
+     * @return The written bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf( this.data, this.position );
+    }
+}
@@ -0,0 +1,534 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.io;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Reads primitives straight out of a received byte array using a cursor.
+ * Instead of throwing an exception when a message is shorter than expected,
+ * every read checks the remaining bytes first. Reading past the end marks
+ * the reader as truncated and returns the same fallback values the
+ * {@link net.tmxx.messaginglib.core.message.PluginMessage} helpers return,
+ * so malformed messages can be dropped by checking {@link #isTruncated()}.</p>
+ */
+public class MessageReader {
+    /**
+     * The largest length prefix accepted when reading from a stream, which
+     * is the size of the largest frame body. Streams cannot tell how many
+     * bytes are left, so larger prefixes are rejected before allocating.
+     */
+    public static final int MAX_LENGTH = 2 * 1024 * 1024;
+
+    /**
+     * The array we read from.
+     */
+    private final byte[] data;
+
+    /**
+     * The index after the last readable byte.
+     */
+    private final int limit;
+
+    /**
+     * The index of the next byte to read.
+     */
+    private int position;
+
+    /**
+     * Whether or not somebody tried to read past the end.
+     */
+    private boolean truncated;
+
+    /**
+     * The view used by messages reading from a data input stream.
+     */
+    private DataInputStream dataInputStream;
+
+    /**
+     * The schema version of the message as sent by the other side.
+     */
+    private int schemaVersion;
+
+    /**
+     * Constructs a new reader reading the whole array.
+     * @param data The array to read from
+     */
+    public MessageReader( byte[] data ) {
+        this( data, 0, data.length );
+    }
+
+    /**
+     * Constructs a new reader reading a part of the array.
+     * @param data The array to read from
+     * @param offset The index of the first byte to read
+     * @param length The amount of readable bytes
+     */
+    public MessageReader( byte[] data, int offset, int length ) {
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Gets the amount of bytes which can still be read.
+     * @return The remaining bytes
+     */
+    public int remaining() {
+        return this.limit - this.position;
+    }
+
+    /**
+     * Checks whether or not the specified amount of bytes can still be read.
+     * @param length The amount of bytes
+     * @return Whether or not the bytes can be read
+     */
+    public boolean isReadable( int length ) {
+        return length >= 0 && this.limit - this.position >= length;
+    }
+
+    /**
+     * Checks whether or not somebody tried to read more bytes than available.
+     * @return Whether or not the read data is truncated
+     */
+    public boolean isTruncated() {
+        return this.truncated;
+    }
+
+    /**
+     * Gets the index of the next byte to read.
+     * @return The current position
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Gets the array this reader reads from.
+     * @return The backing array
+     */
+    public byte[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Gets the schema version of the message as sent by the other side. Messages
+     * reading on their own may use it to handle older versions of themselves.
+     * @return The schema version or 0 if the frame did not carry one
+     */
+    public int getSchemaVersion() {
+        return this.schemaVersion;
+    }
+
+    /**
+     * Sets the schema version of the message as sent by the other side.
+     * @param schemaVersion The schema version
+     */
+    public void setSchemaVersion( int schemaVersion ) {
+        this.schemaVersion = schemaVersion;
+    }
+
+    /**
+     * Checks whether the specified amount of bytes can be read and marks
+     * the reader as truncated otherwise.
+     * @param length The amount of bytes to read
+     * @return Whether or not the bytes can be read
+     */
+    private boolean require( long length ) {
+        if ( length >= 0 && this.limit - this.position >= length ) {
+            return true;
+        }
+
+        markTruncated();
+        return false;
+    }
+
+    /**
+     * Marks the reader as truncated and skips all remaining bytes. This is
+     * used for malformed data as well, e.g. variable length integers which
+     * are too long.
+     */
+    public void markTruncated() {
+        this.truncated = true;
+        this.position = this.limit;
+    }
+
+    /**
+     * Skips the specified amount of bytes.
+     * @param length The amount of bytes to skip
+     */
+    public void skip( int length ) {
+        if ( require( length ) ) {
+            this.position += length;
+        }
+    }
+
+    /**
+     * Reads the specified amount of bytes as separate reader sharing the
+     * backing array. Reading past the end of the slice does not affect
+     * this reader.
+     * @param length The amount of bytes
+     * @return The reader of the bytes or null if the reader is exhausted
+     */
+    public MessageReader readSlice( int length ) {
+        if ( !require( length ) ) {
+            return null;
+        }
+
+        MessageReader slice = new MessageReader( this.data, this.position, length );
+        slice.schemaVersion = this.schemaVersion;
+        this.position += length;
+        return slice;
+    }
+
+    /**
+     * Reads a byte.
+     * @return The byte or -1 if the reader is exhausted
+     */
+    public byte readByte() {
+        return require( 1 ) ? this.data[ this.position++ ] : -1;
+    }
+
+    /**
+     * Reads an unsigned byte.
+     * @return The byte or -1 if the reader is exhausted
+     */
+    public int readUnsignedByte() {
+        return require( 1 ) ? this.data[ this.position++ ] & 0xFF : -1;
+    }
+
+    /**
+     * Reads a boolean stored as single byte.
+     * @return The boolean or false if the reader is exhausted
+     */
+    public boolean readBoolean() {
+        return require( 1 ) && this.data[ this.position++ ] != 0;
+    }
+
+    /**
+     * Reads a big endian short.
+     * @return The short or -1 if the reader is exhausted
+     */
+    public short readShort() {
+        if ( !require( 2 ) ) {
+            return -1;
+        }
+
+        int value = ( this.data[ this.position ] & 0xFF ) << 8 | this.data[ this.position + 1 ] & 0xFF;
+        this.position += 2;
+        return (short) value;
+    }
+
+    /**
+     * Reads a big endian integer.
+     * @return The integer or -1 if the reader is exhausted
+     */
+    public int readInt() {
+        if ( !require( 4 ) ) {
+            return -1;
+        }
+
+        int value = ( this.data[ this.position ] & 0xFF ) << 24
+                | ( this.data[ this.position + 1 ] & 0xFF ) << 16
+                | ( this.data[ this.position + 2 ] & 0xFF ) << 8
+                | this.data[ this.position + 3 ] & 0xFF;
+        this.position += 4;
+        return value;
+    }
+
+    /**
+     * Reads a big endian long.
+     * @return The long or -1 if the reader is exhausted
+     */
+    public long readLong() {
+        if ( !require( 8 ) ) {
+            return -1;
+        }
+
+        long value = 0;
+        for ( int i = 0; i < 8; i++ ) {
+            value = value << 8 | this.data[ this.position++ ] & 0xFF;
+        }
+        return value;
+    }
+
+    /**
+     * Reads a float stored as its integer bits.
+     * @return The float or -1 if the reader is exhausted
+     */
+    public float readFloat() {
+        return isReadable( 4 ) ? Float.intBitsToFloat( readInt() ) : readInt();
+    }
+
+    /**
+     * Reads a double stored as its long bits.
+     * @return The double or -1 if the reader is exhausted
+     */
+    public double readDouble() {
+        return isReadable( 8 ) ? Double.longBitsToDouble( readLong() ) : readLong();
+    }
+
+    /**
+     * Reads big endian integers into the array. The remaining
+     * bytes are checked once for all values.
+     * @param values The array to read the integers into
+     * @param offset The index of the first integer
+     * @param length The amount of integers to read
+     * @return Whether or not the integers were read
+     */
+    public boolean readInts( int[] values, int offset, int length ) {
+        if ( !require( (long) length * 4 ) ) {
+            return false;
+        }
+
+        byte[] data = this.data;
+        int position = this.position;
+        for ( int i = offset, end = offset + length; i < end; i++ ) {
+            values[ i ] = ( data[ position ] & 0xFF ) << 24
+                    | ( data[ position + 1 ] & 0xFF ) << 16
+                    | ( data[ position + 2 ] & 0xFF ) << 8
+                    | data[ position + 3 ] & 0xFF;
+            position += 4;
+        }
+        this.position = position;
+        return true;
+    }
+
+    /**
+     * Reads big endian longs into the array. The remaining
+     * bytes are checked once for all values.
+     * @param values The array to read the longs into
+     * @param offset The index of the first long
+     * @param length The amount of longs to read
+     * @return Whether or not the longs were read
+     */
+    public boolean readLongs( long[] values, int offset, int length ) {
+        if ( !require( (long) length * 8 ) ) {
+            return false;
+        }
+
+        byte[] data = this.data;
+        int position = this.position;
+        for ( int i = offset, end = offset + length; i < end; i++ ) {
+            long value = 0;
+            for ( int j = 0; j < 8; j++ ) {
+                value = value << 8 | data[ position++ ] & 0xFF;
+            }
+            values[ i ] = value;
+        }
+        this.position = position;
+        return true;
+    }
+
+    /**
+     * Reads floats stored as their integer bits into the array.
+     * @param values The array to read the floats into
+     * @param offset The index of the first float
+     * @param length The amount of floats to read
+     * @return Whether or not the floats were read
+     */
+    public boolean readFloats( float[] values, int offset, int length ) {
+        if ( !require( (long) length * 4 ) ) {
+            return false;
+        }
+
+        byte[] data = this.data;
+        int position = this.position;
+        for ( int i = offset, end = offset + length; i < end; i++ ) {
+            values[ i ] = Float.intBitsToFloat( ( data[ position ] & 0xFF ) << 24
+                    | ( data[ position + 1 ] & 0xFF ) << 16
+                    | ( data[ position + 2 ] & 0xFF ) << 8
+                    | data[ position + 3 ] & 0xFF );
+            position += 4;
+        }
+        this.position = position;
+        return true;
+    }
+
+    /**
+     * Reads doubles stored as their long bits into the array.
+     * @param values The array to read the doubles into
+     * @param offset The index of the first double
+     * @param length The amount of doubles to read
+     * @return Whether or not the doubles were read
+     */
+    public boolean readDoubles( double[] values, int offset, int length ) {
+        if ( !require( (long) length * 8 ) ) {
+            return false;
+        }
+
+        byte[] data = this.data;
+        int position = this.position;
+        for ( int i = offset, end = offset + length; i < end; i++ ) {
+            long value = 0;
+            for ( int j = 0; j < 8; j++ ) {
+                value = value << 8 | data[ position++ ] & 0xFF;
+            }
+            values[ i ] = Double.longBitsToDouble( value );
+        }
+        this.position = position;
+        return true;
+    }
+
+    /**
+     * Reads an unsigned LEB128 variable length integer. Values longer than
+     * five bytes are treated like a truncated message.
+     * @return The integer or -1 if the reader is exhausted
+     * @see VarInts
+     */
+    public int readVarInt() {
+        int value = 0;
+        for ( int shift = 0; shift < 7 * VarInts.MAX_VAR_INT_SIZE; shift += 7 ) {
+            if ( !require( 1 ) ) {
+                return -1;
+            }
+
+            byte current = this.data[ this.position++ ];
+            value |= ( current & 0x7F ) << shift;
+            if ( current >= 0 ) {
+                return value;
+            }
+        }
+
+        markTruncated();
+        return -1;
+    }
+
+    /**
+     * Reads an unsigned LEB128 variable length long. Values longer than
+     * ten bytes are treated like a truncated message.
+     * @return The long or -1 if the reader is exhausted
+     * @see VarInts
+     */
+    public long readVarLong() {
+        long value = 0;
+        for ( int shift = 0; shift < 7 * VarInts.MAX_VAR_LONG_SIZE; shift += 7 ) {
+            if ( !require( 1 ) ) {
+                return -1;
+            }
+
+            byte current = this.data[ this.position++ ];
+            value |= (long) ( current & 0x7F ) << shift;
+            if ( current >= 0 ) {
+                return value;
+            }
+        }
+
+        markTruncated();
+        return -1;
+    }
+
+    /**
+     * Reads the specified amount of bytes into a new array.
+     * @param length The amount of bytes to read
+     * @return The bytes or null if the reader is exhausted
+     */
+    public byte[] readBytes( int length ) {
+        if ( !require( length ) ) {
+            return null;
+        }
+
+        byte[] bytes = Arrays.copyOfRange( this.data, this.position, this.position + length );
+        this.position += length;
+        return bytes;
+    }
+
+    /**
+     * Reads a UTF-8 string prefixed with its length in bytes as variable
+     * length integer. The length is checked against the remaining bytes
+     * before anything is allocated.
+     * @return The string or null if the reader is exhausted
+     * @see StringCodec
+     */
+    public String readString() {
+        int length = readVarInt();
+        if ( this.truncated || !require( length ) ) {
+            return null;
+        }
+
+        String value = StringCodec.decode( this.data, this.position, length );
+        this.position += length;
+        return value;
+    }
+
+    /**
+     * Reads a string as written by {@link java.io.DataOutputStream#writeUTF(String)}.
+     * The string is decoded as standard UTF-8 which equals the modified encoding
+     * for all strings without null or supplementary characters, like channel names.
+     * @return The string or null if the reader is exhausted
+     */
+    public String readUTF() {
+        int length = readShort() & 0xFFFF;
+        if ( this.truncated || !require( length ) ) {
+            return null;
+        }
+
+        String value = new String( this.data, this.position, length, StandardCharsets.UTF_8 );
+        this.position += length;
+        return value;
+    }
+
+    /**
+     * Gets a data input stream reading from this reader. Bytes read
+     * from the stream advance this reader as well. The stream is
+     * created once per reader and reused. Reading past the end behaves
+     * like any other stream and does not mark this reader as truncated,
+     * so messages relying on their default values for missing trailing
+     * fields keep working.
+     * @return The data input stream
+     */
+    public DataInputStream getDataInputStream() {
+        if ( this.dataInputStream == null ) {
+            this.dataInputStream = new DataInputStream( new InputStream() {
+                @Override
+                public int read() {
+                    if ( remaining() <= 0 ) {
+                        return -1;
+                    }
+                    return MessageReader.this.data[ MessageReader.this.position++ ] & 0xFF;
+                }
+
+                @Override
+                public int read( byte[] bytes, int offset, int length ) {
+                    if ( length == 0 ) {
+                        return 0;
+                    }
+                    if ( remaining() <= 0 ) {
+                        return -1;
+                    }
+
+                    int count = Math.min( length, remaining() );
+                    System.arraycopy( MessageReader.this.data, MessageReader.this.position, bytes, offset, count );
+                    MessageReader.this.position += count;
+                    return count;
+                }
+
+                @Override
+                public int available() {
+                    return remaining();
+                }
+            } );
+        }
+        return this.dataInputStream;
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.io;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Encodes and decodes UTF-8 strings without going through a
+ * {@link java.nio.charset.CharsetEncoder}. Strings are prefixed with
+ * their length in bytes as variable length integer. Pure ASCII strings,
+ * like most player and server names, are copied char by char and
+ * decoded using the single byte charset fast path of the JDK.</p>
+ */
+@NoArgsConstructor( access = AccessLevel.PRIVATE )
+public final class StringCodec {
+    /**
+     * Scratch arrays grown above this size are not kept.
+     */
+    private static final int MAX_RETAINED_SCRATCH = 64 * 1024;
+
+    /**
+     * The scratch array of every thread used when encoding to or
+     * decoding from streams.
+     */
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[ 256 ];
+        }
+    };
+
+    /**
+     * Gets the amount of bytes the string takes when encoded as UTF-8.
+     * Unpaired surrogates are replaced by a question mark just like
+     * {@link String#getBytes(java.nio.charset.Charset)} does.
+     * @param value The string
+     * @return The amount of bytes
+     */
+    public static int getEncodedLength( String value ) {
+        int length = value.length();
+        int encoded = length;
+        for ( int i = 0; i < length; i++ ) {
+            char current = value.charAt( i );
+            if ( current >= 0x80 ) {
+                if ( current < 0x800 ) {
+                    encoded += 1;
+                } else if ( Character.isHighSurrogate( current ) && i + 1 < length && Character.isLowSurrogate( value.charAt( i + 1 ) ) ) {
+                    // Four bytes for two chars
+                    encoded += 2;
+                    i++;
+                } else if ( !Character.isSurrogate( current ) ) {
+                    encoded += 2;
+                }
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Encodes the string as UTF-8 into the specified array. The
+     * array must have room for {@link #getEncodedLength(String)} bytes.
+     * @param value The string to encode
+     * @param encodedLength The encoded length of the string
+     * @param destination The array to encode the string into
+     * @param offset The index to start at
+     */
+    public static void encode( String value, int encodedLength, byte[] destination, int offset ) {
+        int length = value.length();
+        if ( encodedLength == length ) {
+            // ASCII only, apart from unpaired surrogates which are replaced as well
+            for ( int i = 0; i < length; i++ ) {
+                char current = value.charAt( i );
+                destination[ offset + i ] = current < 0x80 ? (byte) current : (byte) '?';
+            }
+            return;
+        }
+
+        for ( int i = 0; i < length; i++ ) {
+            char current = value.charAt( i );
+            if ( current < 0x80 ) {
+                destination[ offset++ ] = (byte) current;
+            } else if ( current < 0x800 ) {
+                destination[ offset++ ] = (byte) ( 0xC0 | current >> 6 );
+                destination[ offset++ ] = (byte) ( 0x80 | current & 0x3F );
+            } else if ( Character.isSurrogate( current ) ) {
+                if ( Character.isHighSurrogate( current ) && i + 1 < length && Character.isLowSurrogate( value.charAt( i + 1 ) ) ) {
+                    int codePoint = Character.toCodePoint( current, value.charAt( ++i ) );
+                    destination[ offset++ ] = (byte) ( 0xF0 | codePoint >> 18 );
+                    destination[ offset++ ] = (byte) ( 0x80 | codePoint >> 12 & 0x3F );
+                    destination[ offset++ ] = (byte) ( 0x80 | codePoint >> 6 & 0x3F );
+                    destination[ offset++ ] = (byte) ( 0x80 | codePoint & 0x3F );
+                } else {
+                    destination[ offset++ ] = '?';
+                }
+            } else {
+                destination[ offset++ ] = (byte) ( 0xE0 | current >> 12 );
+                destination[ offset++ ] = (byte) ( 0x80 | current >> 6 & 0x3F );
+                destination[ offset++ ] = (byte) ( 0x80 | current & 0x3F );
+            }
+        }
+    }
+
+    /**
+     * Decodes UTF-8 bytes into a string.
+     * @param data The array containing the bytes
+     * @param offset The index of the first byte
+     * @param length The amount of bytes
+     * @return The decoded string
+     */
+    public static String decode( byte[] data, int offset, int length ) {
+        for ( int i = offset, end = offset + length; i < end; i++ ) {
+            if ( data[ i ] < 0 ) {
+                return new String( data, offset, length, StandardCharsets.UTF_8 );
+            }
+        }
+        // ASCII only, ISO-8859-1 maps every byte to the same char
+        return new String( data, offset, length, StandardCharsets.ISO_8859_1 );
+    }
+
+    /**
+     * Writes a length prefixed UTF-8 string to the {@link java.io.DataOutput}
+     * using the scratch array of the current thread.
+     * @param output The output to write to
+     * @param value The string to write
+     * @throws IOException Thrown when an error occurs
+     */
+    public static void write( DataOutput output, String value ) throws IOException {
+        int encodedLength = getEncodedLength( value );
+        byte[] scratch = getScratch( encodedLength );
+        encode( value, encodedLength, scratch, 0 );
+        VarInts.writeVarInt( output, encodedLength );
+        output.write( scratch, 0, encodedLength );
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 string from the {@link java.io.DataInputStream}
+     * using the scratch array of the current thread. The length is checked
+     * against {@link MessageReader#MAX_LENGTH} before anything is read.
+     * @param inputStream The input stream to read from
+     * @return The string
+     * @throws IOException Thrown when an error occurs or the length is invalid
+     */
+    public static String read( DataInputStream inputStream ) throws IOException {
+        int length = VarInts.readVarInt( inputStream );
+        if ( length < 0 || length > MessageReader.MAX_LENGTH ) {
+            throw new IOException( "Invalid string length " + length );
+        }
+
+        byte[] scratch = getScratch( length );
+        inputStream.readFully( scratch, 0, length );
+        return decode( scratch, 0, length );
+    }
+
+    /**
+     * Gets the scratch array of the current thread with at least the specified size.
+     * @param size The size needed
+     * @return The scratch array
+     */
+    private static byte[] getScratch( int size ) {
+        byte[] scratch = SCRATCH.get();
+        if ( scratch.length < size ) {
+            scratch = new byte[ Math.max( size, scratch.length << 1 ) ];
+            if ( scratch.length <= MAX_RETAINED_SCRATCH ) {
+                SCRATCH.set( scratch );
+            }
+        }
+        return scratch;
+    }
+}
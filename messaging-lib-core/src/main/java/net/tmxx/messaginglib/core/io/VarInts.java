@@ -0,0 +1,171 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.io;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Helpers for the LEB128 variable length encoding. Every byte carries seven
+ * bits of the value, the highest bit tells whether another byte follows.
+ * Signed values are zigzag encoded first, so small negative numbers stay
+ * small as well: 0, -1, 1, -2 are mapped to 0, 1, 2, 3.</p>
+ */
+@NoArgsConstructor( access = AccessLevel.PRIVATE )
+public final class VarInts {
+    /**
+     * The maximum amount of bytes of a variable length integer.
+     */
+    public static final int MAX_VAR_INT_SIZE = 5;
+
+    /**
+     * The maximum amount of bytes of a variable length long.
+     */
+    public static final int MAX_VAR_LONG_SIZE = 10;
+
+    /**
+     * Maps a signed integer to an unsigned one using zigzag encoding.
+     * @param value The signed value
+     * @return The zigzag encoded value
+     */
+    public static int zigZag( int value ) {
+        return ( value << 1 ) ^ ( value >> 31 );
+    }
+
+    /**
+     * Maps a zigzag encoded integer back to the signed value.
+     * @param value The zigzag encoded value
+     * @return The signed value
+     */
+    public static int unZigZag( int value ) {
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+
+    /**
+     * Maps a signed long to an unsigned one using zigzag encoding.
+     * @param value The signed value
+     * @return The zigzag encoded value
+     */
+    public static long zigZag( long value ) {
+        return ( value << 1 ) ^ ( value >> 63 );
+    }
+
+    /**
+     * Maps a zigzag encoded long back to the signed value.
+     * @param value The zigzag encoded value
+     * @return The signed value
+     */
+    public static long unZigZag( long value ) {
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+
+    /**
+     * Gets the amount of bytes the specified value takes when written as variable length integer.
+     * @param value The value
+     * @return The amount of bytes
+     */
+    public static int getVarIntSize( int value ) {
+        return ( 31 - Integer.numberOfLeadingZeros( value | 1 ) ) / 7 + 1;
+    }
+
+    /**
+     * Writes a variable length integer to the {@link java.io.DataOutput}.
+     * @param output The output to write to
+     * @param value The value to write
+     * @throws IOException Thrown when an error occurs
+     */
+    public static void writeVarInt( DataOutput output, int value ) throws IOException {
+        while ( ( value & ~0x7F ) != 0 ) {
+            output.writeByte( ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        output.writeByte( value );
+    }
+
+    /**
+     * Writes a variable length integer into the array.
+     * @param destination The array to write to
+     * @param offset The index to start writing at
+     * @param value The value to write
+     * @return The index after the last written byte
+     */
+    public static int writeVarInt( byte[] destination, int offset, int value ) {
+        while ( ( value & ~0x7F ) != 0 ) {
+            destination[ offset++ ] = (byte) ( ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        destination[ offset++ ] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Writes a variable length long to the {@link java.io.DataOutput}.
+     * @param output The output to write to
+     * @param value The value to write
+     * @throws IOException Thrown when an error occurs
+     */
+    public static void writeVarLong( DataOutput output, long value ) throws IOException {
+        while ( ( value & ~0x7FL ) != 0 ) {
+            output.writeByte( (int) ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        output.writeByte( (int) value );
+    }
+
+    /**
+     * Reads a variable length integer from the {@link java.io.DataInput}.
+     * @param input The input to read from
+     * @return The value
+     * @throws IOException Thrown when an error occurs or the value is longer than five bytes
+     */
+    public static int readVarInt( DataInput input ) throws IOException {
+        int value = 0;
+        for ( int shift = 0; shift < 7 * MAX_VAR_INT_SIZE; shift += 7 ) {
+            byte current = input.readByte();
+            value |= ( current & 0x7F ) << shift;
+            if ( current >= 0 ) {
+                return value;
+            }
+        }
+        throw new IOException( "Variable length integer is too long" );
+    }
+
+    /**
+     * Reads a variable length long from the {@link java.io.DataInput}.
+     * @param input The input to read from
+     * @return The value
+     * @throws IOException Thrown when an error occurs or the value is longer than ten bytes
+     */
+    public static long readVarLong( DataInput input ) throws IOException {
+        long value = 0;
+        for ( int shift = 0; shift < 7 * MAX_VAR_LONG_SIZE; shift += 7 ) {
+            byte current = input.readByte();
+            value |= (long) ( current & 0x7F ) << shift;
+            if ( current >= 0 ) {
+                return value;
+            }
+        }
+        throw new IOException( "Variable length long is too long" );
+    }
+}
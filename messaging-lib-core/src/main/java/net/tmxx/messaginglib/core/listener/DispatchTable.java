@@ -0,0 +1,142 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.listener;
+
+import lombok.Getter;
+import net.tmxx.messaginglib.core.message.MessageRegistry;
+import net.tmxx.messaginglib.core.util.MethodContainer;
+
+import java.util.Arrays;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>The listeners of every registered plugin message type resolved by the
+ * local index of the type. A listener is resolved for a type if it accepts
+ * the type itself or one of its superclasses or interfaces, so generic
+ * listeners e.g. taking {@link net.tmxx.messaginglib.core.message.PluginMessage}
+ * receive every message. The listeners of a type keep their registration order.</p>
+ *
+ * <p>Tables are immutable and built once per version of the
+ * {@link MessageRegistry} and set of listeners, see
+ * {@link ListenerTable#getDispatchTable(MessageRegistry)}. Dispatching
+ * therefore never walks the type hierarchy itself.</p>
+ *
+ * @param <O> The type of the origin of the listeners
+ */
+public final class DispatchTable<O> {
+    /**
+     * Returned for message types nobody listens for.
+     */
+    private static final MethodContainer<?>[] NO_LISTENERS = new MethodContainer<?>[ 0 ];
+
+    /**
+     * The version of the registry the table was built for.
+     */
+    @Getter private final int registryVersion;
+
+    /**
+     * The listeners of every plugin message type by its local index.
+     */
+    private final MethodContainer<O>[][] pluginMessageListeners;
+
+    /**
+     * Whether or not none of the listeners of a plugin message retains
+     * it by the local index of its type.
+     */
+    private final boolean[] recyclablePluginMessages;
+
+    /**
+     * Builds the table of the specified listeners.
+     * @param registryVersion The version of the registry read before its types
+     * @param pluginMessageTypes The types of all registered plugin messages by local index
+     * @param methodContainers All plugin message listeners in registration order
+     */
+    @SuppressWarnings( "unchecked" )
+    DispatchTable( int registryVersion, Class<?>[] pluginMessageTypes, MethodContainer<O>[] methodContainers ) {
+        this.registryVersion = registryVersion;
+        this.pluginMessageListeners = (MethodContainer<O>[][]) new MethodContainer<?>[ pluginMessageTypes.length ][];
+        this.recyclablePluginMessages = new boolean[ pluginMessageTypes.length ];
+
+        MethodContainer<O>[] matching = newArray( methodContainers.length );
+        for ( int typeIndex = 0; typeIndex < pluginMessageTypes.length; typeIndex++ ) {
+            Class<?> type = pluginMessageTypes[ typeIndex ];
+            if ( type == null ) {
+                continue;
+            }
+
+            int count = 0;
+            boolean recyclable = true;
+            for ( MethodContainer<O> methodContainer : methodContainers ) {
+                if ( methodContainer.getMessageType().isAssignableFrom( type ) ) {
+                    matching[ count++ ] = methodContainer;
+                    recyclable &= !methodContainer.isRetaining();
+                }
+            }
+
+            if ( count > 0 ) {
+                this.pluginMessageListeners[ typeIndex ] = Arrays.copyOf( matching, count );
+                this.recyclablePluginMessages[ typeIndex ] = recyclable;
+            }
+        }
+    }
+
+    /**
+     * Gets the listeners of the plugin message type with the specified local index.
+     * @param typeIndex The local index of the type
+     * @return The listeners in registration order, which is empty if there are none
+     */
+    @SuppressWarnings( "unchecked" )
+    public MethodContainer<O>[] getPluginMessageListeners( int typeIndex ) {
+        if ( typeIndex < 0 || typeIndex >= this.pluginMessageListeners.length || this.pluginMessageListeners[ typeIndex ] == null ) {
+            return (MethodContainer<O>[]) NO_LISTENERS;
+        }
+        return this.pluginMessageListeners[ typeIndex ];
+    }
+
+    /**
+     * Creates an array of listeners.
+     * @param length The length of the array
+     * @param <O> The type of the origin of the listeners
+     * @return The array
+     */
+    @SuppressWarnings( "unchecked" )
+    private static <O> MethodContainer<O>[] newArray( int length ) {
+        return (MethodContainer<O>[]) new MethodContainer<?>[ length ];
+    }
+
+    /**
+     * Checks whether or not the plugin message type with the
+     * specified local index has at least one listener.
+     * @param typeIndex The local index of the type
+     * @return Whether or not the type has listeners
+     */
+    public boolean isSubscribed( int typeIndex ) {
+        return typeIndex >= 0 && typeIndex < this.pluginMessageListeners.length && this.pluginMessageListeners[ typeIndex ] != null;
+    }
+
+    /**
+     * Checks whether or not plugin messages of the type with the specified
+     * local index may be recycled, as none of their listeners retains them.
+     * @param typeIndex The local index of the type
+     * @return Whether or not the messages may be recycled
+     */
+    public boolean isRecyclable( int typeIndex ) {
+        return typeIndex >= 0 && typeIndex < this.recyclablePluginMessages.length && this.recyclablePluginMessages[ typeIndex ];
+    }
+}
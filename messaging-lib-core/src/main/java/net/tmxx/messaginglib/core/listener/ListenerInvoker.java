@@ -0,0 +1,36 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.listener;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Calls a single listener method. Invokers are created once when the
+ * listener is registered, see {@link ListenerInvokers#create(java.lang.reflect.Method)}.</p>
+ */
+@FunctionalInterface
+public interface ListenerInvoker {
+    /**
+     * Calls the listener method.
+     * @param messageListener The listener declaring the method
+     * @param message The message or lazy view of the message
+     * @param player The player the message was received through
+     * @throws Throwable Everything thrown by the listener method
+     */
+    void invoke( Object messageListener, Object message, Object player ) throws Throwable;
+}
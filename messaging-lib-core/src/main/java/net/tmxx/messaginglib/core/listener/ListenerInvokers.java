@@ -0,0 +1,87 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.listener;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import net.tmxx.messaginglib.core.exception.InvalidListenerException;
+import net.tmxx.messaginglib.core.util.Lookups;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Creates the invokers of listener methods. The method is bound to a
+ * {@link ListenerInvoker} generated by the {@link java.lang.invoke.LambdaMetafactory},
+ * which calls it as directly as handwritten code would. The lambda is defined
+ * with the private access of the class declaring the method, so it links against
+ * the class loader of the plugin and works for non-public methods as well.</p>
+ *
+ * <p>Static methods and runtimes which do not grant that access, e.g. Java 14
+ * and above for classes of another class loader, fall back to reflection.
+ * Exceptions thrown by the method are passed on unwrapped either way.</p>
+ */
+@NoArgsConstructor( access = AccessLevel.PRIVATE )
+public final class ListenerInvokers {
+    /**
+     * The type of {@link ListenerInvoker#invoke(Object, Object, Object)}.
+     */
+    private static final MethodType INVOKE_TYPE = MethodType.methodType( void.class, Object.class, Object.class, Object.class );
+
+    /**
+     * Creates the invoker of the specified listener method.
+     * @param method The method taking the message and the player
+     * @return The invoker
+     * @throws InvalidListenerException Thrown when the method is not accessible
+     */
+    public static ListenerInvoker create( Method method ) {
+        try {
+            method.setAccessible( true );
+        } catch ( RuntimeException e ) {
+            throw new InvalidListenerException( "Listener method is not accessible: " + method, e );
+        }
+
+        if ( !Modifier.isStatic( method.getModifiers() ) ) {
+            MethodHandles.Lookup lookup = Lookups.privateLookupIn( method.getDeclaringClass() );
+            if ( lookup != null ) {
+                try {
+                    MethodHandle handle = lookup.unreflect( method );
+                    return (ListenerInvoker) LambdaMetafactory.metafactory( lookup, "invoke", MethodType.methodType( ListenerInvoker.class ),
+                            INVOKE_TYPE, handle, handle.type().changeReturnType( void.class ) ).getTarget().invoke();
+                } catch ( Throwable ignored ) {
+                    // Fall back to reflection
+                }
+            }
+        }
+
+        return ( messageListener, message, player ) -> {
+            try {
+                method.invoke( messageListener, message, player );
+            } catch ( InvocationTargetException e ) {
+                throw e.getCause();
+            }
+        };
+    }
+}
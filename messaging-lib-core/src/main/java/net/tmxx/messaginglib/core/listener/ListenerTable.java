@@ -0,0 +1,395 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.listener;
+
+import net.tmxx.messaginglib.core.message.MessageRegistry;
+import net.tmxx.messaginglib.core.util.MethodContainer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>An immutable snapshot of all registered listener methods. Managers keep
+ * the current snapshot in a volatile field and replace it on every
+ * registration, so dispatching reads it without any locking and never
+ * observes a registration halfway done. Mutations return a new table and
+ * copy every map and array they change as a whole.</p>
+ *
+ * <p>Plugin message listeners are kept by the type they accept and resolved
+ * to the registered message types by the {@link DispatchTable}, which is
+ * cached until the listeners or the registered messages change.</p>
+ *
+ * <p>The methods of every listener and the listeners of every origin are
+ * indexed, so unregistering finds the registrations to remove without
+ * scanning all of them. It still copies the listener and origin index and,
+ * when removing BungeeCord message listeners, the sub channel maps, so
+ * registering and unregistering cost O(n) in the amount of registered
+ * listeners, origins and sub channels. This is fine as long as listeners
+ * are registered rarely compared to messages being dispatched.
+ * Sub channels, listeners and origins left without registrations are dropped.</p>
+ *
+ * <p>The arrays returned by this class are shared and must not be modified.</p>
+ *
+ * @param <O> The type of the origin of the listeners
+ */
+public final class ListenerTable<O> {
+    /**
+     * Returned for message types nobody listens for.
+     */
+    private static final MethodContainer<?>[] NO_LISTENERS = new MethodContainer<?>[ 0 ];
+
+    /**
+     * The table without any listeners.
+     */
+    private static final ListenerTable<?> EMPTY = new ListenerTable<Object>( Collections.emptyMap(), ListenerTable.<Object>emptyArray(),
+            Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap() );
+
+    /**
+     * Contains all BungeeCord message listeners by the sub channel of their message.
+     */
+    private final Map<String, MethodContainer<O>[]> bungeeCordMessageListeners;
+
+    /**
+     * Contains all plugin message listeners in registration order.
+     */
+    private final MethodContainer<O>[] pluginMessageListeners;
+
+    /**
+     * Contains the registered methods of every listener.
+     */
+    private final Map<MessageListener, MethodContainer<O>[]> listenerIndex;
+
+    /**
+     * Contains the listeners registered to every origin.
+     */
+    private final Map<O, MessageListener[]> originIndex;
+
+    /**
+     * Contains the sub channel of every BungeeCord message listener by identity.
+     */
+    private final Map<MethodContainer<O>, String> subChannelIndex;
+
+    /**
+     * The dispatch table last built for these listeners. This is only a
+     * cache, which is rebuilt if the registered messages changed.
+     */
+    private volatile DispatchTable<O> dispatchTable;
+
+    /**
+     * Constructs a new table.
+     * @param bungeeCordMessageListeners The BungeeCord message listeners by sub channel
+     * @param pluginMessageListeners The plugin message listeners in registration order
+     * @param listenerIndex The registered methods of every listener
+     * @param originIndex The listeners registered to every origin
+     * @param subChannelIndex The sub channel of every BungeeCord message listener
+     */
+    private ListenerTable( Map<String, MethodContainer<O>[]> bungeeCordMessageListeners, MethodContainer<O>[] pluginMessageListeners,
+                           Map<MessageListener, MethodContainer<O>[]> listenerIndex, Map<O, MessageListener[]> originIndex,
+                           Map<MethodContainer<O>, String> subChannelIndex ) {
+        this.bungeeCordMessageListeners = bungeeCordMessageListeners;
+        this.pluginMessageListeners = pluginMessageListeners;
+        this.listenerIndex = listenerIndex;
+        this.originIndex = originIndex;
+        this.subChannelIndex = subChannelIndex;
+    }
+
+    /**
+     * Gets the table without any listeners.
+     * @param <O> The type of the origin of the listeners
+     * @return The empty table
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <O> ListenerTable<O> empty() {
+        return (ListenerTable<O>) EMPTY;
+    }
+
+    /**
+     * Gets the listeners of the BungeeCord message with the specified sub channel.
+     * @param subChannel The sub channel of the message
+     * @return The listeners in registration order, which is empty if there are none
+     */
+    @SuppressWarnings( "unchecked" )
+    public MethodContainer<O>[] getBungeeCordMessageListeners( String subChannel ) {
+        MethodContainer<O>[] methodContainers = this.bungeeCordMessageListeners.get( subChannel );
+        return methodContainers != null ? methodContainers : (MethodContainer<O>[]) NO_LISTENERS;
+    }
+
+    /**
+     * Gets the plugin message listeners resolved for the messages currently
+     * registered at the specified registry. The table is only rebuilt if
+     * messages were registered or unregistered since it was built last.
+     * @param messageRegistry The registry
+     * @return The dispatch table
+     */
+    public DispatchTable<O> getDispatchTable( MessageRegistry messageRegistry ) {
+        DispatchTable<O> dispatchTable = this.dispatchTable;
+        int registryVersion = messageRegistry.getVersion();
+        if ( dispatchTable == null || dispatchTable.getRegistryVersion() != registryVersion ) {
+            // Concurrent rebuilds produce equal tables, so any of them may win
+            dispatchTable = new DispatchTable<>( registryVersion, messageRegistry.getPluginMessageTypes(), this.pluginMessageListeners );
+            this.dispatchTable = dispatchTable;
+        }
+        return dispatchTable;
+    }
+
+    /**
+     * Creates a table additionally containing the specified BungeeCord message listener.
+     * @param subChannel The sub channel of the message
+     * @param methodContainer The listener
+     * @return The new table
+     */
+    public ListenerTable<O> withBungeeCordMessageListener( String subChannel, MethodContainer<O> methodContainer ) {
+        Map<String, MethodContainer<O>[]> bungeeCordMessageListeners = new HashMap<>( this.bungeeCordMessageListeners );
+        bungeeCordMessageListeners.put( subChannel, append( getBungeeCordMessageListeners( subChannel ), methodContainer ) );
+        Map<MethodContainer<O>, String> subChannelIndex = new IdentityHashMap<>( this.subChannelIndex );
+        subChannelIndex.put( methodContainer, subChannel );
+        return new ListenerTable<>( bungeeCordMessageListeners, this.pluginMessageListeners, indexListener( methodContainer ),
+                indexOrigin( methodContainer ), subChannelIndex );
+    }
+
+    /**
+     * Creates a table additionally containing the specified plugin message listener.
+     * The listener receives all messages of its message type including subtypes.
+     * @param methodContainer The listener
+     * @return The new table
+     */
+    public ListenerTable<O> withPluginMessageListener( MethodContainer<O> methodContainer ) {
+        return new ListenerTable<>( this.bungeeCordMessageListeners, append( this.pluginMessageListeners, methodContainer ),
+                indexListener( methodContainer ), indexOrigin( methodContainer ), this.subChannelIndex );
+    }
+
+    /**
+     * Creates a table without the methods of the specified listener.
+     * @param messageListener The listener to remove
+     * @return The new table or this table if the listener was not registered
+     */
+    public ListenerTable<O> withoutListener( MessageListener messageListener ) {
+        MethodContainer<O>[] methodContainers = this.listenerIndex.get( messageListener );
+        return methodContainers != null ? without( methodContainers ) : this;
+    }
+
+    /**
+     * Creates a table without the listeners registered to the specified origin.
+     * @param origin The origin to remove the listeners of
+     * @return The new table or this table if the origin has no listeners
+     */
+    @SuppressWarnings( "unchecked" )
+    public ListenerTable<O> withoutOrigin( O origin ) {
+        MessageListener[] messageListeners = this.originIndex.get( origin );
+        if ( messageListeners == null ) {
+            return this;
+        }
+
+        MethodContainer<O>[] removed = (MethodContainer<O>[]) NO_LISTENERS;
+        for ( MessageListener messageListener : messageListeners ) {
+            for ( MethodContainer<O> methodContainer : this.listenerIndex.get( messageListener ) ) {
+                if ( methodContainer.getOrigin().equals( origin ) ) {
+                    removed = append( removed, methodContainer );
+                }
+            }
+        }
+        return without( removed );
+    }
+
+    /**
+     * Creates a table without the specified registrations. Only the buckets
+     * and index entries of the removed registrations are visited, but the
+     * maps changed are copied as a whole.
+     * @param removed The registrations to remove
+     * @return The new table
+     */
+    private ListenerTable<O> without( MethodContainer<O>[] removed ) {
+        Set<MethodContainer<O>> removedSet = Collections.newSetFromMap( new IdentityHashMap<>() );
+        Collections.addAll( removedSet, removed );
+
+        Map<String, MethodContainer<O>[]> bungeeCordMessageListeners = this.bungeeCordMessageListeners;
+        Map<MethodContainer<O>, String> subChannelIndex = this.subChannelIndex;
+        MethodContainer<O>[] pluginMessageListeners = this.pluginMessageListeners;
+        Map<MessageListener, MethodContainer<O>[]> listenerIndex = new HashMap<>( this.listenerIndex );
+        Map<O, MessageListener[]> originIndex = new HashMap<>( this.originIndex );
+
+        boolean pluginMessageListenersChanged = false;
+        for ( MethodContainer<O> methodContainer : removed ) {
+            String subChannel = subChannelIndex.get( methodContainer );
+            if ( subChannel != null ) {
+                if ( subChannelIndex == this.subChannelIndex ) {
+                    subChannelIndex = new IdentityHashMap<>( subChannelIndex );
+                    bungeeCordMessageListeners = new HashMap<>( bungeeCordMessageListeners );
+                }
+                subChannelIndex.remove( methodContainer );
+                put( bungeeCordMessageListeners, subChannel, remove( bungeeCordMessageListeners.get( subChannel ), removedSet ) );
+            } else {
+                pluginMessageListenersChanged = true;
+            }
+
+            MessageListener messageListener = methodContainer.getMessageListener();
+            MethodContainer<O>[] remaining = listenerIndex.get( messageListener );
+            if ( remaining != null ) {
+                remaining = remove( remaining, removedSet );
+                put( listenerIndex, messageListener, remaining );
+            }
+
+            O origin = methodContainer.getOrigin();
+            if ( !hasOrigin( remaining, origin ) && originIndex.containsKey( origin ) ) {
+                put( originIndex, origin, removeListener( originIndex.get( origin ), messageListener ) );
+            }
+        }
+
+        if ( pluginMessageListenersChanged ) {
+            pluginMessageListeners = remove( pluginMessageListeners, removedSet );
+            if ( pluginMessageListeners == null ) {
+                pluginMessageListeners = emptyArray();
+            }
+        }
+        return new ListenerTable<>( bungeeCordMessageListeners, pluginMessageListeners, listenerIndex, originIndex, subChannelIndex );
+    }
+
+    /**
+     * Creates a copy of the listener index containing the specified registration.
+     * @param methodContainer The registration
+     * @return The new index
+     */
+    private Map<MessageListener, MethodContainer<O>[]> indexListener( MethodContainer<O> methodContainer ) {
+        Map<MessageListener, MethodContainer<O>[]> listenerIndex = new HashMap<>( this.listenerIndex );
+        MethodContainer<O>[] methodContainers = listenerIndex.get( methodContainer.getMessageListener() );
+        listenerIndex.put( methodContainer.getMessageListener(), append( methodContainers != null ? methodContainers : emptyArray(), methodContainer ) );
+        return listenerIndex;
+    }
+
+    /**
+     * Creates a copy of the origin index containing the listener of the specified registration.
+     * @param methodContainer The registration
+     * @return The new index or the current one if the listener is already indexed for the origin
+     */
+    private Map<O, MessageListener[]> indexOrigin( MethodContainer<O> methodContainer ) {
+        MessageListener[] messageListeners = this.originIndex.get( methodContainer.getOrigin() );
+        if ( messageListeners == null ) {
+            messageListeners = new MessageListener[ 0 ];
+        } else if ( Arrays.asList( messageListeners ).contains( methodContainer.getMessageListener() ) ) {
+            return this.originIndex;
+        }
+
+        Map<O, MessageListener[]> originIndex = new HashMap<>( this.originIndex );
+        messageListeners = Arrays.copyOf( messageListeners, messageListeners.length + 1 );
+        messageListeners[ messageListeners.length - 1 ] = methodContainer.getMessageListener();
+        originIndex.put( methodContainer.getOrigin(), messageListeners );
+        return originIndex;
+    }
+
+    /**
+     * Checks whether or not any of the registrations belongs to the specified origin.
+     * @param methodContainers The registrations or null
+     * @param origin The origin
+     * @param <O> The type of the origin of the listeners
+     * @return Whether or not a registration belongs to the origin
+     */
+    private static <O> boolean hasOrigin( MethodContainer<O>[] methodContainers, O origin ) {
+        if ( methodContainers != null ) {
+            for ( MethodContainer<O> methodContainer : methodContainers ) {
+                if ( methodContainer.getOrigin().equals( origin ) ) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the specified listener from the array.
+     * @param messageListeners The listeners
+     * @param messageListener The listener to remove
+     * @return The new array or null if it is empty
+     */
+    private static MessageListener[] removeListener( MessageListener[] messageListeners, MessageListener messageListener ) {
+        MessageListener[] result = new MessageListener[ messageListeners.length ];
+        int count = 0;
+        for ( MessageListener listener : messageListeners ) {
+            if ( !listener.equals( messageListener ) ) {
+                result[ count++ ] = listener;
+            }
+        }
+        return count == 0 ? null : Arrays.copyOf( result, count );
+    }
+
+    /**
+     * Puts the value into the map or removes the key if the value is null.
+     * @param map The map
+     * @param key The key
+     * @param value The value or null
+     * @param <K> The type of the keys
+     * @param <V> The type of the values
+     */
+    private static <K, V> void put( Map<K, V> map, K key, V value ) {
+        if ( value == null ) {
+            map.remove( key );
+        } else {
+            map.put( key, value );
+        }
+    }
+
+    /**
+     * Gets an empty array of registrations.
+     * @param <O> The type of the origin of the listeners
+     * @return The empty array
+     */
+    @SuppressWarnings( "unchecked" )
+    private static <O> MethodContainer<O>[] emptyArray() {
+        return (MethodContainer<O>[]) NO_LISTENERS;
+    }
+
+    /**
+     * Creates a copy of the array having the specified listener appended.
+     * @param methodContainers The listeners
+     * @param methodContainer The listener to append
+     * @param <O> The type of the origin of the listeners
+     * @return The new array
+     */
+    private static <O> MethodContainer<O>[] append( MethodContainer<O>[] methodContainers, MethodContainer<O> methodContainer ) {
+        MethodContainer<O>[] result = Arrays.copyOf( methodContainers, methodContainers.length + 1 );
+        result[ methodContainers.length ] = methodContainer;
+        return result;
+    }
+
+    /**
+     * Removes the specified registrations from the array.
+     * @param methodContainers The listeners
+     * @param removed The registrations to remove
+     * @param <O> The type of the origin of the listeners
+     * @return The same array if nothing is removed, null if everything is removed, otherwise a new array
+     */
+    private static <O> MethodContainer<O>[] remove( MethodContainer<O>[] methodContainers, Set<MethodContainer<O>> removed ) {
+        MethodContainer<O>[] result = Arrays.copyOf( methodContainers, methodContainers.length );
+        int count = 0;
+        for ( MethodContainer<O> methodContainer : methodContainers ) {
+            if ( !removed.contains( methodContainer ) ) {
+                result[ count++ ] = methodContainer;
+            }
+        }
+
+        if ( count == methodContainers.length ) {
+            return methodContainers;
+        }
+        return count == 0 ? null : Arrays.copyOf( result, count );
+    }
+}
@@ -31,4 +31,17 @@ import java.lang.annotation.Target;
 @Retention( RetentionPolicy.RUNTIME )
 @Target( ElementType.METHOD )
 public @interface MessageHandler {
+    /**
+     * Whether or not the method keeps a reference to the message after
+     * it returned, e.g. by storing it or passing it to another thread.
+     * Recyclable messages are only reused if no method retains them.
+     * @return Whether or not the message is retained
+     */
+    boolean retainsMessage() default true;
+
+    /**
+     * The thread the method is called on.
+     * @return The thread mode
+     */
+    ThreadMode threadMode() default ThreadMode.ASYNC;
 }
\ No newline at end of file
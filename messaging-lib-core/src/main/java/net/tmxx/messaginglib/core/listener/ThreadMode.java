@@ -0,0 +1,39 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.listener;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>The thread a listener method is called on.</p>
+ */
+public enum ThreadMode {
+    /**
+     * The method is called on the thread dispatching the message, which is
+     * the thread it was received on or a thread of the dispatch executor.
+     */
+    ASYNC,
+
+    /**
+     * The method is called on the main thread of the server, so it may access
+     * the world. Messages dispatched on another thread are queued and handed to
+     * the method during the next tick. BungeeCord has no main thread and calls
+     * these methods like {@link #ASYNC} ones.
+     */
+    SYNC
+}
@@ -0,0 +1,149 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.message;
+
+import net.tmxx.messaginglib.core.exception.InvalidListenerException;
+import net.tmxx.messaginglib.core.io.MessageReader;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>A view of a received plugin message which is decoded on first access.
+ * Listener methods may declare this type instead of the message itself,
+ * e.g. {@code onMessage( LazyPluginMessage<MyMessage> message, Player player )}.
+ * The message is only decoded once one of the listeners calls {@link #get()}
+ * or a listener declaring the message itself is called. All listeners of
+ * a frame share the same decoded message.</p>
+ *
+ * @param <T> The type of the message
+ */
+public class LazyPluginMessage<T extends PluginMessage> {
+    /**
+     * The factory creating the message.
+     */
+    private final MessageFactory<? extends T> messageFactory;
+
+    /**
+     * The reader positioned at the body of the message or null once decoded.
+     */
+    private MessageReader reader;
+
+    /**
+     * The decoded message or null if it is not decoded yet or malformed.
+     */
+    private T message;
+
+    /**
+     * Constructs a new view.
+     * @param messageFactory The factory creating the message
+     * @param reader The reader positioned at the body of the message
+     */
+    public LazyPluginMessage( MessageFactory<? extends T> messageFactory, MessageReader reader ) {
+        this.messageFactory = messageFactory;
+        this.reader = reader;
+    }
+
+    /**
+     * Gets the type of the message.
+     * @return The type
+     */
+    public Class<? extends T> getType() {
+        return this.messageFactory.getType();
+    }
+
+    /**
+     * Checks whether or not the message is already decoded.
+     * @return Whether or not the message is decoded
+     */
+    public synchronized boolean isDecoded() {
+        return this.reader == null;
+    }
+
+    /**
+     * Gets the message and decodes it if this was not done yet.
+     * @return The message or null if it is malformed
+     */
+    public synchronized T get() {
+        if ( this.reader != null ) {
+            T message = this.messageFactory.create();
+            message.read( this.reader );
+            if ( this.reader.isTruncated() ) {
+                release( this.messageFactory, message );
+            } else {
+                this.message = message;
+            }
+            this.reader = null;
+        }
+        return this.message;
+    }
+
+    /**
+     * Hands the decoded message back to its factory for reuse. This must only
+     * be called once no listener of the message retains it or this view.
+     */
+    public synchronized void recycle() {
+        if ( this.message != null ) {
+            release( this.messageFactory, this.message );
+            this.message = null;
+        }
+    }
+
+    /**
+     * Releases the message to the factory.
+     * @param messageFactory The factory
+     * @param message The message
+     * @param <M> The type of the message
+     */
+    @SuppressWarnings( "unchecked" )
+    private static <M extends PluginMessage> void release( MessageFactory<M> messageFactory, PluginMessage message ) {
+        messageFactory.release( (M) message );
+    }
+
+    /**
+     * Gets the type of message the first parameter of a listener method accepts,
+     * which is either a plugin message, an interface implemented by plugin messages
+     * or a lazy view of a plugin message. Abstract types and interfaces match all
+     * registered plugin messages extending or implementing them.
+     * @param method The listener method
+     * @return The type of the message or null if the parameter is no message
+     * @throws InvalidListenerException Thrown when a lazy view does not declare a plugin message type
+     */
+    public static Class<?> getMessageType( Method method ) {
+        Class<?> parameter = method.getParameterTypes()[0];
+        if ( PluginMessage.class.isAssignableFrom( parameter ) || parameter.isInterface() ) {
+            return parameter;
+        }
+        if ( !LazyPluginMessage.class.equals( parameter ) ) {
+            return null;
+        }
+
+        Type type = method.getGenericParameterTypes()[0];
+        if ( type instanceof ParameterizedType ) {
+            Type argument = ( (ParameterizedType) type ).getActualTypeArguments()[0];
+            if ( argument instanceof Class && PluginMessage.class.isAssignableFrom( (Class<?>) argument )
+                    && !BungeeCordMessage.class.isAssignableFrom( (Class<?>) argument ) ) {
+                return (Class<?>) argument;
+            }
+        }
+        throw new InvalidListenerException( "Lazy message views have to declare a plugin message type: " + method );
+    }
+}
@@ -0,0 +1,352 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.message;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Holds the plugin messages which could not be sent yet, e.g. because
+ * no player is online to send them through. Messages are taken out by
+ * their {@link PluginMessage#getPriority() priority}, the oldest first
+ * within the same priority.</p>
+ *
+ * <p>The backlog is bounded. Once full, the oldest message of the lowest
+ * priority is dropped to make room, unless the new message has an even
+ * lower priority. Messages waiting longer than their time to live are
+ * dropped, and a message with a {@link PluginMessage#getCoalescingKey()
+ * coalescing key} replaces the waiting message of the same type and key.</p>
+ */
+public class MessageBacklog {
+    /**
+     * The default amount of messages the backlog holds.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * The default time in milliseconds a message may wait.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis( 10 );
+
+    /**
+     * The amount of messages the backlog holds.
+     */
+    @Getter @Setter private int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * The time in milliseconds messages not having their own time to live may wait.
+     */
+    @Getter @Setter private long defaultTimeToLive = DEFAULT_TIME_TO_LIVE;
+
+    /**
+     * The amount of messages dropped because they expired, were replaced or
+     * did not fit into the backlog.
+     */
+    @Getter private long droppedCount;
+
+    /**
+     * Contains the waiting messages by their priority, the highest first.
+     * The queues may contain entries of removed messages.
+     */
+    private final TreeMap<Integer, ArrayDeque<Entry>> queues = new TreeMap<>( Collections.reverseOrder() );
+
+    /**
+     * Contains the waiting messages having a coalescing key by their type and key.
+     */
+    private final Map<CoalescingKey, Entry> coalesced = new HashMap<>();
+
+    /**
+     * The amount of waiting messages.
+     */
+    private int size;
+
+    /**
+     * The amount of entries of removed messages still contained in the queues.
+     */
+    private int removed;
+
+    /**
+     * Adds a message.
+     * @param pluginMessage The message
+     * @return Whether or not the message was added, it is dropped if the
+     * backlog is full of messages having a higher priority
+     */
+    public synchronized boolean add( PluginMessage pluginMessage ) {
+        long now = System.nanoTime();
+        int priority = pluginMessage.getPriority();
+        Object key = pluginMessage.getCoalescingKey();
+        CoalescingKey coalescingKey = key == null ? null : new CoalescingKey( pluginMessage.getClass(), key );
+        if ( coalescingKey != null ) {
+            Entry previous = this.coalesced.remove( coalescingKey );
+            if ( previous != null ) {
+                // Only the newest state is sent
+                this.remove( previous );
+            }
+        }
+        if ( this.removed > Math.max( this.size, 64 ) ) {
+            this.purgeRemoved();
+        }
+
+        if ( this.size >= this.capacity && !this.makeRoom( priority, now ) ) {
+            this.droppedCount++;
+            return false;
+        }
+
+        long timeToLive = pluginMessage.getTimeToLive() > 0 ? pluginMessage.getTimeToLive() : this.defaultTimeToLive;
+        Entry entry = new Entry( pluginMessage, coalescingKey, now + TimeUnit.MILLISECONDS.toNanos( timeToLive ) );
+        ArrayDeque<Entry> queue = this.queues.get( priority );
+        if ( queue == null ) {
+            queue = new ArrayDeque<>();
+            this.queues.put( priority, queue );
+        }
+
+        queue.addLast( entry );
+        if ( coalescingKey != null ) {
+            this.coalesced.put( coalescingKey, entry );
+        }
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Takes out the waiting message of the highest priority. Expired messages are dropped.
+     * @return The message or null if no message is waiting
+     */
+    public synchronized PluginMessage poll() {
+        Entry entry = this.head( System.nanoTime() );
+        if ( entry == null ) {
+            return null;
+        }
+
+        this.queues.firstEntry().getValue().pollFirst();
+        this.detach( entry );
+        return entry.pluginMessage;
+    }
+
+    /**
+     * Gets the waiting message of the highest priority without taking it out,
+     * so it keeps its place and time to live. Expired messages are dropped.
+     * Callers holding the lock of the backlog get the same message from {@link #poll()}.
+     * @return The message or null if no message is waiting
+     */
+    public synchronized PluginMessage peek() {
+        Entry entry = this.head( System.nanoTime() );
+        return entry == null ? null : entry.pluginMessage;
+    }
+
+    /**
+     * Gets the amount of waiting messages including expired ones not dropped yet.
+     * @return The amount of messages
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks whether or not no message is waiting.
+     * @return Whether or not the backlog is empty
+     */
+    public synchronized boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Drops all waiting messages.
+     */
+    public synchronized void clear() {
+        this.queues.clear();
+        this.coalesced.clear();
+        this.size = 0;
+        this.removed = 0;
+    }
+
+    /**
+     * Gets the entry of the waiting message of the highest priority, which is
+     * the first entry of the first queue afterwards. Entries of removed and
+     * expired messages in front of it are dropped.
+     * @param now The current time in nanoseconds
+     * @return The entry or null if no message is waiting
+     */
+    private Entry head( long now ) {
+        Iterator<ArrayDeque<Entry>> iterator = this.queues.values().iterator();
+        while ( iterator.hasNext() ) {
+            ArrayDeque<Entry> queue = iterator.next();
+            Entry entry;
+            while ( ( entry = queue.peekFirst() ) != null ) {
+                if ( entry.pluginMessage == null ) {
+                    // The message was removed before
+                    queue.pollFirst();
+                    this.removed--;
+                    continue;
+                }
+                if ( now - entry.deadline > 0 ) {
+                    queue.pollFirst();
+                    this.detach( entry );
+                    this.droppedCount++;
+                    continue;
+                }
+                return entry;
+            }
+            iterator.remove();
+        }
+        return null;
+    }
+
+    /**
+     * Drops expired messages or the oldest message of the lowest priority
+     * to make room for a message of the specified priority.
+     * @param priority The priority of the message to add
+     * @param now The current time in nanoseconds
+     * @return Whether or not there is room now
+     */
+    private boolean makeRoom( int priority, long now ) {
+        this.dropExpired( now );
+        while ( this.size >= this.capacity ) {
+            Map.Entry<Integer, ArrayDeque<Entry>> lowest = this.queues.lastEntry();
+            if ( lowest == null || lowest.getKey() > priority ) {
+                return false;
+            }
+
+            Entry entry = lowest.getValue().pollFirst();
+            if ( entry == null ) {
+                this.queues.remove( lowest.getKey() );
+            } else if ( entry.pluginMessage == null ) {
+                this.removed--;
+            } else {
+                this.detach( entry );
+                this.droppedCount++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops all expired messages.
+     * @param now The current time in nanoseconds
+     */
+    private void dropExpired( long now ) {
+        Iterator<ArrayDeque<Entry>> iterator = this.queues.values().iterator();
+        while ( iterator.hasNext() ) {
+            ArrayDeque<Entry> queue = iterator.next();
+            Iterator<Entry> entries = queue.iterator();
+            while ( entries.hasNext() ) {
+                Entry entry = entries.next();
+                if ( entry.pluginMessage == null ) {
+                    entries.remove();
+                    this.removed--;
+                } else if ( now - entry.deadline > 0 ) {
+                    entries.remove();
+                    this.detach( entry );
+                    this.droppedCount++;
+                }
+            }
+            if ( queue.isEmpty() ) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the entries of removed messages from the queues, so
+     * messages replaced over and over do not pile up.
+     */
+    private void purgeRemoved() {
+        Iterator<ArrayDeque<Entry>> iterator = this.queues.values().iterator();
+        while ( iterator.hasNext() ) {
+            ArrayDeque<Entry> queue = iterator.next();
+            queue.removeIf( entry -> entry.pluginMessage == null );
+            if ( queue.isEmpty() ) {
+                iterator.remove();
+            }
+        }
+        this.removed = 0;
+    }
+
+    /**
+     * Removes a message which is still contained in its queue. The entry is
+     * left in the queue and skipped when reached.
+     * @param entry The entry of the message
+     */
+    private void remove( Entry entry ) {
+        this.detach( entry );
+        entry.pluginMessage = null;
+        this.removed++;
+        this.droppedCount++;
+    }
+
+    /**
+     * Stops counting a message which is taken out of the backlog.
+     * @param entry The entry of the message
+     */
+    private void detach( Entry entry ) {
+        if ( entry.coalescingKey != null ) {
+            this.coalesced.remove( entry.coalescingKey, entry );
+        }
+        this.size--;
+    }
+
+    /**
+     * A waiting message.
+     */
+    @AllArgsConstructor
+    private static class Entry {
+        /**
+         * The message or null if it was removed.
+         */
+        private PluginMessage pluginMessage;
+
+        /**
+         * The type and coalescing key of the message or null if it has none.
+         */
+        private final CoalescingKey coalescingKey;
+
+        /**
+         * The time in nanoseconds the message expires at.
+         */
+        private final long deadline;
+    }
+
+    /**
+     * Identifies the state carried by a message having a coalescing key.
+     */
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class CoalescingKey {
+        /**
+         * The type of the message.
+         */
+        private final Class<?> type;
+
+        /**
+         * The coalescing key of the message.
+         */
+        private final Object key;
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.message;
+
+import lombok.Getter;
+import net.tmxx.messaginglib.core.util.Lookups;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Creates instances of a single plugin message type without reflection.
+ * The no-args constructor is bound to a {@link java.util.function.Supplier}
+ * generated by the {@link java.lang.invoke.LambdaMetafactory}. The lambda is
+ * defined with the private access of the message class, so it links against
+ * the class loader of the plugin and works for non-public classes as well.
+ * If the runtime does not grant that access, the constructor is invoked
+ * through a {@link java.lang.invoke.MethodHandle} instead.</p>
+ *
+ * <p>Messages returning true for {@link PluginMessage#isRecyclable()} are
+ * pooled per thread, which is taken from the first created message.
+ * Released messages are reset and handed out again by {@link #create()}.</p>
+ *
+ * @param <T> The type of the messages
+ */
+public class MessageFactory<T extends PluginMessage> {
+    /**
+     * The maximum amount of messages pooled per thread.
+     */
+    private static final int MAX_POOLED = 16;
+
+    /**
+     * The type of the messages.
+     */
+    @Getter private final Class<T> type;
+
+    /**
+     * Whether or not the messages are pooled or null if no message was created yet.
+     */
+    private volatile Boolean pooled;
+
+    /**
+     * The supplier invoking the constructor.
+     */
+    private final Supplier<T> supplier;
+
+    /**
+     * The pool of every thread, which is only filled if the messages are pooled.
+     */
+    private final ThreadLocal<ArrayDeque<T>> pool = ThreadLocal.withInitial( ArrayDeque::new );
+
+    /**
+     * Constructs a new factory.
+     * @param type The type of the messages having a no-args constructor
+     * @throws IllegalArgumentException Thrown when the type has no accessible no-args constructor
+     */
+    public MessageFactory( Class<T> type ) {
+        this.type = type;
+        this.supplier = createSupplier( type );
+    }
+
+    /**
+     * Creates a new message or takes one out of the pool.
+     * @return The message
+     */
+    public T create() {
+        if ( this.isPooled() ) {
+            T message = this.pool.get().pollFirst();
+            if ( message != null ) {
+                return message;
+            }
+        }
+
+        T message = this.supplier.get();
+        if ( this.pooled == null ) {
+            // The first message tells whether the type wants to be pooled
+            this.pooled = message.isRecyclable();
+        }
+        return message;
+    }
+
+    /**
+     * Checks whether or not the messages are pooled.
+     * @return Whether or not the messages are pooled, false if no message was created yet
+     */
+    public boolean isPooled() {
+        return this.pooled == Boolean.TRUE;
+    }
+
+    /**
+     * Resets the message and puts it back into the pool. Nobody must use
+     * the message afterwards. Messages which are not pooled are ignored.
+     * @param message The message to release
+     */
+    public void release( T message ) {
+        if ( !this.isPooled() ) {
+            return;
+        }
+
+        ArrayDeque<T> pool = this.pool.get();
+        if ( pool.size() < MAX_POOLED ) {
+            message.reset();
+            pool.addFirst( message );
+        }
+    }
+
+    /**
+     * Creates the supplier invoking the no-args constructor of the type.
+     * @param type The type
+     * @param <T> The type of the messages
+     * @return The supplier
+     * @throws IllegalArgumentException Thrown when the type has no accessible no-args constructor
+     */
+    @SuppressWarnings( "unchecked" )
+    private static <T extends PluginMessage> Supplier<T> createSupplier( Class<T> type ) {
+        MethodHandles.Lookup lookup = Lookups.privateLookupIn( type );
+        if ( lookup != null ) {
+            try {
+                MethodHandle constructor = lookup.findConstructor( type, MethodType.methodType( void.class ) );
+                return (Supplier<T>) LambdaMetafactory.metafactory( lookup, "get", MethodType.methodType( Supplier.class ),
+                        MethodType.methodType( Object.class ), constructor, MethodType.methodType( type ) ).getTarget().invoke();
+            } catch ( Throwable ignored ) {
+                // Fall back to the method handle
+            }
+        }
+
+        MethodHandle constructor;
+        try {
+            Constructor<T> declaredConstructor = type.getDeclaredConstructor();
+            declaredConstructor.setAccessible( true );
+            constructor = MethodHandles.lookup().unreflectConstructor( declaredConstructor );
+        } catch ( NoSuchMethodException | IllegalAccessException | RuntimeException e ) {
+            throw new IllegalArgumentException( "Plugin message " + type.getName() + " has no accessible no-args constructor", e );
+        }
+
+        MethodHandle genericConstructor = constructor.asType( MethodType.methodType( PluginMessage.class ) );
+        return () -> {
+            try {
+                return (T) (PluginMessage) genericConstructor.invokeExact();
+            } catch ( RuntimeException | Error e ) {
+                throw e;
+            } catch ( Throwable throwable ) {
+                throw new IllegalStateException( throwable );
+            }
+        };
+    }
+}
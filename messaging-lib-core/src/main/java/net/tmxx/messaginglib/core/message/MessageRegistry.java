@@ -17,7 +17,9 @@
  */
 package net.tmxx.messaginglib.core.message;
 
+import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
+import net.tmxx.messaginglib.core.codec.MessageCodecs;
 import net.tmxx.messaginglib.core.message.bungeecord.ConnectMessage;
 import net.tmxx.messaginglib.core.message.bungeecord.ConnectOtherMessage;
 import net.tmxx.messaginglib.core.message.bungeecord.GetServersMessage;
@@ -26,57 +28,96 @@ import net.tmxx.messaginglib.core.message.bungeecord.MessagePlayerMessage;
 import net.tmxx.messaginglib.core.message.bungeecord.PlayerCountMessage;
 import net.tmxx.messaginglib.core.message.bungeecord.PlayerListMessage;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Created by tmxx on 15.01.2016
  *
  * <p>This class is used to register and unregister messages.</p>
+ *
+ * <p>Every plugin message type gets a dense local index assigned the first time
+ * its name is seen, which the managers use to look up registered messages and
+ * listeners by plain array indexing. Received frames name their type either by
+ * a type id negotiated with a proxy, see {@link TypeIdTable}, or by the hash
+ * code of the name of the type, which is used until the ids are negotiated.
+ * The type ids of every proxy are kept in their own table, which is looked up
+ * by the epoch in the highest byte of the type id.</p>
  */
 @NoArgsConstructor
 public class MessageRegistry {
     /**
-     * As BungeeCord provides another message structure than we do
-     * we have to handle BungeeCord messages on their own.
+     * Marks hash codes shared by the names of multiple registered types. It is
+     * kept in the hash index, unlike unknown hash codes which are not contained.
      */
-    private Map<String, BungeeCordMessage> bungeeCordMessageMap = new HashMap<>();
+    private static final int AMBIGUOUS = -2;
 
     /**
-     * All registered plugin messages. This will not include
-     * BungeeCord messages.
+     * The current snapshot of all registered messages. Registrations are
+     * serialized and replace the snapshot as a whole, so lookups read it
+     * without locking while messages are registered from other threads.
      */
-    private Map<Integer, PluginMessage> pluginMessageMap = new HashMap<>();
+    private volatile Snapshot snapshot = new Snapshot( 0, new HashMap<>(), new HashMap<>(), new HashMap<>(), new String[ 0 ],
+            new PluginMessage[ 0 ], new MessageFactory<?>[ 0 ], new HashMap<>() );
+
+    /**
+     * The type ids negotiated with the proxies by their epoch, which are null for
+     * unused epochs. The array is replaced as a whole whenever a table changes.
+     */
+    private volatile TypeIdTable[] typeIdTables = new TypeIdTable[ TypeIdTable.MAX_EPOCH + 1 ];
 
     /**
      * Registers the specified plugin message. We will check for
      * the message being a BungeeCord message and if so, we
-     * put it in the {@link #bungeeCordMessageMap} and use the
-     * sub channel as key. Otherwise we will put this message into
-     * the {@link #pluginMessageMap} and use the hash code of the name as key.
+     * store it by its sub channel. Otherwise we will store this message at the
+     * local index of its type. The hash code of the name is remembered
+     * for frames without negotiated type id; if it collides with another
+     * registered type, such frames of both types are dropped.
+     * The generated {@link net.tmxx.messaginglib.core.codec.MessageCodec}
+     * and the {@link MessageFactory} of a normal plugin message are created right away.
      * @param pluginMessage The plugin message to register
      * @return Whether or not the plugin message was successfully registered
+     * @throws IllegalArgumentException Thrown when a normal plugin message has no generated
+     * codec and does not override both {@link PluginMessage#write(java.io.DataOutputStream)}
+     * and {@link PluginMessage#read(java.io.DataInputStream)}
      */
-    public boolean registerMessage( PluginMessage pluginMessage ) {
+    public synchronized boolean registerMessage( PluginMessage pluginMessage ) {
         if ( BungeeCordMessage.class.isAssignableFrom( pluginMessage.getClass() ) ) {
             // This is a BungeeCord message
             BungeeCordMessage message = (BungeeCordMessage) pluginMessage;
-            this.bungeeCordMessageMap.put( message.getSubChannel(), message );
+            Snapshot snapshot = this.snapshot;
+            Map<String, BungeeCordMessage> bungeeCordMessageMap = new HashMap<>( snapshot.bungeeCordMessageMap );
+            bungeeCordMessageMap.put( message.getSubChannel(), message );
+            Map<String, MessageFactory<? extends BungeeCordMessage>> bungeeCordMessageFactories = new HashMap<>( snapshot.bungeeCordMessageFactories );
+            bungeeCordMessageFactories.put( message.getSubChannel(), new MessageFactory<>( message.getClass() ) );
+            this.snapshot = new Snapshot( snapshot.version + 1, bungeeCordMessageMap, bungeeCordMessageFactories, snapshot.typeIndexMap, snapshot.typeNames,
+                    snapshot.pluginMessages, snapshot.messageFactories, snapshot.hashIndexMap );
             return true;
         } else {
             // This is a normal plugin message
-            // We use the full name of the class (including path) to prevent colliding codes
-            int hashCode = pluginMessage.getClass().getName().hashCode();
-
-            // But you never know
-            if ( this.pluginMessageMap.containsKey( hashCode ) ) {
-                // We have colliding hash codes. Do nothing
+            int typeIndex = getTypeIndex( pluginMessage.getClass() );
+            Snapshot snapshot = this.snapshot;
+            if ( snapshot.pluginMessages[ typeIndex ] != null ) {
+                // The type is already registered
                 return false;
-            } else {
-                // Put this message into the map
-                this.pluginMessageMap.put( hashCode, pluginMessage );
-                return true;
             }
+
+            // Resolve the generated codec now so the first incoming message does not have to
+            if ( !MessageCodecs.isSerializable( pluginMessage.getClass() ) ) {
+                throw new IllegalArgumentException( pluginMessage.getClass().getName() + " has no @MessageField "
+                        + "and does not override write(DataOutputStream) and read(DataInputStream)" );
+            }
+
+            PluginMessage[] pluginMessages = snapshot.pluginMessages.clone();
+            MessageFactory<?>[] messageFactories = snapshot.messageFactories.clone();
+            pluginMessages[ typeIndex ] = pluginMessage;
+            messageFactories[ typeIndex ] = new MessageFactory<>( pluginMessage.getClass() );
+            this.snapshot = new Snapshot( snapshot.version + 1, snapshot.bungeeCordMessageMap, snapshot.bungeeCordMessageFactories, snapshot.typeIndexMap, snapshot.typeNames, pluginMessages,
+                    messageFactories, updateHashIndex( snapshot, pluginMessages, pluginMessage.getClass().getName().hashCode() ) );
+            return true;
         }
     }
 
@@ -84,25 +125,36 @@ public class MessageRegistry {
      * Unregisters the specified plugin message. As described in
      * the method {@link #registerMessage(PluginMessage)} we will
      * handle both messages (BungeeCord and normal) on their own.
+     * The local index of the type stays assigned.
      * @param pluginMessage The plugin message to unregister
      * @return Whether or not the plugin message was successfully unregistered
      */
-    public boolean unregisterMessage( PluginMessage pluginMessage ) {
+    public synchronized boolean unregisterMessage( PluginMessage pluginMessage ) {
+        Snapshot snapshot = this.snapshot;
         if ( BungeeCordMessage.class.isAssignableFrom( pluginMessage.getClass() ) ) {
             // This is a BungeeCord message
             BungeeCordMessage message = (BungeeCordMessage) pluginMessage;
-            if ( this.bungeeCordMessageMap.containsKey( message.getSubChannel() ) ) {
-                this.bungeeCordMessageMap.remove( message.getSubChannel() );
+            if ( snapshot.bungeeCordMessageMap.containsKey( message.getSubChannel() ) ) {
+                Map<String, BungeeCordMessage> bungeeCordMessageMap = new HashMap<>( snapshot.bungeeCordMessageMap );
+                bungeeCordMessageMap.remove( message.getSubChannel() );
+                Map<String, MessageFactory<? extends BungeeCordMessage>> bungeeCordMessageFactories = new HashMap<>( snapshot.bungeeCordMessageFactories );
+                bungeeCordMessageFactories.remove( message.getSubChannel() );
+                this.snapshot = new Snapshot( snapshot.version + 1, bungeeCordMessageMap, bungeeCordMessageFactories, snapshot.typeIndexMap, snapshot.typeNames,
+                        snapshot.pluginMessages, snapshot.messageFactories, snapshot.hashIndexMap );
                 return true;
             } else {
                 return false;
             }
         } else {
             // This is a normal plugin message
-            int hashCode = pluginMessage.getClass().getName().hashCode();
-
-            if ( this.pluginMessageMap.containsKey( hashCode ) ) {
-                this.pluginMessageMap.remove( hashCode );
+            Integer typeIndex = snapshot.typeIndexMap.get( pluginMessage.getClass().getName() );
+            if ( typeIndex != null && snapshot.pluginMessages[ typeIndex ] != null ) {
+                PluginMessage[] pluginMessages = snapshot.pluginMessages.clone();
+                MessageFactory<?>[] messageFactories = snapshot.messageFactories.clone();
+                pluginMessages[ typeIndex ] = null;
+                messageFactories[ typeIndex ] = null;
+                this.snapshot = new Snapshot( snapshot.version + 1, snapshot.bungeeCordMessageMap, snapshot.bungeeCordMessageFactories, snapshot.typeIndexMap, snapshot.typeNames, pluginMessages,
+                        messageFactories, updateHashIndex( snapshot, pluginMessages, pluginMessage.getClass().getName().hashCode() ) );
                 return true;
             } else {
                 return false;
@@ -110,6 +162,244 @@ public class MessageRegistry {
         }
     }
 
+    /**
+     * Gets the local index of the specified plugin message type.
+     * @param type The type of the plugin message
+     * @return The local index
+     * @see #getTypeIndex(String)
+     */
+    public int getTypeIndex( Class<?> type ) {
+        return getTypeIndex( type.getName() );
+    }
+
+    /**
+     * Gets the local index of the plugin message type with the specified
+     * name. Types which are not known yet get the next free index.
+     * @param typeName The name of the type
+     * @return The local index
+     */
+    public int getTypeIndex( String typeName ) {
+        Integer typeIndex = this.snapshot.typeIndexMap.get( typeName );
+        if ( typeIndex != null ) {
+            return typeIndex;
+        }
+
+        synchronized ( this ) {
+            Snapshot snapshot = this.snapshot;
+            typeIndex = snapshot.typeIndexMap.get( typeName );
+            if ( typeIndex != null ) {
+                return typeIndex;
+            }
+
+            int typeCount = snapshot.typeNames.length;
+            Map<String, Integer> typeIndexMap = new HashMap<>( snapshot.typeIndexMap );
+            typeIndexMap.put( typeName, typeCount );
+            String[] typeNames = Arrays.copyOf( snapshot.typeNames, typeCount + 1 );
+            typeNames[ typeCount ] = typeName;
+            this.snapshot = new Snapshot( snapshot.version + 1, snapshot.bungeeCordMessageMap, snapshot.bungeeCordMessageFactories, typeIndexMap, typeNames, Arrays.copyOf( snapshot.pluginMessages, typeCount + 1 ),
+                    Arrays.copyOf( snapshot.messageFactories, typeCount + 1 ), snapshot.hashIndexMap );
+            return typeCount;
+        }
+    }
+
+    /**
+     * Gets the local index of the plugin message type a frame was sent for.
+     * @param typeId The type id of the frame
+     * @param negotiated Whether or not the type id is negotiated or the hash code of the name of the type
+     * @return The local index or -1 if the type is unknown, ambiguous or of an unknown epoch
+     */
+    public int getTypeIndex( int typeId, boolean negotiated ) {
+        if ( negotiated ) {
+            TypeIdTable typeIdTable = this.getTypeIdTable( typeId >>> 24 );
+            return typeIdTable != null ? typeIdTable.getTypeIndex( typeId ) : -1;
+        }
+
+        Integer typeIndex = this.snapshot.hashIndexMap.get( typeId );
+        return typeIndex == null || typeIndex == AMBIGUOUS ? -1 : typeIndex;
+    }
+
+    /**
+     * Gets the version of the registered messages, which changes whenever
+     * a message is registered or unregistered or a type gets an index.
+     * @return The version
+     */
+    public int getVersion() {
+        return this.snapshot.version;
+    }
+
+    /**
+     * Gets the types of all registered plugin messages by their local index.
+     * @return A copy of the types, which are null for types that are not registered
+     */
+    public Class<?>[] getPluginMessageTypes() {
+        PluginMessage[] pluginMessages = this.snapshot.pluginMessages;
+        Class<?>[] types = new Class<?>[ pluginMessages.length ];
+        for ( int i = 0; i < pluginMessages.length; i++ ) {
+            types[ i ] = pluginMessages[ i ] != null ? pluginMessages[ i ].getClass() : null;
+        }
+        return types;
+    }
+
+    /**
+     * Gets the amount of known plugin message types. All local indexes are below this.
+     * @return The amount of known types
+     */
+    public int getTypeCount() {
+        return this.snapshot.typeNames.length;
+    }
+
+    /**
+     * Gets the type ids negotiated within the specified epoch.
+     * @param epoch The epoch
+     * @return The type ids or null if nothing was negotiated within the epoch
+     */
+    public TypeIdTable getTypeIdTable( int epoch ) {
+        TypeIdTable[] typeIdTables = this.typeIdTables;
+        return epoch > 0 && epoch < typeIdTables.length ? typeIdTables[ epoch ] : null;
+    }
+
+    /**
+     * Gets the type id negotiated within the specified epoch
+     * for the plugin message type with the specified local index.
+     * @param typeIndex The local index
+     * @param epoch The epoch
+     * @return The type id or -1 if the type has none within the epoch
+     */
+    public int getNegotiatedTypeId( int typeIndex, int epoch ) {
+        TypeIdTable typeIdTable = this.getTypeIdTable( epoch );
+        return typeIdTable != null ? typeIdTable.getTypeId( typeIndex ) : -1;
+    }
+
+    /**
+     * Gets the names of all known plugin message types which may get a type id.
+     * @return The names
+     * @see TypeIdTable#isNegotiable(String)
+     */
+    public List<String> getNegotiableTypeNames() {
+        String[] typeNames = this.snapshot.typeNames;
+        List<String> negotiableTypeNames = new ArrayList<>( typeNames.length );
+        for ( String typeName : typeNames ) {
+            if ( TypeIdTable.isNegotiable( typeName ) ) {
+                negotiableTypeNames.add( typeName );
+            }
+        }
+        return negotiableTypeNames;
+    }
+
+    /**
+     * Checks whether or not type ids have to be negotiated within the epoch, which is
+     * the case if nothing was negotiated within it yet or a type got known afterwards.
+     * @param epoch The epoch
+     * @return Whether or not type ids have to be negotiated
+     */
+    public boolean isNegotiationRequired( int epoch ) {
+        TypeIdTable typeIdTable = this.getTypeIdTable( epoch );
+        if ( typeIdTable == null ) {
+            return true;
+        }
+
+        String[] typeNames = this.snapshot.typeNames;
+        for ( int i = 0; i < typeNames.length; i++ ) {
+            if ( typeIdTable.getTypeId( i ) < 0 && TypeIdTable.isNegotiable( typeNames[ i ] ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Installs the type ids a proxy assigned within the epoch. A proxy only appends
+     * names, so the names installed within the epoch before have to keep their ids.
+     * @param epoch The epoch of the type ids between 1 and {@link TypeIdTable#MAX_EPOCH}
+     * @param typeNames The names of the types by their type id
+     * @throws IllegalArgumentException Thrown when the epoch or the amount of names is invalid
+     *                                  or the names reassign type ids of the epoch
+     */
+    public synchronized void installTypeIds( int epoch, List<String> typeNames ) {
+        if ( epoch < 1 || epoch > TypeIdTable.MAX_EPOCH || typeNames.size() > TypeIdTable.MAX_TYPE_IDS ) {
+            throw new IllegalArgumentException( "Invalid type ids of epoch " + epoch );
+        }
+
+        TypeIdTable installed = this.typeIdTables[ epoch ];
+        if ( installed != null && !installed.isExtendedBy( typeNames ) ) {
+            throw new IllegalArgumentException( "Type ids of epoch " + epoch + " were assigned by another proxy" );
+        }
+
+        int[] indexByTypeId = new int[ typeNames.size() ];
+        for ( int typeId = 0; typeId < indexByTypeId.length; typeId++ ) {
+            String typeName = typeNames.get( typeId );
+            indexByTypeId[ typeId ] = typeName != null && TypeIdTable.isNegotiable( typeName ) ? getTypeIndex( typeName ) : -1;
+        }
+
+        int[] typeIdByIndex = new int[ getTypeCount() ];
+        Arrays.fill( typeIdByIndex, -1 );
+        for ( int typeId = 0; typeId < indexByTypeId.length; typeId++ ) {
+            if ( indexByTypeId[ typeId ] >= 0 ) {
+                typeIdByIndex[ indexByTypeId[ typeId ] ] = typeId;
+            }
+        }
+        this.setTypeIdTable( epoch, new TypeIdTable( epoch, new ArrayList<>( typeNames ), indexByTypeId, typeIdByIndex ) );
+    }
+
+    /**
+     * Forgets the type ids negotiated within the epoch, so frames of
+     * the epoch are dropped and the epoch may be assigned again.
+     * @param epoch The epoch
+     */
+    public synchronized void removeTypeIds( int epoch ) {
+        if ( this.getTypeIdTable( epoch ) != null ) {
+            this.setTypeIdTable( epoch, null );
+        }
+    }
+
+    /**
+     * Forgets all negotiated type ids, so frames are sent using
+     * the hash code of the name of their type again.
+     */
+    public synchronized void clearTypeIds() {
+        this.typeIdTables = new TypeIdTable[ TypeIdTable.MAX_EPOCH + 1 ];
+    }
+
+    /**
+     * Replaces the type ids of the epoch. Must be called while holding the lock of the registry.
+     * @param epoch The epoch
+     * @param typeIdTable The type ids or null to remove them
+     */
+    private void setTypeIdTable( int epoch, TypeIdTable typeIdTable ) {
+        TypeIdTable[] typeIdTables = this.typeIdTables.clone();
+        typeIdTables[ epoch ] = typeIdTable;
+        this.typeIdTables = typeIdTables;
+    }
+
+    /**
+     * Computes which registered type the specified hash code belongs to.
+     * @param snapshot The current snapshot
+     * @param pluginMessages The registered plugin messages after the change
+     * @param hashCode The hash code of the name of a type
+     * @return The new hash index
+     */
+    private static Map<Integer, Integer> updateHashIndex( Snapshot snapshot, PluginMessage[] pluginMessages, int hashCode ) {
+        int typeIndex = -1;
+        for ( int i = 0; i < pluginMessages.length; i++ ) {
+            if ( pluginMessages[ i ] != null && snapshot.typeNames[ i ].hashCode() == hashCode ) {
+                if ( typeIndex >= 0 ) {
+                    // All further types sharing the hash code do not change anything
+                    typeIndex = AMBIGUOUS;
+                    break;
+                }
+                typeIndex = i;
+            }
+        }
+
+        Map<Integer, Integer> hashIndexMap = new HashMap<>( snapshot.hashIndexMap );
+        if ( typeIndex == -1 ) {
+            hashIndexMap.remove( hashCode );
+        } else {
+            hashIndexMap.put( hashCode, typeIndex );
+        }
+        return hashIndexMap;
+    }
+
     /**
      * Checks whether or not the specified BungeeCord
      * message id is currently registered.
@@ -117,7 +407,7 @@ public class MessageRegistry {
      * @return Whether or not the id is registered
      */
     public boolean isBungeeCordMessageRegistered( String id ) {
-        return this.bungeeCordMessageMap.containsKey( id );
+        return this.snapshot.bungeeCordMessageMap.containsKey( id );
     }
 
     /**
@@ -126,26 +416,73 @@ public class MessageRegistry {
      * @return The BungeeCord message or null
      */
     public BungeeCordMessage getBungeeCordMessage( String id ) {
-        return this.bungeeCordMessageMap.get( id );
+        return this.snapshot.bungeeCordMessageMap.get( id );
+    }
+
+    /**
+     * Gets the factory creating received BungeeCord messages of the specified id.
+     * @param id The id of the BungeeCord message
+     * @return The factory or null if the id is not registered
+     */
+    public MessageFactory<? extends BungeeCordMessage> getBungeeCordMessageFactory( String id ) {
+        return this.snapshot.bungeeCordMessageFactories.get( id );
+    }
+
+    /**
+     * Checks whether or not a plugin message of the type with
+     * the specified local index is currently registered.
+     * @param typeIndex The local index of the type
+     * @return Whether or not the type is registered
+     */
+    public boolean isPluginMessageRegisteredByIndex( int typeIndex ) {
+        PluginMessage[] pluginMessages = this.snapshot.pluginMessages;
+        return typeIndex >= 0 && typeIndex < pluginMessages.length && pluginMessages[ typeIndex ] != null;
+    }
+
+    /**
+     * Gets the factory of a plugin message by the local index of its type.
+     * @param typeIndex The local index of the type
+     * @return The factory or null if the plugin message is not registered
+     */
+    public MessageFactory<? extends PluginMessage> getMessageFactoryByIndex( int typeIndex ) {
+        MessageFactory<?>[] messageFactories = this.snapshot.messageFactories;
+        return typeIndex >= 0 && typeIndex < messageFactories.length ? messageFactories[ typeIndex ] : null;
     }
 
     /**
      * Checks whether or not the specified plugin message
      * id is currently registered.
-     * @param id The id to check
+     * @param id The hash code of the name of the type to check
      * @return Whether or not the id is registered
+     * @deprecated Hash codes may collide, use {@link #isPluginMessageRegisteredByIndex(int)} instead
      */
+    @Deprecated
     public boolean isPluginMessageRegistered( int id ) {
-        return this.pluginMessageMap.containsKey( id );
+        return getTypeIndex( id, false ) >= 0;
     }
 
     /**
      * Gets a plugin message by its specified id.
-     * @param id The id of the plugin message
-     * @return The plugin message or
+     * @param id The hash code of the name of the type
+     * @return The plugin message or null if it is not registered or ambiguous
+     * @deprecated Hash codes may collide, use the local index of the type instead
      */
+    @Deprecated
     public PluginMessage getPluginMessage( int id ) {
-        return this.pluginMessageMap.get( id );
+        Snapshot snapshot = this.snapshot;
+        Integer typeIndex = snapshot.hashIndexMap.get( id );
+        return typeIndex != null && typeIndex >= 0 ? snapshot.pluginMessages[ typeIndex ] : null;
+    }
+
+    /**
+     * Gets the factory of a plugin message by its specified id.
+     * @param id The hash code of the name of the type
+     * @return The factory or null if the plugin message is not registered or ambiguous
+     * @deprecated Hash codes may collide, use {@link #getMessageFactoryByIndex(int)} instead
+     */
+    @Deprecated
+    public MessageFactory<? extends PluginMessage> getMessageFactory( int id ) {
+        return getMessageFactoryByIndex( getTypeIndex( id, false ) );
     }
 
     /**
@@ -162,4 +499,55 @@ public class MessageRegistry {
         registerMessage( new PlayerCountMessage() );
         registerMessage( new PlayerListMessage() );
     }
-}
\ No newline at end of file
+
+    /**
+     * An immutable state of the registry. Neither the maps nor the arrays
+     * are modified once the snapshot is published.
+     */
+    @AllArgsConstructor
+    private static final class Snapshot {
+        /**
+         * The version of the snapshot, which is incremented with every change.
+         */
+        private final int version;
+
+        /**
+         * As BungeeCord provides another message structure than we do
+         * we have to handle BungeeCord messages on their own.
+         */
+        private final Map<String, BungeeCordMessage> bungeeCordMessageMap;
+
+        /**
+         * The factories of all registered BungeeCord messages by their sub channel.
+         */
+        private final Map<String, MessageFactory<? extends BungeeCordMessage>> bungeeCordMessageFactories;
+
+        /**
+         * The local index of every known plugin message type by its name.
+         */
+        private final Map<String, Integer> typeIndexMap;
+
+        /**
+         * The names of all known plugin message types by their local index.
+         */
+        private final String[] typeNames;
+
+        /**
+         * All registered plugin messages by their local index. This will
+         * not include BungeeCord messages.
+         */
+        private final PluginMessage[] pluginMessages;
+
+        /**
+         * The factories of all registered plugin messages by their local index.
+         */
+        private final MessageFactory<?>[] messageFactories;
+
+        /**
+         * The local index of all registered plugin messages by the hash code
+         * of their name, which is used for frames without negotiated type id.
+         * Hash codes shared by several types map to {@link #AMBIGUOUS}.
+         */
+        private final Map<Integer, Integer> hashIndexMap;
+    }
+}
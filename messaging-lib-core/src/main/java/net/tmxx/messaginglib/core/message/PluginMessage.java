@@ -17,11 +17,23 @@
  */
 package net.tmxx.messaginglib.core.message;
 
+import net.tmxx.messaginglib.core.codec.MessageCodec;
+import net.tmxx.messaginglib.core.codec.MessageCodecs;
+import net.tmxx.messaginglib.core.io.MessageBuffer;
+import net.tmxx.messaginglib.core.io.MessageReader;
+import net.tmxx.messaginglib.core.io.StringCodec;
+import net.tmxx.messaginglib.core.io.VarInts;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -31,16 +43,25 @@ import java.util.UUID;
  * one server to another. In case you would like to
  * transfer objects using this library, these objects
  * must inherit from this class.</p>
+ *
+ * <p>Fields annotated with {@link net.tmxx.messaginglib.core.codec.MessageField}
+ * are transferred automatically. Otherwise {@link #write(DataOutputStream)}
+ * and {@link #read(DataInputStream)} have to be overridden.</p>
  */
 public abstract class PluginMessage {
     /**
      * Writes an {@link java.lang.Integer} to the {@link java.io.DataOutputStream}.
+     * In compact mode the integer is written as zigzag encoded variable length integer.
      * @param outputStream The output stream to write the integer to
      * @param value The value of the integer to write
      * @throws IOException Thrown when an error occurs
      */
     public void writeInt( DataOutputStream outputStream, int value ) throws IOException {
-        outputStream.writeInt( value );
+        if ( isCompact() ) {
+            VarInts.writeVarInt( outputStream, VarInts.zigZag( value ) );
+        } else {
+            outputStream.writeInt( value );
+        }
     }
 
     /**
@@ -67,35 +88,46 @@ public abstract class PluginMessage {
 
     /**
      * Writes a {@link java.lang.String} to the {@link java.io.DataOutputStream}.
-     * Invoking this method will automatically set the {@link java.nio.charset.Charset} to UTF-8.
+     * The string is encoded as UTF-8 and prefixed with its length in bytes.
      * @param outputStream The output stream to write the string to
      * @param value The value of the string to write
      * @throws IOException Thrown when an error occurs
      */
     public void writeString( DataOutputStream outputStream, String value ) throws IOException {
-        writeString( outputStream, value, Charset.forName( "UTF-8" ) );
+        StringCodec.write( outputStream, value );
     }
 
     /**
      * Writes a {@link java.lang.String} to the {@link java.io.DataOutputStream}.
+     * The string is prefixed with its length in bytes as variable length integer.
      * @param outputStream The output stream to write the string to
      * @param value The value of the string to write
      * @param charset The charset to get the bytes of the string
      * @throws IOException Thrown when an error occurs
      */
     public void writeString( DataOutputStream outputStream, String value, Charset charset ) throws IOException {
-        outputStream.writeInt( value.length() );
-        outputStream.write( value.getBytes( charset ) );
+        if ( StandardCharsets.UTF_8.equals( charset ) ) {
+            StringCodec.write( outputStream, value );
+        } else {
+            byte[] bytes = value.getBytes( charset );
+            VarInts.writeVarInt( outputStream, bytes.length );
+            outputStream.write( bytes );
+        }
     }
 
     /**
      * Writes a {@link java.lang.Long} to the {@link java.io.DataOutputStream}.
+     * In compact mode the long is written as zigzag encoded variable length long.
      * @param outputStream The output stream to write the long to
      * @param value The value of the long to write
      * @throws IOException Thrown when an error occurs
      */
     public void writeLong( DataOutputStream outputStream, long value ) throws IOException {
-        outputStream.writeLong( value );
+        if ( isCompact() ) {
+            VarInts.writeVarLong( outputStream, VarInts.zigZag( value ) );
+        } else {
+            outputStream.writeLong( value );
+        }
     }
 
     /**
@@ -132,12 +164,19 @@ public abstract class PluginMessage {
      * Writes an {@link java.util.UUID} to the {@link java.io.DataOutputStream}.
      * This will write out the most and least significant bits if
      * the uuid is not null. Otherwise this will only write out -1.
+     * In compact mode a single byte telling whether the uuid is null is written first.
      * @param outputStream The output stream to write the uuid to
      * @param value The value of the uuid to write
      * @throws IOException Thrown when an error occurs
      */
     public void writeUUID( DataOutputStream outputStream, UUID value ) throws IOException {
-        if ( value == null ) {
+        if ( isCompact() ) {
+            outputStream.writeBoolean( value != null );
+            if ( value != null ) {
+                outputStream.writeLong( value.getMostSignificantBits() );
+                outputStream.writeLong( value.getLeastSignificantBits() );
+            }
+        } else if ( value == null ) {
             outputStream.writeLong( -1 );
         } else {
             outputStream.writeLong( value.getMostSignificantBits() );
@@ -145,6 +184,129 @@ public abstract class PluginMessage {
         }
     }
 
+    /**
+     * Writes an {@link java.lang.Integer} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * In compact mode the integer is written as zigzag encoded variable length integer.
+     * @param buffer The buffer to write the integer to
+     * @param value The value of the integer to write
+     */
+    public void writeInt( MessageBuffer buffer, int value ) {
+        if ( isCompact() ) {
+            buffer.writeVarInt( VarInts.zigZag( value ) );
+        } else {
+            buffer.writeInt( value );
+        }
+    }
+
+    /**
+     * Writes a {@link java.lang.Boolean} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * @param buffer The buffer to write the boolean to
+     * @param value The value of the boolean to write
+     */
+    public void writeBoolean( MessageBuffer buffer, boolean value ) {
+        buffer.writeBoolean( value );
+    }
+
+    /**
+     * Writes a {@link java.lang.Byte} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * @param buffer The buffer to write the byte to
+     * @param value The value of the byte to write
+     */
+    public void writeByte( MessageBuffer buffer, byte value ) {
+        buffer.writeByte( value );
+    }
+
+    /**
+     * Writes a {@link java.lang.String} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * The string is encoded as UTF-8 straight into the buffer and prefixed with its length in bytes.
+     * @param buffer The buffer to write the string to
+     * @param value The value of the string to write
+     */
+    public void writeString( MessageBuffer buffer, String value ) {
+        buffer.writeString( value );
+    }
+
+    /**
+     * Writes a {@link java.lang.String} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * The string is prefixed with its length in bytes as variable length integer.
+     * @param buffer The buffer to write the string to
+     * @param value The value of the string to write
+     * @param charset The charset to get the bytes of the string
+     */
+    public void writeString( MessageBuffer buffer, String value, Charset charset ) {
+        if ( StandardCharsets.UTF_8.equals( charset ) ) {
+            buffer.writeString( value );
+        } else {
+            byte[] bytes = value.getBytes( charset );
+            buffer.writeVarInt( bytes.length );
+            buffer.writeBytes( bytes );
+        }
+    }
+
+    /**
+     * Writes a {@link java.lang.Long} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * In compact mode the long is written as zigzag encoded variable length long.
+     * @param buffer The buffer to write the long to
+     * @param value The value of the long to write
+     */
+    public void writeLong( MessageBuffer buffer, long value ) {
+        if ( isCompact() ) {
+            buffer.writeVarLong( VarInts.zigZag( value ) );
+        } else {
+            buffer.writeLong( value );
+        }
+    }
+
+    /**
+     * Writes a {@link java.lang.Short} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * @param buffer The buffer to write the short to
+     * @param value The value of the short to write
+     */
+    public void writeShort( MessageBuffer buffer, short value ) {
+        buffer.writeShort( value );
+    }
+
+    /**
+     * Writes a {@link java.lang.Float} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * @param buffer The buffer to write the float to
+     * @param value The value of the float to write
+     */
+    public void writeFloat( MessageBuffer buffer, float value ) {
+        buffer.writeFloat( value );
+    }
+
+    /**
+     * Writes a {@link java.lang.Double} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * @param buffer The buffer to write the double to
+     * @param value The value of the double to write
+     */
+    public void writeDouble( MessageBuffer buffer, double value ) {
+        buffer.writeDouble( value );
+    }
+
+    /**
+     * Writes an {@link java.util.UUID} to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * This will write out the most and least significant bits if
+     * the uuid is not null. Otherwise this will only write out -1.
+     * In compact mode a single byte telling whether the uuid is null is written first.
+     * @param buffer The buffer to write the uuid to
+     * @param value The value of the uuid to write
+     */
+    public void writeUUID( MessageBuffer buffer, UUID value ) {
+        if ( isCompact() ) {
+            buffer.writeBoolean( value != null );
+            if ( value != null ) {
+                buffer.writeLong( value.getMostSignificantBits() );
+                buffer.writeLong( value.getLeastSignificantBits() );
+            }
+        } else if ( value == null ) {
+            buffer.writeLong( -1 );
+        } else {
+            buffer.writeLong( value.getMostSignificantBits() );
+            buffer.writeLong( value.getLeastSignificantBits() );
+        }
+    }
+
     /**
      * Reads an {@link java.lang.Integer} from the {@link java.io.DataInputStream}.
      * @param inputStream The input stream to read the integer from
@@ -153,7 +315,7 @@ public abstract class PluginMessage {
      */
     public int readInt( DataInputStream inputStream ) throws IOException {
         try {
-            return inputStream.readInt();
+            return isCompact() ? VarInts.unZigZag( VarInts.readVarInt( inputStream ) ) : inputStream.readInt();
         } catch ( EOFException e ) {
             return -1;
         }
@@ -189,14 +351,14 @@ public abstract class PluginMessage {
 
     /**
      * Reads a {@link java.lang.String} from the {@link java.io.DataInputStream}.
-     * Invoking this method will automatically set the {@link java.nio.charset.Charset} to UTF-8.
+     * The string is decoded as UTF-8.
      * @param inputStream The input stream to read the string from
      * @return The string we've read out of the input stream
      * @throws IOException Thrown when an error occurs
      */
     public String readString( DataInputStream inputStream ) throws IOException {
         try {
-            return readString( inputStream, Charset.forName( "UTF-8" ) );
+            return StringCodec.read( inputStream );
         } catch ( EOFException e ) {
             return null;
         }
@@ -210,14 +372,19 @@ public abstract class PluginMessage {
      * @throws IOException Thrown when an error occurs
      */
     public String readString( DataInputStream inputStream, Charset charset ) throws IOException {
+        if ( StandardCharsets.UTF_8.equals( charset ) ) {
+            return readString( inputStream );
+        }
+
         try {
-            byte[] payload = new byte[ inputStream.readInt() ];
-            if ( inputStream.read( payload ) == -1 ) {
-                // An error occurs
-                throw new IOException( "Error while trying to read bytes" );
-            } else {
-                return new String( payload, charset );
+            int length = VarInts.readVarInt( inputStream );
+            if ( length < 0 || length > MessageReader.MAX_LENGTH ) {
+                throw new IOException( "Invalid string length " + length );
             }
+
+            byte[] payload = new byte[ length ];
+            inputStream.readFully( payload );
+            return new String( payload, charset );
         } catch ( EOFException e ) {
             return null;
         }
@@ -231,7 +398,7 @@ public abstract class PluginMessage {
      */
     public long readLong( DataInputStream inputStream ) throws IOException {
         try {
-            return inputStream.readLong();
+            return isCompact() ? VarInts.unZigZag( VarInts.readVarLong( inputStream ) ) : inputStream.readLong();
         } catch ( EOFException e ) {
             return -1;
         }
@@ -285,12 +452,17 @@ public abstract class PluginMessage {
      * If the uuid was null when wrote to the stream we will read out -1.
      * In this case we will return null. Otherwise we will firstly read out the
      * most and then the least significant bits of the uuid.
+     * In compact mode a single byte tells whether the uuid is null instead.
      * @param inputStream The input stream to read the uuid from
      * @return The uuid we've read and parsed out of the input stream
      * @throws IOException Thrown when an error occurs
      */
     public UUID readUUID( DataInputStream inputStream ) throws IOException {
         try {
+            if ( isCompact() ) {
+                return inputStream.readBoolean() ? new UUID( inputStream.readLong(), inputStream.readLong() ) : null;
+            }
+
             long mostSignificant = inputStream.readLong();
             if ( mostSignificant == -1 ) {
                 return null;
@@ -302,15 +474,966 @@ public abstract class PluginMessage {
         }
     }
 
+    /**
+     * Reads an {@link java.lang.Integer} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * @param reader The reader to read the integer from
+     * @return The integer we've read or -1 if the reader is exhausted
+     */
+    public int readInt( MessageReader reader ) {
+        if ( isCompact() ) {
+            int value = reader.readVarInt();
+            return reader.isTruncated() ? -1 : VarInts.unZigZag( value );
+        }
+        return reader.readInt();
+    }
+
+    /**
+     * Reads a {@link java.lang.Boolean} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * @param reader The reader to read the boolean from
+     * @return The boolean we've read or false if the reader is exhausted
+     */
+    public boolean readBoolean( MessageReader reader ) {
+        return reader.readBoolean();
+    }
+
+    /**
+     * Reads a {@link java.lang.Byte} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * @param reader The reader to read the byte from
+     * @return The byte we've read or -1 if the reader is exhausted
+     */
+    public byte readByte( MessageReader reader ) {
+        return reader.readByte();
+    }
+
+    /**
+     * Reads a {@link java.lang.String} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The string is decoded as UTF-8 straight out of the received bytes.
+     * @param reader The reader to read the string from
+     * @return The string we've read or null if the reader is exhausted
+     */
+    public String readString( MessageReader reader ) {
+        return reader.readString();
+    }
+
+    /**
+     * Reads a {@link java.lang.String} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The length prefix is checked against the remaining bytes
+     * before anything is allocated.
+     * @param reader The reader to read the string from
+     * @param charset The charset to use when reading the bytes of the string
+     * @return The string we've read or null if the reader is exhausted
+     */
+    public String readString( MessageReader reader, Charset charset ) {
+        if ( StandardCharsets.UTF_8.equals( charset ) ) {
+            return reader.readString();
+        }
+
+        int length = reader.readVarInt();
+        if ( reader.isTruncated() || !reader.isReadable( length ) ) {
+            reader.skip( length );
+            return null;
+        }
+
+        String value = new String( reader.getData(), reader.getPosition(), length, charset );
+        reader.skip( length );
+        return value;
+    }
+
+    /**
+     * Reads a {@link java.lang.Long} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * @param reader The reader to read the long from
+     * @return The long we've read or -1 if the reader is exhausted
+     */
+    public long readLong( MessageReader reader ) {
+        if ( isCompact() ) {
+            long value = reader.readVarLong();
+            return reader.isTruncated() ? -1 : VarInts.unZigZag( value );
+        }
+        return reader.readLong();
+    }
+
+    /**
+     * Reads a {@link java.lang.Short} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * @param reader The reader to read the short from
+     * @return The short we've read or -1 if the reader is exhausted
+     */
+    public short readShort( MessageReader reader ) {
+        return reader.readShort();
+    }
+
+    /**
+     * Reads a {@link java.lang.Float} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * @param reader The reader to read the float from
+     * @return The float we've read or -1 if the reader is exhausted
+     */
+    public float readFloat( MessageReader reader ) {
+        return reader.readFloat();
+    }
+
+    /**
+     * Reads a {@link java.lang.Double} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * @param reader The reader to read the double from
+     * @return The double we've read or -1 if the reader is exhausted
+     */
+    public double readDouble( MessageReader reader ) {
+        return reader.readDouble();
+    }
+
+    /**
+     * Reads an {@link java.util.UUID} from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * This works the same way as {@link #readUUID(DataInputStream)}.
+     * In compact mode a single byte tells whether the uuid is null instead.
+     * @param reader The reader to read the uuid from
+     * @return The uuid we've read or null if it was null or the reader is exhausted
+     */
+    public UUID readUUID( MessageReader reader ) {
+        if ( isCompact() && !reader.readBoolean() ) {
+            return null;
+        }
+
+        long mostSignificant = reader.readLong();
+        if ( mostSignificant == -1 && !isCompact() ) {
+            return null;
+        }
+
+        long leastSignificant = reader.readLong();
+        return reader.isTruncated() ? null : new UUID( mostSignificant, leastSignificant );
+    }
+
+    /**
+     * Writes a byte array to the {@link java.io.DataOutputStream}.
+     * The bytes are prefixed with their amount plus one as variable length
+     * integer, zero marks null.
+     * @param outputStream The output stream to write the bytes to
+     * @param values The bytes to write or null
+     * @throws IOException Thrown when an error occurs
+     */
+    public void writeByteArray( DataOutputStream outputStream, byte[] values ) throws IOException {
+        VarInts.writeVarInt( outputStream, values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            outputStream.write( values );
+        }
+    }
+
+    /**
+     * Writes an integer array to the {@link java.io.DataOutputStream}.
+     * The integers are prefixed with their amount plus one as variable length
+     * integer, zero marks null.
+     * In compact mode the integers are written as zigzag encoded variable length integers.
+     * @param outputStream The output stream to write the integers to
+     * @param values The integers to write or null
+     * @throws IOException Thrown when an error occurs
+     */
+    public void writeIntArray( DataOutputStream outputStream, int[] values ) throws IOException {
+        VarInts.writeVarInt( outputStream, values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            for ( int value : values ) {
+                writeInt( outputStream, value );
+            }
+        }
+    }
+
+    /**
+     * Writes a long array to the {@link java.io.DataOutputStream}.
+     * The longs are prefixed with their amount plus one as variable length
+     * integer, zero marks null.
+     * In compact mode the longs are written as zigzag encoded variable length longs.
+     * @param outputStream The output stream to write the longs to
+     * @param values The longs to write or null
+     * @throws IOException Thrown when an error occurs
+     */
+    public void writeLongArray( DataOutputStream outputStream, long[] values ) throws IOException {
+        VarInts.writeVarInt( outputStream, values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            for ( long value : values ) {
+                writeLong( outputStream, value );
+            }
+        }
+    }
+
+    /**
+     * Writes a float array to the {@link java.io.DataOutputStream}.
+     * The floats are prefixed with their amount plus one as variable length
+     * integer, zero marks null.
+     * @param outputStream The output stream to write the floats to
+     * @param values The floats to write or null
+     * @throws IOException Thrown when an error occurs
+     */
+    public void writeFloatArray( DataOutputStream outputStream, float[] values ) throws IOException {
+        VarInts.writeVarInt( outputStream, values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            for ( float value : values ) {
+                outputStream.writeFloat( value );
+            }
+        }
+    }
+
+    /**
+     * Writes a double array to the {@link java.io.DataOutputStream}.
+     * The doubles are prefixed with their amount plus one as variable length
+     * integer, zero marks null.
+     * @param outputStream The output stream to write the doubles to
+     * @param values The doubles to write or null
+     * @throws IOException Thrown when an error occurs
+     */
+    public void writeDoubleArray( DataOutputStream outputStream, double[] values ) throws IOException {
+        VarInts.writeVarInt( outputStream, values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            for ( double value : values ) {
+                outputStream.writeDouble( value );
+            }
+        }
+    }
+
+    /**
+     * Writes an uuid array to the {@link java.io.DataOutputStream}.
+     * The uuids are prefixed with their amount plus one as variable length
+     * integer, zero marks null.
+     * The uuids must not be null.
+     * @param outputStream The output stream to write the uuids to
+     * @param values The uuids to write or null
+     * @throws IOException Thrown when an error occurs
+     */
+    public void writeUUIDArray( DataOutputStream outputStream, UUID[] values ) throws IOException {
+        VarInts.writeVarInt( outputStream, values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            for ( UUID value : values ) {
+                outputStream.writeLong( value.getMostSignificantBits() );
+                outputStream.writeLong( value.getLeastSignificantBits() );
+            }
+        }
+    }
+
+    /**
+     * Writes a string list to the {@link java.io.DataOutputStream}.
+     * The strings are prefixed with their amount plus one as variable length
+     * integer, zero marks null.
+     * The strings must not be null.
+     * @param outputStream The output stream to write the strings to
+     * @param values The strings to write or null
+     * @throws IOException Thrown when an error occurs
+     */
+    public void writeStringList( DataOutputStream outputStream, List<String> values ) throws IOException {
+        VarInts.writeVarInt( outputStream, values == null ? 0 : values.size() + 1 );
+        if ( values != null ) {
+            for ( String value : values ) {
+                StringCodec.write( outputStream, value );
+            }
+        }
+    }
+
+    /**
+     * Writes a map of strings to integers to the {@link java.io.DataOutputStream}.
+     * The entries are prefixed with their amount plus one as variable length
+     * integer, zero marks null.
+     * Neither keys nor values must be null.
+     * In compact mode the values are written as zigzag encoded variable length integers.
+     * @param outputStream The output stream to write the entries to
+     * @param values The entries to write or null
+     * @throws IOException Thrown when an error occurs
+     */
+    public void writeStringIntMap( DataOutputStream outputStream, Map<String, Integer> values ) throws IOException {
+        VarInts.writeVarInt( outputStream, values == null ? 0 : values.size() + 1 );
+        if ( values != null ) {
+            for ( Map.Entry<String, Integer> entry : values.entrySet() ) {
+                StringCodec.write( outputStream, entry.getKey() );
+                writeInt( outputStream, entry.getValue() );
+            }
+        }
+    }
+
+    /**
+     * Writes a byte array to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * This works the same way as {@link #writeByteArray(DataOutputStream, byte[])}.
+     * @param buffer The buffer to write the bytes to
+     * @param values The bytes to write or null
+     */
+    public void writeByteArray( MessageBuffer buffer, byte[] values ) {
+        buffer.writeVarInt( values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            buffer.writeBytes( values );
+        }
+    }
+
+    /**
+     * Writes an integer array to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * This works the same way as {@link #writeIntArray(DataOutputStream, int[])}.
+     * @param buffer The buffer to write the integers to
+     * @param values The integers to write or null
+     */
+    public void writeIntArray( MessageBuffer buffer, int[] values ) {
+        buffer.writeVarInt( values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            if ( isCompact() ) {
+                for ( int value : values ) {
+                    buffer.writeVarInt( VarInts.zigZag( value ) );
+                }
+            } else {
+                buffer.writeInts( values, 0, values.length );
+            }
+        }
+    }
+
+    /**
+     * Writes a long array to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * This works the same way as {@link #writeLongArray(DataOutputStream, long[])}.
+     * @param buffer The buffer to write the longs to
+     * @param values The longs to write or null
+     */
+    public void writeLongArray( MessageBuffer buffer, long[] values ) {
+        buffer.writeVarInt( values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            if ( isCompact() ) {
+                for ( long value : values ) {
+                    buffer.writeVarLong( VarInts.zigZag( value ) );
+                }
+            } else {
+                buffer.writeLongs( values, 0, values.length );
+            }
+        }
+    }
+
+    /**
+     * Writes a float array to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * This works the same way as {@link #writeFloatArray(DataOutputStream, float[])}.
+     * @param buffer The buffer to write the floats to
+     * @param values The floats to write or null
+     */
+    public void writeFloatArray( MessageBuffer buffer, float[] values ) {
+        buffer.writeVarInt( values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            buffer.writeFloats( values, 0, values.length );
+        }
+    }
+
+    /**
+     * Writes a double array to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * This works the same way as {@link #writeDoubleArray(DataOutputStream, double[])}.
+     * @param buffer The buffer to write the doubles to
+     * @param values The doubles to write or null
+     */
+    public void writeDoubleArray( MessageBuffer buffer, double[] values ) {
+        buffer.writeVarInt( values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            buffer.writeDoubles( values, 0, values.length );
+        }
+    }
+
+    /**
+     * Writes an uuid array to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * This works the same way as {@link #writeUUIDArray(DataOutputStream, UUID[])}.
+     * @param buffer The buffer to write the uuids to
+     * @param values The uuids to write or null
+     */
+    public void writeUUIDArray( MessageBuffer buffer, UUID[] values ) {
+        buffer.writeVarInt( values == null ? 0 : values.length + 1 );
+        if ( values != null ) {
+            buffer.ensureWritable( values.length * 16 );
+            for ( UUID value : values ) {
+                buffer.writeLong( value.getMostSignificantBits() );
+                buffer.writeLong( value.getLeastSignificantBits() );
+            }
+        }
+    }
+
+    /**
+     * Writes a string list to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * This works the same way as {@link #writeStringList(DataOutputStream, List)}.
+     * @param buffer The buffer to write the strings to
+     * @param values The strings to write or null
+     */
+    public void writeStringList( MessageBuffer buffer, List<String> values ) {
+        buffer.writeVarInt( values == null ? 0 : values.size() + 1 );
+        if ( values != null ) {
+            for ( String value : values ) {
+                buffer.writeString( value );
+            }
+        }
+    }
+
+    /**
+     * Writes a map of strings to integers to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * This works the same way as {@link #writeStringIntMap(DataOutputStream, Map)}.
+     * @param buffer The buffer to write the entries to
+     * @param values The entries to write or null
+     */
+    public void writeStringIntMap( MessageBuffer buffer, Map<String, Integer> values ) {
+        buffer.writeVarInt( values == null ? 0 : values.size() + 1 );
+        if ( values != null ) {
+            for ( Map.Entry<String, Integer> entry : values.entrySet() ) {
+                buffer.writeString( entry.getKey() );
+                writeInt( buffer, entry.getValue() );
+            }
+        }
+    }
+
+    /**
+     * Reads a byte array from the {@link java.io.DataInputStream}.
+     * The amount of bytes is checked against {@link MessageReader#MAX_LENGTH}
+     * before anything is allocated.
+     * @param inputStream The input stream to read the bytes from
+     * @return The bytes we've read or null if they were null or the stream is exhausted
+     * @throws IOException Thrown when an error occurs
+     */
+    public byte[] readByteArray( DataInputStream inputStream ) throws IOException {
+        try {
+            int length = readLength( inputStream, 1 );
+            if ( length < 0 ) {
+                return null;
+            }
+
+            byte[] values = new byte[ length ];
+            inputStream.readFully( values );
+            return values;
+        } catch ( EOFException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads an integer array from the {@link java.io.DataInputStream}.
+     * The amount of integers is checked against {@link MessageReader#MAX_LENGTH}
+     * before anything is allocated.
+     * @param inputStream The input stream to read the integers from
+     * @return The integers we've read or null if they were null or the stream is exhausted
+     * @throws IOException Thrown when an error occurs
+     */
+    public int[] readIntArray( DataInputStream inputStream ) throws IOException {
+        try {
+            int length = readLength( inputStream, isCompact() ? 1 : 4 );
+            if ( length < 0 ) {
+                return null;
+            }
+
+            int[] values = new int[ length ];
+            for ( int i = 0; i < length; i++ ) {
+                values[ i ] = isCompact() ? VarInts.unZigZag( VarInts.readVarInt( inputStream ) ) : inputStream.readInt();
+            }
+            return values;
+        } catch ( EOFException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a long array from the {@link java.io.DataInputStream}.
+     * The amount of longs is checked against {@link MessageReader#MAX_LENGTH}
+     * before anything is allocated.
+     * @param inputStream The input stream to read the longs from
+     * @return The longs we've read or null if they were null or the stream is exhausted
+     * @throws IOException Thrown when an error occurs
+     */
+    public long[] readLongArray( DataInputStream inputStream ) throws IOException {
+        try {
+            int length = readLength( inputStream, isCompact() ? 1 : 8 );
+            if ( length < 0 ) {
+                return null;
+            }
+
+            long[] values = new long[ length ];
+            for ( int i = 0; i < length; i++ ) {
+                values[ i ] = isCompact() ? VarInts.unZigZag( VarInts.readVarLong( inputStream ) ) : inputStream.readLong();
+            }
+            return values;
+        } catch ( EOFException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a float array from the {@link java.io.DataInputStream}.
+     * The amount of floats is checked against {@link MessageReader#MAX_LENGTH}
+     * before anything is allocated.
+     * @param inputStream The input stream to read the floats from
+     * @return The floats we've read or null if they were null or the stream is exhausted
+     * @throws IOException Thrown when an error occurs
+     */
+    public float[] readFloatArray( DataInputStream inputStream ) throws IOException {
+        try {
+            int length = readLength( inputStream, 4 );
+            if ( length < 0 ) {
+                return null;
+            }
+
+            float[] values = new float[ length ];
+            for ( int i = 0; i < length; i++ ) {
+                values[ i ] = inputStream.readFloat();
+            }
+            return values;
+        } catch ( EOFException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a double array from the {@link java.io.DataInputStream}.
+     * The amount of doubles is checked against {@link MessageReader#MAX_LENGTH}
+     * before anything is allocated.
+     * @param inputStream The input stream to read the doubles from
+     * @return The doubles we've read or null if they were null or the stream is exhausted
+     * @throws IOException Thrown when an error occurs
+     */
+    public double[] readDoubleArray( DataInputStream inputStream ) throws IOException {
+        try {
+            int length = readLength( inputStream, 8 );
+            if ( length < 0 ) {
+                return null;
+            }
+
+            double[] values = new double[ length ];
+            for ( int i = 0; i < length; i++ ) {
+                values[ i ] = inputStream.readDouble();
+            }
+            return values;
+        } catch ( EOFException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads an uuid array from the {@link java.io.DataInputStream}.
+     * The amount of uuids is checked against {@link MessageReader#MAX_LENGTH}
+     * before anything is allocated.
+     * @param inputStream The input stream to read the uuids from
+     * @return The uuids we've read or null if they were null or the stream is exhausted
+     * @throws IOException Thrown when an error occurs
+     */
+    public UUID[] readUUIDArray( DataInputStream inputStream ) throws IOException {
+        try {
+            int length = readLength( inputStream, 16 );
+            if ( length < 0 ) {
+                return null;
+            }
+
+            UUID[] values = new UUID[ length ];
+            for ( int i = 0; i < length; i++ ) {
+                values[ i ] = new UUID( inputStream.readLong(), inputStream.readLong() );
+            }
+            return values;
+        } catch ( EOFException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a string list from the {@link java.io.DataInputStream}.
+     * The amount of strings is checked against {@link MessageReader#MAX_LENGTH}
+     * before anything is allocated.
+     * @param inputStream The input stream to read the strings from
+     * @return The strings we've read or null if they were null or the stream is exhausted
+     * @throws IOException Thrown when an error occurs
+     */
+    public List<String> readStringList( DataInputStream inputStream ) throws IOException {
+        try {
+            int length = readLength( inputStream, 1 );
+            if ( length < 0 ) {
+                return null;
+            }
+
+            List<String> values = new ArrayList<>( length );
+            for ( int i = 0; i < length; i++ ) {
+                values.add( StringCodec.read( inputStream ) );
+            }
+            return values;
+        } catch ( EOFException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a map of strings to integers from the {@link java.io.DataInputStream}.
+     * The amount of entries is checked against {@link MessageReader#MAX_LENGTH}
+     * before anything is allocated.
+     * @param inputStream The input stream to read the entries from
+     * @return The entries we've read or null if they were null or the stream is exhausted
+     * @throws IOException Thrown when an error occurs
+     */
+    public Map<String, Integer> readStringIntMap( DataInputStream inputStream ) throws IOException {
+        try {
+            int length = readLength( inputStream, isCompact() ? 2 : 5 );
+            if ( length < 0 ) {
+                return null;
+            }
+
+            Map<String, Integer> values = new HashMap<>( length * 4 / 3 + 1 );
+            for ( int i = 0; i < length; i++ ) {
+                String key = StringCodec.read( inputStream );
+                values.put( key, isCompact() ? VarInts.unZigZag( VarInts.readVarInt( inputStream ) ) : inputStream.readInt() );
+            }
+            return values;
+        } catch ( EOFException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a byte array from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The amount of bytes is checked against the remaining bytes
+     * before anything is allocated.
+     * @param reader The reader to read the bytes from
+     * @return The bytes we've read or null if they were null or the reader is exhausted
+     */
+    public byte[] readByteArray( MessageReader reader ) {
+        int length = readLength( reader, 1 );
+        if ( length < 0 ) {
+            return null;
+        }
+
+        return reader.readBytes( length );
+    }
+
+    /**
+     * Reads an integer array from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The amount of integers is checked against the remaining bytes
+     * before anything is allocated.
+     * @param reader The reader to read the integers from
+     * @return The integers we've read or null if they were null or the reader is exhausted
+     */
+    public int[] readIntArray( MessageReader reader ) {
+        int length = readLength( reader, isCompact() ? 1 : 4 );
+        if ( length < 0 ) {
+            return null;
+        }
+
+        int[] values = new int[ length ];
+        if ( isCompact() ) {
+            for ( int i = 0; i < length; i++ ) {
+                values[ i ] = VarInts.unZigZag( reader.readVarInt() );
+            }
+            return reader.isTruncated() ? null : values;
+        }
+        return reader.readInts( values, 0, length ) ? values : null;
+    }
+
+    /**
+     * Reads a long array from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The amount of longs is checked against the remaining bytes
+     * before anything is allocated.
+     * @param reader The reader to read the longs from
+     * @return The longs we've read or null if they were null or the reader is exhausted
+     */
+    public long[] readLongArray( MessageReader reader ) {
+        int length = readLength( reader, isCompact() ? 1 : 8 );
+        if ( length < 0 ) {
+            return null;
+        }
+
+        long[] values = new long[ length ];
+        if ( isCompact() ) {
+            for ( int i = 0; i < length; i++ ) {
+                values[ i ] = VarInts.unZigZag( reader.readVarLong() );
+            }
+            return reader.isTruncated() ? null : values;
+        }
+        return reader.readLongs( values, 0, length ) ? values : null;
+    }
+
+    /**
+     * Reads a float array from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The amount of floats is checked against the remaining bytes
+     * before anything is allocated.
+     * @param reader The reader to read the floats from
+     * @return The floats we've read or null if they were null or the reader is exhausted
+     */
+    public float[] readFloatArray( MessageReader reader ) {
+        int length = readLength( reader, 4 );
+        if ( length < 0 ) {
+            return null;
+        }
+
+        float[] values = new float[ length ];
+        return reader.readFloats( values, 0, length ) ? values : null;
+    }
+
+    /**
+     * Reads a double array from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The amount of doubles is checked against the remaining bytes
+     * before anything is allocated.
+     * @param reader The reader to read the doubles from
+     * @return The doubles we've read or null if they were null or the reader is exhausted
+     */
+    public double[] readDoubleArray( MessageReader reader ) {
+        int length = readLength( reader, 8 );
+        if ( length < 0 ) {
+            return null;
+        }
+
+        double[] values = new double[ length ];
+        return reader.readDoubles( values, 0, length ) ? values : null;
+    }
+
+    /**
+     * Reads an uuid array from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The amount of uuids is checked against the remaining bytes
+     * before anything is allocated.
+     * @param reader The reader to read the uuids from
+     * @return The uuids we've read or null if they were null or the reader is exhausted
+     */
+    public UUID[] readUUIDArray( MessageReader reader ) {
+        int length = readLength( reader, 16 );
+        if ( length < 0 ) {
+            return null;
+        }
+
+        UUID[] values = new UUID[ length ];
+        for ( int i = 0; i < length; i++ ) {
+            values[ i ] = new UUID( reader.readLong(), reader.readLong() );
+        }
+        return reader.isTruncated() ? null : values;
+    }
+
+    /**
+     * Reads a string list from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The amount of strings is checked against the remaining bytes
+     * before anything is allocated.
+     * @param reader The reader to read the strings from
+     * @return The strings we've read or null if they were null or the reader is exhausted
+     */
+    public List<String> readStringList( MessageReader reader ) {
+        int length = readLength( reader, 1 );
+        if ( length < 0 ) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>( length );
+        for ( int i = 0; i < length; i++ ) {
+            values.add( reader.readString() );
+        }
+        return reader.isTruncated() ? null : values;
+    }
+
+    /**
+     * Reads a map of strings to integers from the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * The amount of entries is checked against the remaining bytes
+     * before anything is allocated.
+     * @param reader The reader to read the entries from
+     * @return The entries we've read or null if they were null or the reader is exhausted
+     */
+    public Map<String, Integer> readStringIntMap( MessageReader reader ) {
+        int length = readLength( reader, isCompact() ? 2 : 5 );
+        if ( length < 0 ) {
+            return null;
+        }
+
+        Map<String, Integer> values = new HashMap<>( length * 4 / 3 + 1 );
+        for ( int i = 0; i < length; i++ ) {
+            String key = reader.readString();
+            values.put( key, readInt( reader ) );
+        }
+        return reader.isTruncated() ? null : values;
+    }
+
+    /**
+     * Reads the amount prefix of an array or collection.
+     * @param inputStream The input stream to read the prefix from
+     * @param minElementSize The minimum amount of bytes a single element takes
+     * @return The amount of elements or -1 if the array or collection was null
+     * @throws IOException Thrown when an error occurs or the elements exceed {@link MessageReader#MAX_LENGTH}
+     */
+    private static int readLength( DataInputStream inputStream, int minElementSize ) throws IOException {
+        int length = VarInts.readVarInt( inputStream ) - 1;
+        if ( length < -1 || (long) length * minElementSize > MessageReader.MAX_LENGTH ) {
+            throw new EOFException( "Invalid amount of elements " + length );
+        }
+        return length;
+    }
+
+    /**
+     * Reads the amount prefix of an array or collection. The
+     * reader is marked as truncated if the amount is invalid.
+     * @param reader The reader to read the prefix from
+     * @param minElementSize The minimum amount of bytes a single element takes
+     * @return The amount of elements or -1 if the array or collection was null or the reader is exhausted
+     */
+    private static int readLength( MessageReader reader, int minElementSize ) {
+        int length = reader.readVarInt() - 1;
+        if ( reader.isTruncated() ) {
+            return -1;
+        }
+        if ( length < -1 || (long) length * minElementSize > reader.remaining() ) {
+            reader.markTruncated();
+            return -1;
+        }
+        return length;
+    }
+
     /**
      * Writes the message to the {@link java.io.DataOutputStream}.
+     * By default this uses the codec generated for all fields annotated
+     * with {@link net.tmxx.messaginglib.core.codec.MessageField}.
+     * Messages without such fields have to override this method.
      * @param outputStream The output stream to write the data to
      */
-    public abstract void write( DataOutputStream outputStream );
+    public void write( DataOutputStream outputStream ) {
+        try {
+            getCodec().write( this, outputStream );
+        } catch ( IOException e ) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the message to the {@link net.tmxx.messaginglib.core.io.MessageBuffer}.
+     * Messages with a generated codec are written straight into the buffer, unless
+     * they override {@link #write(DataOutputStream)}. All others are written to a
+     * {@link java.io.DataOutputStream} view of the buffer.
+     * @param buffer The buffer to write the data to
+     */
+    @SuppressWarnings( "unchecked" )
+    public void write( MessageBuffer buffer ) {
+        MessageCodec<PluginMessage> codec = (MessageCodec<PluginMessage>) MessageCodecs.getWriteCodec( getClass() );
+        if ( codec != null ) {
+            codec.write( this, buffer );
+        } else {
+            write( buffer.getDataOutputStream() );
+        }
+    }
+
+    /**
+     * Reads the message out of the {@link net.tmxx.messaginglib.core.io.MessageReader}.
+     * Messages with a generated codec are read straight from the received bytes, unless
+     * they override {@link #read(DataInputStream)}. All others read from a
+     * {@link java.io.DataInputStream} view of the reader.
+     * @param reader The reader to read the data from
+     */
+    @SuppressWarnings( "unchecked" )
+    public void read( MessageReader reader ) {
+        MessageCodec<PluginMessage> codec = (MessageCodec<PluginMessage>) MessageCodecs.getReadCodec( getClass() );
+        if ( codec != null ) {
+            codec.read( this, reader );
+        } else {
+            read( reader.getDataInputStream() );
+        }
+    }
+
+    /**
+     * Checks whether or not this message uses the compact encoding. Messages
+     * overriding this to return true write integers and longs as zigzag encoded
+     * variable length numbers and prefix uuids with a single null flag instead
+     * of using -1 as marker, which would collide with uuids whose most
+     * significant bits are all set. Most small numbers take one or two bytes then.
+     * Both sides have to use the same version of the message.
+     * @return Whether or not the compact encoding is used
+     */
+    public boolean isCompact() {
+        return false;
+    }
+
+    /**
+     * Checks whether or not this message uses the tagged encoding. Messages
+     * overriding this to return true write every
+     * {@link net.tmxx.messaginglib.core.codec.MessageField} field with its tag
+     * and length, so receivers skip fields they do not know and keep the
+     * default value of fields they did not receive. This allows servers
+     * running different versions of the message to talk to each other.
+     * Both sides have to agree on using the tagged encoding.
+     * @return Whether or not the tagged encoding is used
+     * @see net.tmxx.messaginglib.core.codec.TaggedFields
+     */
+    public boolean isTagged() {
+        return false;
+    }
+
+    /**
+     * Gets the version of the schema of this message, which is carried in the
+     * frame. Receivers find it at {@link MessageReader#getSchemaVersion()},
+     * so messages reading on their own can handle older versions of themselves.
+     * @return The schema version or 0 to not send one
+     */
+    public int getSchemaVersion() {
+        return 0;
+    }
+
+    /**
+     * Gets the amount of bytes this message is expected to take
+     * when written. Messages which are usually larger than the
+     * default should override this, so the buffer they are written
+     * to does not have to grow while writing.
+     * @return The expected size in bytes
+     */
+    public int getSizeHint() {
+        return MessageBuffer.DEFAULT_CAPACITY;
+    }
+
+    /**
+     * Gets the key of the state this message carries, e.g. the uuid of the
+     * player whose balance it contains. When several messages of the same
+     * type and key are sent through the same player before the pending batch
+     * is sent, only the last one is encoded and sent. Such messages are
+     * encoded when the batch is sent, so they must not be changed after
+     * sending them.
+     * @return The coalescing key or null to send every message
+     * @see net.tmxx.messaginglib.core.frame.FrameBatcher
+     */
+    public Object getCoalescingKey() {
+        return null;
+    }
+
+    /**
+     * Gets the priority of this message while it waits in the backlog
+     * because it could not be sent yet. Messages of higher priority are
+     * sent first and dropped last when the backlog is full.
+     * @return The priority
+     * @see MessageBacklog
+     */
+    public int getPriority() {
+        return 0;
+    }
+
+    /**
+     * Gets the time in milliseconds this message may wait in the backlog
+     * before it is dropped as outdated.
+     * @return The time to live or 0 to use the default of the backlog
+     * @see MessageBacklog
+     */
+    public long getTimeToLive() {
+        return 0;
+    }
+
+    /**
+     * Checks whether or not received instances of this message may be reused.
+     * Messages overriding this to return true have to override {@link #reset()}
+     * as well. They are only reused if none of their listeners retains them,
+     * see {@link net.tmxx.messaginglib.core.listener.MessageHandler#retainsMessage()}.
+     * @return Whether or not instances may be reused
+     */
+    public boolean isRecyclable() {
+        return false;
+    }
+
+    /**
+     * Resets this message to the state of a newly constructed one
+     * before it gets reused. Only called for recyclable messages.
+     */
+    public void reset() {
+    }
 
     /**
      * Reads the message out of the {@link java.io.DataInputStream}.
+     * By default this uses the codec generated for all fields annotated
+     * with {@link net.tmxx.messaginglib.core.codec.MessageField}.
+     * Messages without such fields have to override this method.
      * @param inputStream The input stream to read the data from
      */
-    public abstract void read( DataInputStream inputStream );
+    public void read( DataInputStream inputStream ) {
+        try {
+            getCodec().read( this, inputStream );
+        } catch ( IOException e ) {
+            // Do nothing here
+        }
+    }
+
+    /**
+     * Gets the generated codec of this message.
+     * @return The generated codec
+     * @throws UnsupportedOperationException Thrown when this message has no generated codec
+     */
+    @SuppressWarnings( "unchecked" )
+    private MessageCodec<PluginMessage> getCodec() {
+        MessageCodec<PluginMessage> codec = (MessageCodec<PluginMessage>) MessageCodecs.getCodec( getClass() );
+        if ( codec == null ) {
+            throw new UnsupportedOperationException( getClass().getName() + " neither declares @MessageField fields nor overrides write and read" );
+        }
+        return codec;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.message;
+
+import lombok.Getter;
+import net.tmxx.messaginglib.core.message.handshake.TypeIdRequest;
+
+import java.util.List;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>The type ids negotiated with a proxy. The proxy assigns dense ids
+ * starting at zero to the names of all message types the servers know
+ * about. Every server assigns an epoch to each proxy connected to it,
+ * which is sent in the highest byte of the type id, so the server can
+ * tell the type ids of its proxies apart. Frames of another epoch are
+ * not resolved by this table.</p>
+ *
+ * <p>Instances are immutable and map between the type ids and the local
+ * indexes of the {@link MessageRegistry} using plain arrays.</p>
+ */
+public final class TypeIdTable {
+    /**
+     * The maximum amount of type ids within a single epoch.
+     */
+    public static final int MAX_TYPE_IDS = 1 << 24;
+
+    /**
+     * The highest epoch. Higher epochs would set the sign bit of the
+     * type id and could not be told apart from a missing type id.
+     */
+    public static final int MAX_EPOCH = 127;
+
+    /**
+     * The prefix of the names of the messages used for negotiating, which
+     * never get a type id themselves.
+     */
+    private static final String HANDSHAKE_PREFIX = TypeIdRequest.class.getPackage().getName() + ".";
+
+    /**
+     * The epoch of the type ids between 1 and {@link #MAX_EPOCH}.
+     */
+    @Getter private final int epoch;
+
+    /**
+     * The names of the types by their type id.
+     */
+    private final List<String> typeNames;
+
+    /**
+     * The local index of every type by its type id.
+     */
+    private final int[] indexByTypeId;
+
+    /**
+     * The type id of every type by its local index or -1 if it has none.
+     */
+    private final int[] typeIdByIndex;
+
+    /**
+     * Constructs a new table.
+     * @param epoch The epoch of the type ids
+     * @param typeNames The names of the types by their type id
+     * @param indexByTypeId The local index of every type by its type id
+     * @param typeIdByIndex The type id of every type by its local index or -1 if it has none
+     */
+    TypeIdTable( int epoch, List<String> typeNames, int[] indexByTypeId, int[] typeIdByIndex ) {
+        this.epoch = epoch;
+        this.typeNames = typeNames;
+        this.indexByTypeId = indexByTypeId;
+        this.typeIdByIndex = typeIdByIndex;
+    }
+
+    /**
+     * Gets the local index of the type having the specified type id.
+     * @param typeId The type id including the epoch
+     * @return The local index or -1 if the id is unknown or of another epoch
+     */
+    public int getTypeIndex( int typeId ) {
+        if ( typeId >>> 24 != this.epoch ) {
+            return -1;
+        }
+
+        int id = typeId & ( MAX_TYPE_IDS - 1 );
+        return id < this.indexByTypeId.length ? this.indexByTypeId[ id ] : -1;
+    }
+
+    /**
+     * Gets the type id of the type having the specified local index.
+     * @param typeIndex The local index
+     * @return The type id including the epoch or -1 if the type has none
+     */
+    public int getTypeId( int typeIndex ) {
+        if ( typeIndex < 0 || typeIndex >= this.typeIdByIndex.length || this.typeIdByIndex[ typeIndex ] < 0 ) {
+            return -1;
+        }
+        return this.epoch << 24 | this.typeIdByIndex[ typeIndex ];
+    }
+
+    /**
+     * Gets the amount of type ids.
+     * @return The amount of type ids
+     */
+    public int size() {
+        return this.indexByTypeId.length;
+    }
+
+    /**
+     * Checks whether or not the names start with the names of this table,
+     * so every type keeps its type id. This is the case for all names later
+     * sent by the same proxy, which only appends names.
+     * @param typeNames The names of the types by their type id
+     * @return Whether or not the names extend the names of this table
+     */
+    public boolean isExtendedBy( List<String> typeNames ) {
+        return typeNames.size() >= this.typeNames.size() && typeNames.subList( 0, this.typeNames.size() ).equals( this.typeNames );
+    }
+
+    /**
+     * Checks whether or not the type with the specified name may get a type id.
+     * The messages used for negotiating are always sent using the hash code
+     * of their name, so they are understood no matter what was negotiated.
+     * @param typeName The name of the type
+     * @return Whether or not the type may get a type id
+     */
+    public static boolean isNegotiable( String typeName ) {
+        return !typeName.startsWith( HANDSHAKE_PREFIX );
+    }
+}
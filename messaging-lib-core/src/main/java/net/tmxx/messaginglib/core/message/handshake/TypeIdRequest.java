@@ -0,0 +1,79 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.message.handshake;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import net.tmxx.messaginglib.core.message.PluginMessage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Sent by a server to the proxy to get type ids assigned to the
+ * names of all message types the server knows about. The proxy answers
+ * with a {@link TypeIdResponse}.</p>
+ *
+ * <p>The server offers an epoch no other proxy uses at the server. The
+ * proxy takes it unless the server already assigned it an epoch before,
+ * which it keeps using.</p>
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@EqualsAndHashCode( callSuper = false )
+@ToString
+public class TypeIdRequest extends PluginMessage {
+    /**
+     * The epoch the server offers to the proxy.
+     */
+    private int epoch;
+
+    /**
+     * The names of the message types the server knows about.
+     */
+    private List<String> typeNames = new ArrayList<>();
+
+    @Override
+    public void write( DataOutputStream outputStream ) {
+        try {
+            outputStream.writeByte( this.epoch );
+            writeStringList( outputStream, this.typeNames );
+        } catch ( IOException e ) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void read( DataInputStream inputStream ) {
+        try {
+            this.epoch = inputStream.readUnsignedByte();
+            this.typeNames = readStringList( inputStream );
+        } catch ( IOException e ) {
+            // Do nothing here
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.message.handshake;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import net.tmxx.messaginglib.core.message.PluginMessage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Sent by the proxy in response to a {@link TypeIdRequest}. It
+ * contains the names of all message types the proxy assigned a type
+ * id to, the position in the list being the type id.</p>
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@EqualsAndHashCode( callSuper = false )
+@ToString
+public class TypeIdResponse extends PluginMessage {
+    /**
+     * The epoch of the type ids, which the server assigned to the proxy.
+     */
+    private int epoch;
+
+    /**
+     * The names of the message types by their type id.
+     */
+    private List<String> typeNames = new ArrayList<>();
+
+    @Override
+    public void write( DataOutputStream outputStream ) {
+        try {
+            outputStream.writeByte( this.epoch );
+            writeStringList( outputStream, this.typeNames );
+        } catch ( IOException e ) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void read( DataInputStream inputStream ) {
+        try {
+            this.epoch = inputStream.readUnsignedByte();
+            this.typeNames = readStringList( inputStream );
+        } catch ( IOException e ) {
+            // Do nothing here
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>The players messages without a recipient can be sent through, e.g.
+ * all players online on a server. Players are added and removed when they
+ * join and quit. Picking a player takes constant time and never copies,
+ * as the players are kept in an array which is replaced as a whole on
+ * every change. Messages are spread over all players round-robin, so no
+ * single connection carries all of them.</p>
+ *
+ * @param <P> The type of the players
+ */
+public class CarrierSet<P> {
+    /**
+     * The current players. The array is never modified once published.
+     */
+    private volatile Object[] carriers = new Object[ 0 ];
+
+    /**
+     * The position of the next player picked round-robin.
+     */
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    /**
+     * Adds a player if it is not contained yet.
+     * @param carrier The player
+     */
+    public synchronized void add( P carrier ) {
+        Object[] carriers = this.carriers;
+        for ( Object current : carriers ) {
+            if ( current.equals( carrier ) ) {
+                return;
+            }
+        }
+
+        Object[] updated = Arrays.copyOf( carriers, carriers.length + 1 );
+        updated[ carriers.length ] = carrier;
+        this.carriers = updated;
+    }
+
+    /**
+     * Removes a player.
+     * @param carrier The player
+     */
+    public synchronized void remove( P carrier ) {
+        Object[] carriers = this.carriers;
+        for ( int i = 0; i < carriers.length; i++ ) {
+            if ( carriers[ i ].equals( carrier ) ) {
+                Object[] updated = new Object[ carriers.length - 1 ];
+                System.arraycopy( carriers, 0, updated, 0, i );
+                System.arraycopy( carriers, i + 1, updated, i, updated.length - i );
+                this.carriers = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Picks the next player round-robin.
+     * @return The player or null if there is none
+     */
+    @SuppressWarnings( "unchecked" )
+    public P next() {
+        Object[] carriers = this.carriers;
+        if ( carriers.length == 0 ) {
+            return null;
+        }
+        return (P) carriers[ ( this.cursor.getAndIncrement() & Integer.MAX_VALUE ) % carriers.length ];
+    }
+
+    /**
+     * Picks the player for the specified key. The same key keeps getting
+     * the same player as long as no player joins or quits, so messages
+     * coalesced by key end up in the same batch.
+     * @param key The key
+     * @return The player or null if there is none
+     */
+    @SuppressWarnings( "unchecked" )
+    public P get( Object key ) {
+        Object[] carriers = this.carriers;
+        if ( carriers.length == 0 ) {
+            return null;
+        }
+
+        int hash = key.hashCode();
+        return (P) carriers[ ( ( hash ^ hash >>> 16 ) & Integer.MAX_VALUE ) % carriers.length ];
+    }
+
+    /**
+     * Gets the amount of players.
+     * @return The amount of players
+     */
+    public int size() {
+        return this.carriers.length;
+    }
+
+    /**
+     * Checks whether or not there are no players.
+     * @return Whether or not there are no players
+     */
+    public boolean isEmpty() {
+        return this.carriers.length == 0;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Created by tmxx on 17.10.2026
+ *
+ * <p>Creates lookups having private access to classes of plugins. Lambdas
+ * defined with such a lookup link against the class loader of the plugin
+ * instead of the one of the messaging lib.</p>
+ */
+@NoArgsConstructor( access = AccessLevel.PRIVATE )
+public final class Lookups {
+    /**
+     * All access modes of a lookup, which the internal lookup constructor of Java 8 expects.
+     */
+    private static final int ALL_MODES = MethodHandles.Lookup.PUBLIC | MethodHandles.Lookup.PRIVATE
+            | MethodHandles.Lookup.PROTECTED | MethodHandles.Lookup.PACKAGE;
+
+    /**
+     * Gets a lookup having private access to the specified class.
+     * @param type The class
+     * @return The lookup or null if the runtime does not grant private access
+     */
+    public static MethodHandles.Lookup privateLookupIn( Class<?> type ) {
+        try {
+            // Java 9 and above
+            Method privateLookupIn = MethodHandles.class.getMethod( "privateLookupIn", Class.class, MethodHandles.Lookup.class );
+            return (MethodHandles.Lookup) privateLookupIn.invoke( null, type, MethodHandles.lookup() );
+        } catch ( NoSuchMethodException e ) {
+            // Java 8 only offers this through the internal constructor
+            try {
+                Constructor<MethodHandles.Lookup> constructor = MethodHandles.Lookup.class.getDeclaredConstructor( Class.class, int.class );
+                constructor.setAccessible( true );
+                return constructor.newInstance( type, ALL_MODES );
+            } catch ( ReflectiveOperationException | RuntimeException ignored ) {
+                return null;
+            }
+        } catch ( ReflectiveOperationException | RuntimeException e ) {
+            return null;
+        }
+    }
+}
@@ -17,9 +17,15 @@
  */
 package net.tmxx.messaginglib.core.util;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import net.tmxx.messaginglib.core.listener.ListenerInvoker;
+import net.tmxx.messaginglib.core.listener.ListenerInvokers;
+import net.tmxx.messaginglib.core.listener.MessageHandler;
 import net.tmxx.messaginglib.core.listener.MessageListener;
+import net.tmxx.messaginglib.core.listener.ThreadMode;
+import net.tmxx.messaginglib.core.message.LazyPluginMessage;
 
 import java.lang.reflect.Method;
 
@@ -28,7 +34,7 @@ import java.lang.reflect.Method;
  *
  * <p>This class holds all listener methods and their objects.</p>
  */
-@AllArgsConstructor
+@AllArgsConstructor( access = AccessLevel.PACKAGE )
 @Getter
 public class MethodContainer<P> {
     /**
@@ -41,8 +47,68 @@ public class MethodContainer<P> {
      */
     private Method method;
 
+    /**
+     * The type of message the method accepts. Messages of subtypes are passed as well.
+     */
+    private Class<?> messageType;
+
     /**
      * The origin of these objects.
      */
     private P origin;
+
+    /**
+     * Whether or not the method accepts a lazy view instead of the message.
+     */
+    private boolean lazy;
+
+    /**
+     * Whether or not the method keeps a reference to the message.
+     */
+    private boolean retaining;
+
+    /**
+     * The thread the method is called on.
+     */
+    private ThreadMode threadMode;
+
+    /**
+     * The invoker calling the method.
+     */
+    private ListenerInvoker invoker;
+
+    /**
+     * Constructs a new container for a method taking the message itself,
+     * which may keep a reference to it.
+     * @param messageListener The listener class containing the method
+     * @param method The method listening for the event
+     * @param origin The origin of these objects
+     */
+    public MethodContainer( MessageListener messageListener, Method method, P origin ) {
+        this( messageListener, method, origin, false, true );
+    }
+
+    /**
+     * Constructs a new container and creates the invoker of the method.
+     * @param messageListener The listener class containing the method
+     * @param method The method listening for the event
+     * @param origin The origin of these objects
+     * @param lazy Whether or not the method accepts a lazy view instead of the message
+     * @param retaining Whether or not the method keeps a reference to the message
+     */
+    public MethodContainer( MessageListener messageListener, Method method, P origin, boolean lazy, boolean retaining ) {
+        this( messageListener, method, LazyPluginMessage.getMessageType( method ), origin, lazy, retaining,
+                method.isAnnotationPresent( MessageHandler.class ) ? method.getAnnotation( MessageHandler.class ).threadMode() : ThreadMode.ASYNC,
+                ListenerInvokers.create( method ) );
+    }
+
+    /**
+     * Calls the method.
+     * @param message The message or lazy view of the message
+     * @param player The player the message was received through
+     * @throws Throwable Everything thrown by the method
+     */
+    public void invoke( Object message, Object player ) throws Throwable {
+        this.invoker.invoke( this.messageListener, message, player );
+    }
 }
@@ -0,0 +1,191 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.compression;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by tmxx on 17.10.2026
+ */
+public class DictionaryTrainerTest {
+    /**
+     * Provides the sample files.
+     */
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The trained dictionary contains the content shared by the samples and fits into the size.
+     */
+    @Test
+    public void trainsSharedContent() {
+        DictionaryTrainer trainer = this.createTrainer( 200 );
+
+        CompressionDictionary dictionary = trainer.train( 3, 512 );
+        assertEquals( 3, dictionary.getId() );
+        assertTrue( dictionary.getData().length > 0 );
+        assertTrue( dictionary.getData().length <= 512 );
+        assertTrue( new String( dictionary.getData(), StandardCharsets.ISO_8859_1 ).contains( "\"server\":\"lobby-" ) );
+    }
+
+    /**
+     * Samples compressed with the trained dictionary are smaller and decompress to the original bytes.
+     */
+    @Test
+    public void dictionaryImprovesDeflate() {
+        CompressionDictionary dictionary = this.createTrainer( 200 ).train( 1, DictionaryTrainer.DEFAULT_DICTIONARY_SIZE );
+        DeflateCompressionCodec codec = new DeflateCompressionCodec();
+        byte[] source = sample( 1000, new Random( 99 ) );
+        byte[] destination = new byte[ source.length + 64 ];
+
+        int plainLength = codec.compress( source, 0, source.length, destination, 0, destination.length );
+        int length = codec.compress( source, 0, source.length, destination, 0, destination.length, dictionary );
+        assertTrue( length > 0 );
+        assertTrue( length < plainLength );
+
+        byte[] decompressed = new byte[ source.length ];
+        assertTrue( codec.decompress( destination, 0, length, decompressed, 0, source.length, dictionary ) );
+        assertArrayEquals( source, decompressed );
+        assertFalse( codec.decompress( destination, 0, length, decompressed, 0, source.length ) );
+    }
+
+    /**
+     * Training without samples results in an empty dictionary.
+     */
+    @Test
+    public void trainsEmptyDictionaryWithoutSamples() {
+        assertEquals( 0, new DictionaryTrainer().train( 1, 1024 ).getData().length );
+    }
+
+    /**
+     * Samples exceeding the sample limit are ignored.
+     */
+    @Test
+    public void boundsSampleBytes() {
+        DictionaryTrainer trainer = new DictionaryTrainer( 100 );
+        assertTrue( trainer.addSample( new byte[ 60 ], 0, 60 ) );
+        assertFalse( trainer.addSample( new byte[ 60 ], 0, 60 ) );
+        assertTrue( trainer.addSample( new byte[ 40 ], 0, 40 ) );
+        assertEquals( 2, trainer.getSampleCount() );
+        assertEquals( 100, trainer.getSampleBytes() );
+    }
+
+    /**
+     * Saved samples are loaded again and train the same dictionary.
+     */
+    @Test
+    public void roundTripsSampleFiles() throws IOException {
+        DictionaryTrainer trainer = this.createTrainer( 50 );
+        File file = this.temporaryFolder.newFile();
+        trainer.saveSamples( file );
+
+        DictionaryTrainer loaded = new DictionaryTrainer();
+        loaded.loadSamples( file );
+        assertEquals( trainer.getSampleCount(), loaded.getSampleCount() );
+        assertEquals( trainer.getSampleBytes(), loaded.getSampleBytes() );
+        assertArrayEquals( trainer.train( 1, 1024 ).getData(), loaded.train( 1, 1024 ).getData() );
+    }
+
+    /**
+     * Sample files with a negative length are rejected.
+     */
+    @Test( expected = IOException.class )
+    public void rejectsNegativeSampleLength() throws IOException {
+        File file = this.temporaryFolder.newFile();
+        try ( DataOutputStream dataOutputStream = new DataOutputStream( new FileOutputStream( file ) ) ) {
+            dataOutputStream.writeInt( -5 );
+        }
+        new DictionaryTrainer().loadSamples( file );
+    }
+
+    /**
+     * Sample files ending within a sample are rejected.
+     */
+    @Test( expected = IOException.class )
+    public void rejectsTruncatedSampleFile() throws IOException {
+        File file = this.temporaryFolder.newFile();
+        try ( DataOutputStream dataOutputStream = new DataOutputStream( new FileOutputStream( file ) ) ) {
+            dataOutputStream.writeInt( 100 );
+            dataOutputStream.write( new byte[ 10 ] );
+        }
+        new DictionaryTrainer().loadSamples( file );
+    }
+
+    /**
+     * Random garbage as samples still trains a valid dictionary.
+     */
+    @Test
+    public void trainsFromGarbage() {
+        Random random = new Random( 5 );
+        DictionaryTrainer trainer = new DictionaryTrainer();
+        for ( int i = 0; i < 100; i++ ) {
+            byte[] garbage = new byte[ random.nextInt( 300 ) ];
+            random.nextBytes( garbage );
+            trainer.addSample( garbage, 0, garbage.length );
+        }
+
+        CompressionDictionary dictionary = trainer.train( 1, CompressionDictionary.MAX_SIZE * 2 );
+        assertTrue( dictionary.getData().length <= CompressionDictionary.MAX_SIZE );
+    }
+
+    /**
+     * Creates a trainer holding similar samples.
+     * @param count The amount of samples
+     * @return The trainer
+     */
+    private DictionaryTrainer createTrainer( int count ) {
+        Random random = new Random( 1 );
+        DictionaryTrainer trainer = new DictionaryTrainer();
+        for ( int i = 0; i < count; i++ ) {
+            byte[] sample = sample( 1 + random.nextInt( 20 ), random );
+            assertTrue( trainer.addSample( sample, 0, sample.length ) );
+        }
+        return trainer;
+    }
+
+    /**
+     * Creates a sample which looks like a typical message.
+     * @param entries The amount of entries of the sample
+     * @param random The random to vary the sample with
+     * @return The bytes of the sample
+     */
+    private static byte[] sample( int entries, Random random ) {
+        StringBuilder builder = new StringBuilder( "[" );
+        for ( int i = 0; i < entries; i++ ) {
+            char[] name = new char[ 6 ];
+            Arrays.fill( name, (char) ( 'a' + random.nextInt( 26 ) ) );
+            builder.append( "{\"player\":\"" ).append( name ).append( "\",\"server\":\"lobby-" ).append( random.nextInt( 10 ) )
+                    .append( "\",\"online\":" ).append( random.nextBoolean() ).append( "}," );
+        }
+        return builder.append( "]" ).toString().getBytes( StandardCharsets.UTF_8 );
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.compression;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by tmxx on 17.10.2026
+ */
+public class Lz4CompressionCodecTest {
+    /**
+     * The codec under test.
+     */
+    private final Lz4CompressionCodec codec = new Lz4CompressionCodec();
+
+    /**
+     * Repetitive data shrinks and decompresses to the original bytes.
+     */
+    @Test
+    public void roundTripsCompressibleData() {
+        StringBuilder builder = new StringBuilder();
+        for ( int i = 0; i < 200; i++ ) {
+            builder.append( "{\"player\":\"tmxx\",\"server\":\"lobby-" ).append( i % 7 ).append( "\"}" );
+        }
+        byte[] source = builder.toString().getBytes( StandardCharsets.UTF_8 );
+
+        byte[] compressed = this.compress( source, source.length );
+        assertTrue( compressed.length < source.length / 4 );
+        assertArrayEquals( source, this.decompress( compressed, source.length ) );
+    }
+
+    /**
+     * Random data of all sizes round-trips whenever it fits into the destination.
+     */
+    @Test
+    public void roundTripsRandomData() {
+        Random random = new Random( 42 );
+        for ( int length = 0; length < 2048; length += 1 + length / 8 ) {
+            byte[] source = new byte[ length ];
+            random.nextBytes( source );
+            // Every few bytes are repeated, so there are some matches
+            for ( int i = 16; i < length; i += 32 ) {
+                System.arraycopy( source, i - 16, source, i, Math.min( 8, length - i ) );
+            }
+
+            byte[] compressed = this.compress( source, length + length / 255 + 16 );
+            assertArrayEquals( source, this.decompress( compressed, length ) );
+        }
+    }
+
+    /**
+     * Data starting at an offset is compressed and decompressed in place.
+     */
+    @Test
+    public void respectsOffsets() {
+        byte[] source = new byte[ 600 ];
+        Arrays.fill( source, 100, 500, (byte) 'a' );
+        byte[] destination = new byte[ 700 ];
+        int length = this.codec.compress( source, 100, 400, destination, 50, 600 );
+        assertTrue( length > 0 );
+
+        byte[] decompressed = new byte[ 410 ];
+        assertTrue( this.codec.decompress( destination, 50, length, decompressed, 10, 400 ) );
+        assertArrayEquals( Arrays.copyOfRange( source, 100, 500 ), Arrays.copyOfRange( decompressed, 10, 410 ) );
+    }
+
+    /**
+     * Compressing into a destination which is too small fails instead of overflowing.
+     */
+    @Test
+    public void rejectsTooSmallDestination() {
+        byte[] source = new byte[ 256 ];
+        new Random( 7 ).nextBytes( source );
+        byte[] destination = new byte[ 128 ];
+        assertEquals( -1, this.codec.compress( source, 0, source.length, destination, 0, destination.length ) );
+    }
+
+    /**
+     * Truncated data or a wrong decompressed length is rejected.
+     */
+    @Test
+    public void rejectsTruncatedData() {
+        byte[] source = new byte[ 1000 ];
+        for ( int i = 0; i < source.length; i++ ) {
+            source[ i ] = (byte) ( i % 13 );
+        }
+        byte[] compressed = this.compress( source, source.length );
+
+        byte[] destination = new byte[ source.length ];
+        assertFalse( this.codec.decompress( compressed, 0, compressed.length - 1, destination, 0, source.length ) );
+        assertFalse( this.codec.decompress( compressed, 0, compressed.length, destination, 0, source.length - 1 ) );
+        assertFalse( this.codec.decompress( compressed, 0, compressed.length, new byte[ source.length + 1 ], 0, source.length + 1 ) );
+    }
+
+    /**
+     * Garbage never makes the codec read or write outside of the arrays.
+     */
+    @Test
+    public void survivesGarbage() {
+        Random random = new Random( 1337 );
+        for ( int i = 0; i < 10000; i++ ) {
+            byte[] garbage = new byte[ 1 + random.nextInt( 64 ) ];
+            random.nextBytes( garbage );
+            int decompressedLength = random.nextInt( 256 );
+            byte[] destination = new byte[ decompressedLength + 8 ];
+            Arrays.fill( destination, (byte) 0x55 );
+
+            this.codec.decompress( garbage, 0, garbage.length, destination, 4, decompressedLength );
+            for ( int j = 0; j < 4; j++ ) {
+                assertEquals( 0x55, destination[ j ] );
+                assertEquals( 0x55, destination[ destination.length - 1 - j ] );
+            }
+        }
+    }
+
+    /**
+     * Compresses the bytes.
+     * @param source The bytes to compress
+     * @param maxLength The maximum length of the compressed bytes
+     * @return The compressed bytes
+     */
+    private byte[] compress( byte[] source, int maxLength ) {
+        byte[] destination = new byte[ maxLength ];
+        int length = this.codec.compress( source, 0, source.length, destination, 0, maxLength );
+        assertTrue( length >= 0 );
+        return Arrays.copyOf( destination, length );
+    }
+
+    /**
+     * Decompresses the bytes.
+     * @param compressed The compressed bytes
+     * @param length The length of the decompressed bytes
+     * @return The decompressed bytes
+     */
+    private byte[] decompress( byte[] compressed, int length ) {
+        byte[] destination = new byte[ length ];
+        assertTrue( this.codec.decompress( compressed, 0, compressed.length, destination, 0, length ) );
+        return destination;
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * MessagingLib is an API to easily handle plugin messages.
+ * Copyright (C) 2016  tmxx
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.tmxx.messaginglib.core.frame;
+
+import net.tmxx.messaginglib.core.io.MessageBuffer;
+import net.tmxx.messaginglib.core.io.MessageReader;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by tmxx on 17.10.2026
+ */
+public class FrameAssemblerTest {
+    /**
+     * The type id all frames are sent with.
+     */
+    private static final int TYPE_ID = 0x1234;
+
+    /**
+     * The codec splitting the frames into fragments.
+     */
+    private final FrameCodec frameCodec = new FrameCodec();
+
+    /**
+     * The assembler under test.
+     */
+    private final FrameAssembler frameAssembler = new FrameAssembler();
+
+    /**
+     * Makes frames split into several fragments.
+     */
+    @Before
+    public void setUp() {
+        this.frameCodec.setMaxFrameLength( 256 );
+    }
+
+    /**
+     * Fragments received in order are put back together.
+     */
+    @Test
+    public void assemblesFragmentsInOrder() {
+        byte[] body = body( 2000, 1 );
+        byte[][] fragments = this.fragment( body );
+        assertTrue( fragments.length > 2 );
+
+        assertArrayEquals( body, this.readBody( this.acceptAll( "player", Arrays.asList( fragments ) ) ) );
+    }
+
+    /**
+     * Fragments received in reverse or random order are put back together.
+     */
+    @Test
+    public void assemblesReorderedFragments() {
+        byte[] body = body( 3000, 2 );
+        List<byte[]> fragments = new ArrayList<>( Arrays.asList( this.fragment( body ) ) );
+
+        Collections.reverse( fragments );
+        assertArrayEquals( body, this.readBody( this.acceptAll( "player", fragments ) ) );
+
+        Random random = new Random( 3 );
+        for ( int i = 0; i < 20; i++ ) {
+            fragments = new ArrayList<>( Arrays.asList( this.fragment( body ) ) );
+            Collections.shuffle( fragments, random );
+            assertArrayEquals( body, this.readBody( this.acceptAll( "player", fragments ) ) );
+        }
+    }
+
+    /**
+     * A fragment received twice does not complete the transfer.
+     */
+    @Test
+    public void ignoresDuplicateFragments() {
+        byte[] body = body( 1000, 4 );
+        byte[][] fragments = this.fragment( body );
+
+        for ( int i = 0; i < fragments.length - 1; i++ ) {
+            assertNull( this.accept( "player", fragments[ i ] ) );
+            assertNull( this.accept( "player", fragments[ 0 ] ) );
+        }
+        assertArrayEquals( body, this.readBody( this.accept( "player", fragments[ fragments.length - 1 ] ) ) );
+    }
+
+    /**
+     * Interleaved transfers of the same and of other senders are kept apart.
+     */
+    @Test
+    public void keepsTransfersApart() {
+        byte[] firstBody = body( 1500, 5 );
+        byte[] secondBody = body( 1500, 6 );
+        byte[][] first = this.fragment( firstBody );
+        byte[][] second = this.fragment( secondBody );
+        byte[][] other = this.fragment( firstBody );
+        assertEquals( first.length, second.length );
+
+        for ( int i = 0; i < first.length - 1; i++ ) {
+            assertNull( this.accept( "player", first[ i ] ) );
+            assertNull( this.accept( "player", second[ i ] ) );
+            assertNull( this.accept( "other", other[ i ] ) );
+        }
+        assertArrayEquals( secondBody, this.readBody( this.accept( "player", second[ second.length - 1 ] ) ) );
+        assertArrayEquals( firstBody, this.readBody( this.accept( "other", other[ other.length - 1 ] ) ) );
+        assertArrayEquals( firstBody, this.readBody( this.accept( "player", first[ first.length - 1 ] ) ) );
+    }
+
+    /**
+     * The oldest transfer is dropped once a sender starts too many.
+     */
+    @Test
+    public void dropsOldestTransfer() {
+        this.frameAssembler.setMaxTransfersPerSender( 2 );
+        byte[][] first = this.fragment( body( 1000, 7 ) );
+        byte[][] second = this.fragment( body( 1000, 8 ) );
+        byte[][] third = this.fragment( body( 1000, 9 ) );
+
+        assertNull( this.accept( "player", first[ 0 ] ) );
+        assertNull( this.accept( "player", second[ 0 ] ) );
+        assertNull( this.accept( "player", third[ 0 ] ) );
+
+        assertNull( this.acceptAll( "player", Arrays.asList( first ).subList( 1, first.length ) ) );
+        assertNotNull( this.acceptAll( "player", Arrays.asList( third ).subList( 1, third.length ) ) );
+    }
+
+    /**
+     * Transfers exceeding the bytes pending per sender are dropped.
+     */
+    @Test
+    public void boundsBytesPerSender() {
+        this.frameAssembler.setMaxBytesPerSender( 1000 );
+        assertNull( this.acceptAll( "player", Arrays.asList( this.fragment( body( 2000, 10 ) ) ) ) );
+
+        byte[] body = body( 500, 11 );
+        assertArrayEquals( body, this.readBody( this.acceptAll( "player", Arrays.asList( this.fragment( body ) ) ) ) );
+    }
+
+    /**
+     * Fragments with a corrupted body are dropped without failing.
+     */
+    @Test
+    public void survivesGarbage() {
+        Random random = new Random( 12 );
+        byte[][] fragments = this.fragment( body( 2000, 12 ) );
+        for ( int i = 0; i < 10000; i++ ) {
+            byte[] fragment = fragments[ random.nextInt( fragments.length ) ].clone();
+            FrameHeader header = this.frameCodec.readHeader( fragment );
+            for ( int j = 0; j < 4; j++ ) {
+                fragment[ header.getBodyOffset() + random.nextInt( Math.min( 8, header.getBodyLength() ) ) ] = (byte) random.nextInt();
+            }
+
+            byte[] frame = this.frameAssembler.accept( "player" + random.nextInt( 4 ), fragment, header );
+            if ( frame != null ) {
+                // Put back together from garbage, so the frame itself may be malformed
+                this.frameCodec.readHeader( frame );
+            }
+        }
+    }
+
+    /**
+     * Splits the body into fragments.
+     * @param body The body of the frame
+     * @return The fragment frames
+     */
+    private byte[][] fragment( byte[] body ) {
+        MessageBuffer buffer = new MessageBuffer( body.length );
+        buffer.writeBytes( body );
+        return this.frameCodec.encodeFrames( TYPE_ID, buffer );
+    }
+
+    /**
+     * Passes all fragments to the assembler.
+     * @param sender The sender of the fragments
+     * @param fragments The fragments in the order they are received
+     * @return The assembled frame or null if it is not complete after the last fragment
+     */
+    private byte[] acceptAll( Object sender, List<byte[]> fragments ) {
+        byte[] frame = null;
+        for ( byte[] fragment : fragments ) {
+            assertNull( frame );
+            frame = this.accept( sender, fragment );
+        }
+        return frame;
+    }
+
+    /**
+     * Passes a fragment to the assembler.
+     * @param sender The sender of the fragment
+     * @param fragment The fragment
+     * @return The assembled frame or null if it is not complete yet
+     */
+    private byte[] accept( Object sender, byte[] fragment ) {
+        FrameHeader header = this.frameCodec.readHeader( fragment );
+        assertNotNull( header );
+        assertTrue( header.isFragment() );
+        return this.frameAssembler.accept( sender, fragment, header );
+    }
+
+    /**
+     * Reads the body of an assembled frame.
+     * @param frame The frame
+     * @return The body
+     */
+    private byte[] readBody( byte[] frame ) {
+        assertNotNull( frame );
+        FrameHeader header = this.frameCodec.readHeader( frame );
+        assertNotNull( header );
+        assertEquals( TYPE_ID, header.getTypeId() );
+
+        MessageReader reader = this.frameCodec.openBody( frame, header );
+        assertNotNull( reader );
+        return reader.readBytes( reader.remaining() );
+    }
+
+    /**
+     * Creates a body which does not compress.
+     * @param length The length of the body
+     * @param seed The seed of the random bytes
+     * @return The body
+     */
+    private static byte[] body( int length, long seed ) {
+        byte[] body = new byte[ length ];
+        new Random( seed ).nextBytes( body );
+        return body;
+    }
+}